@@ -1,15 +1,20 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.service.BookingService;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 
 /**
  * TODO Sprint add-bookings.
@@ -21,6 +26,7 @@ import javax.validation.constraints.PositiveOrZero;
 public class BookingController {
 
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final String X_NEXT_CURSOR = "X-Next-Cursor";
     private final BookingService bookingService;
 
     @PostMapping
@@ -43,23 +49,40 @@ public class BookingController {
     }
 
     @GetMapping
-    public Iterable<BookingResponseDto> findBookingsByUserId(
+    public ResponseEntity<List<BookingResponseDto>> findBookingsByUserId(
             @RequestHeader(X_SHARER_USER_ID) Long userId,
             @RequestParam(required = false, defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-            @Positive @RequestParam(defaultValue = "10") Integer size
+            @Positive @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after
     ) {
-        return bookingService.findBookingsByUserId(userId, state, from, size);
+        return withNextCursor(bookingService.findBookingsByUserId(userId, state, from, size, after), size);
     }
 
     @GetMapping("/owner")
-    public Iterable<BookingResponseDto> findBookingsByOwnerId(
+    public ResponseEntity<List<BookingResponseDto>> findBookingsByOwnerId(
             @RequestHeader(X_SHARER_USER_ID) Long ownerId,
             @RequestParam(required = false, defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-            @Positive @RequestParam(defaultValue = "10") Integer size
+            @Positive @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after
     ) {
-        return bookingService.findBookingsByOwnerId(ownerId, state, from, size);
+        return withNextCursor(bookingService.findBookingsByOwnerId(ownerId, state, from, size, after), size);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(X_SHARER_USER_ID) Long userId) {
+        return bookingService.subscribe(userId);
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookings, int size) {
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingResponseDto last = bookings.get(bookings.size() - 1);
+        return ResponseEntity.ok()
+                .header(X_NEXT_CURSOR, new BookingCursor(last.getStart(), last.getId()).encode())
+                .body(bookings);
     }
 
 }
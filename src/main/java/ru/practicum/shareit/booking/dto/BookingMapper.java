@@ -1,12 +1,15 @@
 package ru.practicum.shareit.booking.dto;
 
+import ru.practicum.shareit.booking.index.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class BookingMapper {
@@ -16,6 +19,7 @@ public class BookingMapper {
         booking.setStart(bookingRequestDto.getStart());
         booking.setEnd(bookingRequestDto.getEnd());
         booking.setItem(item);
+        booking.setOwnerId(item.getOwner().getId());
         booking.setBooker(user);
 
         return booking;
@@ -28,6 +32,17 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    public static BookingDto toBookingDto(NearestBookingView nearestBooking) {
+        return toBookingDto(nearestBooking.getId(), nearestBooking.getBookerId());
+    }
+
+    public static BookingDto toBookingDto(Long bookingId, Long bookerId) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(bookingId);
+        bookingDto.setBookerId(bookerId);
+        return bookingDto;
+    }
+
     public static BookingResponseDto toBookingResponseDto(Booking booking) {
         BookingResponseDto bookingResponseDto = new BookingResponseDto();
         bookingResponseDto.setId(booking.getId());
@@ -40,10 +55,39 @@ public class BookingMapper {
         return bookingResponseDto;
     }
 
-    public static List<BookingResponseDto> toListBookingResponseDto(Iterable<Booking> bookingList) {
-        List<BookingResponseDto> bookingResponseDtoList = new LinkedList<>();
-        for (Booking booking : bookingList) {
-            bookingResponseDtoList.add(BookingMapper.toBookingResponseDto(booking));
+    public static BookingResponseDto toBookingResponseDto(BookingView bookingView) {
+        BookingResponseDto bookingResponseDto = new BookingResponseDto();
+        bookingResponseDto.setId(bookingView.getId());
+        bookingResponseDto.setStart(bookingView.getStart());
+        bookingResponseDto.setEnd(bookingView.getEnd());
+        bookingResponseDto.setBooker(new UserDto(
+                bookingView.getBookerId(),
+                bookingView.getBookerName(),
+                bookingView.getBookerEmail()));
+        bookingResponseDto.setItem(new ItemDto(
+                bookingView.getItemId(),
+                bookingView.getItemName(),
+                bookingView.getItemDescription(),
+                bookingView.getItemAvailable(),
+                bookingView.getItemRequestId()));
+        bookingResponseDto.setStatus(bookingView.getStatus());
+
+        return bookingResponseDto;
+    }
+
+    public static BookingInterval toBookingInterval(Booking booking) {
+        return new BookingInterval(booking.getId(),
+                booking.getItem().getId(),
+                booking.getBooker().getId(),
+                booking.getOwnerId(),
+                booking.getStart(),
+                booking.getEnd());
+    }
+
+    public static List<BookingResponseDto> toBookingResponseDtoList(List<BookingView> bookingViews) {
+        List<BookingResponseDto> bookingResponseDtoList = new ArrayList<>(bookingViews.size());
+        for (BookingView bookingView : bookingViews) {
+            bookingResponseDtoList.add(BookingMapper.toBookingResponseDto(bookingView));
         }
 
         return bookingResponseDtoList;
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция строки списка бронирований: только поля, которые попадают в ответ.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingView {
+
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+    private Long itemId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+    private Long itemOwnerId;
+
+}
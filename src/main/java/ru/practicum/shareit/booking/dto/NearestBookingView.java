@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Последнее или ближайшее следующее бронирование вещи.
+ */
+@Getter
+@AllArgsConstructor
+public class NearestBookingView {
+
+    private Long itemId;
+    private Long id;
+    private Long bookerId;
+    private boolean last;
+    private LocalDateTime start;
+
+}
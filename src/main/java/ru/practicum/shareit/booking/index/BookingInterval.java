@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class BookingInterval {
+
+    private Long bookingId;
+    private Long itemId;
+    private Long bookerId;
+    private Long ownerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && otherStart.isBefore(end);
+    }
+
+    public boolean involves(Long userId) {
+        return userId.equals(bookerId) || userId.equals(ownerId);
+    }
+
+}
@@ -0,0 +1,387 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Индекс активных (WAITING и APPROVED) бронирований по вещам для проверки пересечений без запросов к БД.
+ * Хранит только незакончившиеся бронирования: закончившиеся раз в час удаляются. До первой загрузки
+ * проверки ждут её окончания, а изменения, сделанные во время загрузки, применяются поверх неё.
+ * Бронирования удалённого пользователя и бронирования его вещей убираются по событию {@link UserDeleted}.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex implements DomainEventSubscriber {
+
+    public static final Set<Status> ACTIVE_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+
+    static final Duration READY_TIMEOUT = Duration.ofSeconds(30);
+    private static final long PRUNE_INTERVAL_MINUTES = 60;
+
+    private final BookingJpaRepository bookingJpaRepository;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-interval-prune");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+    private List<Consumer<Map<Long, ItemTimeline>>> pendingChanges;
+
+    public BookingIntervalIndex(BookingJpaRepository bookingJpaRepository,
+                                ItemAvailabilityIndex itemAvailabilityIndex) {
+        this.bookingJpaRepository = bookingJpaRepository;
+        this.itemAvailabilityIndex = itemAvailabilityIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        scheduler.scheduleWithFixedDelay(this::prune, PRUNE_INTERVAL_MINUTES, PRUNE_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    /**
+     * Загружает индекс из БД в новую структуру и подменяет ею текущую. Бронирования, добавленные и удалённые
+     * во время загрузки, применяются поверх загруженных.
+     */
+    public void rebuild() {
+        writeLocked(() -> pendingChanges = Collections.synchronizedList(new ArrayList<>()));
+        List<BookingInterval> intervals = bookingJpaRepository
+                .findIntervalsByStatusInAndEndAfter(ACTIVE_STATUSES, LocalDateTime.now());
+        Map<Long, ItemTimeline> loaded = new ConcurrentHashMap<>();
+        for (BookingInterval interval : intervals) {
+            timeline(loaded, interval.getItemId()).add(interval);
+        }
+        writeLocked(() -> {
+            pendingChanges.forEach(change -> change.accept(loaded));
+            pendingChanges = null;
+            timelines = loaded;
+            itemAvailabilityIndex.replace(loaded.values().stream()
+                    .flatMap(timeline -> timeline.intervals().stream()));
+        });
+        ready.countDown();
+        log.info("Индекс бронирований перестроен: {} бронирований, {} вещей", intervals.size(), loaded.size());
+    }
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        awaitReady();
+        lock.readLock().lock();
+        try {
+            ItemTimeline timeline = timelines.get(itemId);
+            return timeline == null || !timeline.hasOverlap(start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Атомарно проверяет период и добавляет бронирование. При откате транзакции бронирование удаляется из индекса.
+     */
+    public boolean tryAdd(BookingInterval interval) {
+        awaitReady();
+        lock.readLock().lock();
+        try {
+            if (!timeline(timelines, interval.getItemId()).addIfFree(interval)) {
+                return false;
+            }
+            itemAvailabilityIndex.markBusy(interval.getItemId(), interval.getStart(), interval.getEnd());
+            recordChange(loaded -> timeline(loaded, interval.getItemId()).add(interval));
+        } finally {
+            lock.readLock().unlock();
+        }
+        onRollback(() -> removeNow(interval.getItemId(), interval.getBookingId()));
+        return true;
+    }
+
+    /**
+     * Удаляет бронирование из индекса после фиксации текущей транзакции.
+     */
+    public void remove(Long itemId, Long bookingId) {
+        afterCommit(() -> removeNow(itemId, bookingId));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                removeUser(((UserDeleted) event).getUserId());
+            }
+        }
+    }
+
+    /**
+     * Удаляет бронирования, в которых пользователь арендатор или владелец вещи: в БД они удалены каскадом.
+     */
+    void removeUser(Long userId) {
+        lock.readLock().lock();
+        try {
+            recordChange(loaded -> loaded.values().forEach(timeline -> timeline.removeUser(userId)));
+            for (ItemTimeline timeline : timelines.values()) {
+                for (BookingInterval interval : timeline.removeUser(userId)) {
+                    unmarkBusy(timeline, interval);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет закончившиеся бронирования: новые бронирования начинаются в будущем и пересечься с ними не могут.
+     */
+    public void prune() {
+        try {
+            int pruned = prune(LocalDateTime.now());
+            log.debug("Из индекса бронирований удалено {} закончившихся бронирований", pruned);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить закончившиеся бронирования из индекса: {}", e.getMessage());
+        }
+    }
+
+    int prune(LocalDateTime now) {
+        lock.writeLock().lock();
+        try {
+            int pruned = 0;
+            Iterator<ItemTimeline> iterator = timelines.values().iterator();
+            while (iterator.hasNext()) {
+                ItemTimeline timeline = iterator.next();
+                pruned += timeline.removeEndedBefore(now);
+                if (timeline.size() == 0) {
+                    iterator.remove();
+                }
+            }
+            itemAvailabilityIndex.removeDaysBefore(now.toLocalDate());
+            return pruned;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return timelines.values().stream()
+                .mapToInt(ItemTimeline::size)
+                .sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static ItemTimeline timeline(Map<Long, ItemTimeline> timelines, Long itemId) {
+        return timelines.computeIfAbsent(itemId, id -> new ItemTimeline());
+    }
+
+    private void removeNow(Long itemId, Long bookingId) {
+        lock.readLock().lock();
+        try {
+            recordChange(loaded -> {
+                ItemTimeline timeline = loaded.get(itemId);
+                if (timeline != null) {
+                    timeline.remove(bookingId);
+                }
+            });
+            ItemTimeline timeline = timelines.get(itemId);
+            if (timeline == null) {
+                return;
+            }
+            BookingInterval interval = timeline.remove(bookingId);
+            if (interval != null) {
+                unmarkBusy(timeline, interval);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unmarkBusy(ItemTimeline timeline, BookingInterval interval) {
+        itemAvailabilityIndex.unmarkBusy(interval.getItemId(), interval.getStart(), interval.getEnd(),
+                day -> timeline.hasOverlap(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Запоминает изменение, чтобы повторить его на загружаемой структуре. Вызывается под блокировкой чтения:
+     * перестройка подменяет структуру под блокировкой записи, поэтому изменение не потеряется.
+     */
+    private void recordChange(Consumer<Map<Long, ItemTimeline>> change) {
+        List<Consumer<Map<Long, ItemTimeline>>> changes = pendingChanges;
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    private void awaitReady() {
+        try {
+            if (ready.await(READY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("Индекс бронирований ещё не загружен");
+    }
+
+    private void writeLocked(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Бронирования одной вещи. Принятые через проверку бронирования не пересекаются, поэтому период может
+     * пересечь только последнее из начавшихся до его конца: проверка — один поиск в упорядоченном по началу
+     * множестве. Пересекающиеся бронирования, загруженные из БД, лежат отдельным списком и проверяются перебором.
+     */
+    private static class ItemTimeline {
+
+        private static final Comparator<BookingInterval> BY_START = Comparator
+                .comparing(BookingInterval::getStart)
+                .thenComparing(BookingInterval::getBookingId);
+
+        private final NavigableSet<BookingInterval> byStart = new TreeSet<>(BY_START);
+        private final List<BookingInterval> overlapping = new ArrayList<>();
+        private final Map<Long, BookingInterval> byId = new HashMap<>();
+
+        synchronized boolean hasOverlap(LocalDateTime start, LocalDateTime end) {
+            BookingInterval previous = byStart.lower(probe(end));
+            if (previous != null && previous.overlaps(start, end)) {
+                return true;
+            }
+            for (BookingInterval interval : overlapping) {
+                if (interval.overlaps(start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized boolean addIfFree(BookingInterval interval) {
+            if (hasOverlap(interval.getStart(), interval.getEnd())) {
+                return false;
+            }
+            add(interval);
+            return true;
+        }
+
+        synchronized void add(BookingInterval interval) {
+            remove(interval.getBookingId());
+            byId.put(interval.getBookingId(), interval);
+            if (hasOverlap(interval.getStart(), interval.getEnd())) {
+                overlapping.add(interval);
+            } else {
+                byStart.add(interval);
+            }
+        }
+
+        synchronized BookingInterval remove(Long bookingId) {
+            BookingInterval interval = byId.remove(bookingId);
+            if (interval != null && !byStart.remove(interval)) {
+                overlapping.remove(interval);
+            }
+            return interval;
+        }
+
+        synchronized List<BookingInterval> removeUser(Long userId) {
+            List<BookingInterval> removed = byId.values().stream()
+                    .filter(interval -> interval.involves(userId))
+                    .collect(Collectors.toList());
+            removed.forEach(interval -> remove(interval.getBookingId()));
+            return removed;
+        }
+
+        /**
+         * Удаляет бронирования, закончившиеся к моменту now.
+         */
+        synchronized int removeEndedBefore(LocalDateTime now) {
+            int removed = 0;
+            Iterator<BookingInterval> iterator = byStart.headSet(probe(now), false).iterator();
+            while (iterator.hasNext()) {
+                BookingInterval interval = iterator.next();
+                if (!interval.getEnd().isAfter(now)) {
+                    iterator.remove();
+                    byId.remove(interval.getBookingId());
+                    removed++;
+                }
+            }
+            iterator = overlapping.iterator();
+            while (iterator.hasNext()) {
+                BookingInterval interval = iterator.next();
+                if (!interval.getEnd().isAfter(now)) {
+                    iterator.remove();
+                    byId.remove(interval.getBookingId());
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized List<BookingInterval> intervals() {
+            return new ArrayList<>(byId.values());
+        }
+
+        synchronized int size() {
+            return byId.size();
+        }
+
+        private static BookingInterval probe(LocalDateTime start) {
+            return new BookingInterval(Long.MIN_VALUE, null, null, null, start, start);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking.index;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Посуточные битовые карты занятых вещей: бит с номером id вещи установлен, если в этот день у вещи есть
+ * активное бронирование. Поиск свободных вещей на период сводится к OR карт за его дни.
+ * Бронирование занимает не больше {@link #MAX_PERIOD} дней карт, а карта дня — до (id занятой вещи) / 8 байт,
+ * поэтому память ограничена числом дней с бронированиями, умноженным на наибольший id забронированной вещи / 8.
+ */
+@Component
+public class ItemAvailabilityIndex {
+
+    /**
+     * Наибольшая длина бронирования и периода поиска свободных вещей.
+     */
+    public static final Duration MAX_PERIOD = Duration.ofDays(365);
+
+    private NavigableMap<LocalDate, BitSet> busyItemsByDay = new TreeMap<>();
+
+    /**
+     * Заменяет все карты картами, построенными по переданным бронированиям.
+     */
+    public void replace(Stream<BookingInterval> intervals) {
+        NavigableMap<LocalDate, BitSet> loaded = new TreeMap<>();
+        intervals.forEach(interval -> markBusy(loaded, interval.getItemId(), interval.getStart(), interval.getEnd()));
+        synchronized (this) {
+            busyItemsByDay = loaded;
+        }
+    }
+
+    public synchronized void markBusy(Long itemId, LocalDateTime start, LocalDateTime end) {
+        markBusy(busyItemsByDay, itemId, start, end);
+    }
+
+    public synchronized void unmarkBusy(Long itemId,
+                                        LocalDateTime start,
+                                        LocalDateTime end,
+                                        Predicate<LocalDate> stillBusy) {
+        int bit = toBit(itemId);
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(lastDay(end)); day = day.plusDays(1)) {
+            BitSet busyItems = busyItemsByDay.get(day);
+            if (busyItems == null || stillBusy.test(day)) {
+                continue;
+            }
+            busyItems.clear(bit);
+            if (busyItems.isEmpty()) {
+                busyItemsByDay.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Вещи, у которых есть бронирования в дни периода. Вещи без установленного бита гарантированно свободны,
+     * для остальных пересечение нужно уточнить по {@link BookingIntervalIndex}.
+     */
+    public synchronized BitSet findPossiblyBusyItems(LocalDateTime from, LocalDateTime to) {
+        BitSet busyItems = new BitSet();
+        for (BitSet dayItems : busyItemsByDay.subMap(from.toLocalDate(), true, lastDay(to), true).values()) {
+            busyItems.or(dayItems);
+        }
+        return busyItems;
+    }
+
+    /**
+     * Удаляет карты дней, закончившихся до указанного.
+     */
+    public synchronized void removeDaysBefore(LocalDate day) {
+        busyItemsByDay.headMap(day, false).clear();
+    }
+
+    public static int toBit(Long itemId) {
+        return Math.toIntExact(itemId);
+    }
+
+    private static void markBusy(NavigableMap<LocalDate, BitSet> busyItemsByDay,
+                                 Long itemId,
+                                 LocalDateTime start,
+                                 LocalDateTime end) {
+        int bit = toBit(itemId);
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(lastDay(end)); day = day.plusDays(1)) {
+            busyItemsByDay.computeIfAbsent(day, d -> new BitSet()).set(bit);
+        }
+    }
+
+    private static LocalDate lastDay(LocalDateTime end) {
+        LocalDate day = end.toLocalDate();
+        return end.toLocalTime().equals(LocalTime.MIDNIGHT) ? day.minusDays(1) : day;
+    }
+
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последнего бронирования страницы в порядке (start DESC, id DESC). Клиенту передаётся
+ * в непрозрачном виде и возвращается в параметре after для получения следующей страницы.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingCursor {
+
+    private static final String SEPARATOR = ",";
+
+    private LocalDateTime start;
+    private Long id;
+
+    public String encode() {
+        String value = start + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(value);
+            }
+            return new BookingCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(String.format("Некорректный курсор: %s", token));
+        }
+    }
+
+}
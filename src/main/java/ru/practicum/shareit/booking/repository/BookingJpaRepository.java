@@ -1,60 +1,35 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.index.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingJpaRepository extends JpaRepository<Booking, Long> {
+public interface BookingJpaRepository extends JpaRepository<Booking, Long>, BookingListingRepository,
+        NearestBookingRepository {
 
-    List<Booking> findBookingByBookerId(@Param("bookerId") Long bookerId, Pageable pageable);
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findWithItemAndBookerById(Long bookingId);
 
-    List<Booking> findBookingByBookerIdAndStartIsBeforeAndEndIsAfter(@Param("bookerId") Long userId,
-                                                                     @Param("time") LocalDateTime time1,
-                                                                     @Param("time") LocalDateTime time2,
-                                                                     Pageable pageable);
-
-    List<Booking> findBookingByBookerIdAndStartIsBeforeAndEndIsBefore(@Param("bookerId") Long userId,
-                                                                      @Param("time") LocalDateTime time1,
-                                                                      @Param("time") LocalDateTime time2,
-                                                                      Pageable pageable);
-
-    List<Booking> findBookingByBookerIdAndStartIsAfter(@Param("bookerId") Long userId,
-                                                       @Param("time") LocalDateTime now,
-                                                       Pageable pageable);
-
-    List<Booking> findBookingByBookerIdAndStatusEquals(@Param("bookerId") Long userId,
-                                                       @Param("status") Status status,
-                                                       Pageable pageable);
-
-    List<Booking> findAllByItemOwnerId(Long ownerId, Pageable pageable);
-
-    List<Booking> findBookingByItemOwnerIdAndStartIsBeforeAndEndIsAfter(@Param("ownerId") Long ownerId,
-                                                                            @Param("time1") LocalDateTime time1,
-                                                                            @Param("time2") LocalDateTime time2,
-                                                                            Pageable pageable);
-
-    List<Booking> findBookingByItemOwnerIdAndEndIsBefore(@Param("ownerId") Long ownerId,
-                                                             @Param("time") LocalDateTime time,
-                                                             Pageable pageable);
-
-    List<Booking> findBookingByItemOwnerIdAndStartIsAfter(Long ownerId, LocalDateTime time, Pageable pageable);
-
-    List<Booking> findBookingByItemOwnerIdAndStatusEquals(Long ownerId, Status status, Pageable pageable);
-
-    Optional<Booking> findFirstByItemIdAndEndIsBeforeOrderByEndDesc(Long itemId, LocalDateTime time);
-
-    Optional<Booking> findFirstByItemIdAndStartIsAfterOrderByStart(Long itemId, LocalDateTime time);
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, " +
+            "u.id, u.name, u.email, i.id, i.name, i.description, i.available, i.request.id, i.owner.id) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u WHERE b.id = :bookingId")
+    Optional<BookingView> findViewById(@Param("bookingId") Long bookingId);
 
     boolean existsByBookerIdAndItemIdAndEndIsBefore(Long userId, Long itemId, LocalDateTime time);
 
-    List<Booking> findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(List<Long> itemIds, LocalDateTime now);
-
-    List<Booking> findFirstByItemIdInAndStartIsAfterOrderByStart(List<Long> itemIds, LocalDateTime now);
+    @Query("SELECT new ru.practicum.shareit.booking.index.BookingInterval(" +
+            "b.id, b.item.id, b.booker.id, b.ownerId, b.start, b.end) FROM Booking b WHERE b.status IN :statuses AND b.end > :after")
+    List<BookingInterval> findIntervalsByStatusInAndEndAfter(@Param("statuses") Collection<Status> statuses,
+                                                             @Param("after") LocalDateTime after);
 
 }
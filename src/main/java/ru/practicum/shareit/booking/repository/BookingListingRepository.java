@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingListingRepository {
+
+    List<BookingView> findBookings(BookingRole role,
+                                   Long userId,
+                                   State state,
+                                   LocalDateTime now,
+                                   BookingCursor after,
+                                   int from,
+                                   int size);
+
+}
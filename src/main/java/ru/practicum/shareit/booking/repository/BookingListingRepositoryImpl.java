@@ -0,0 +1,105 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.State;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Единственный запрос для всех списков бронирований. Роль, состояние и наличие курсора задают только
+ * условие WHERE, а выборка и порядок (start DESC, id DESC) всегда одинаковые, поэтому на каждую
+ * комбинацию приходится один текст запроса и один закешированный план. Владелец берётся из bookings.owner_id,
+ * а не из вещи: фильтр и сортировка идут по индексам bookings(booker_id, start_date DESC, id DESC),
+ * bookings(owner_id, start_date DESC, id DESC) и bookings(owner_id, status, start_date DESC, id DESC),
+ * а вещи подтягиваются по первичному ключу только для строк страницы. ORDER BY начинается с колонок,
+ * зафиксированных равенством: порядок от этого не меняется, но H2 иначе не читает индекс по порядку
+ * и сортирует все бронирования пользователя.
+ */
+public class BookingListingRepositoryImpl implements BookingListingRepository {
+
+    private static final String SELECT = "SELECT new ru.practicum.shareit.booking.dto.BookingView(" +
+            "b.id, b.start, b.end, b.status, u.id, u.name, u.email, " +
+            "i.id, i.name, i.description, i.available, i.request.id, b.ownerId) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u WHERE ";
+
+    private static final String ORDER_BY = "b.start DESC, b.id DESC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingView> findBookings(BookingRole role,
+                                          Long userId,
+                                          State state,
+                                          LocalDateTime now,
+                                          BookingCursor after,
+                                          int from,
+                                          int size) {
+        TypedQuery<BookingView> query = entityManager
+                .createQuery(compile(role, state, after != null), BookingView.class)
+                .setParameter("userId", userId)
+                .setFirstResult(from)
+                .setMaxResults(size);
+        switch (state) {
+            case CURRENT:
+            case PAST:
+            case FUTURE:
+                query.setParameter("now", now);
+                break;
+            case WAITING:
+                query.setParameter("status", Status.WAITING);
+                break;
+            case REJECTED:
+                query.setParameter("status", Status.REJECTED);
+                break;
+            default:
+                break;
+        }
+        if (after != null) {
+            query.setParameter("afterStart", after.getStart())
+                    .setParameter("afterId", after.getId());
+        }
+
+        return query.getResultList();
+    }
+
+    private String compile(BookingRole role, State state, boolean withCursor) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        String userColumn = role == BookingRole.OWNER ? "b.ownerId" : "b.booker.id";
+        String orderBy = " ORDER BY " + userColumn + ", ";
+        jpql.append(userColumn).append(" = :userId");
+        switch (state) {
+            case CURRENT:
+                jpql.append(" AND b.start < :now AND b.end > :now");
+                break;
+            case PAST:
+                jpql.append(" AND b.end < :now");
+                break;
+            case FUTURE:
+                jpql.append(" AND b.start > :now");
+                break;
+            case WAITING:
+            case REJECTED:
+                jpql.append(" AND b.status = :status");
+                if (role == BookingRole.OWNER) {
+                    orderBy += "b.status, ";
+                }
+                break;
+            default:
+                break;
+        }
+        if (withCursor) {
+            jpql.append(" AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId))");
+        }
+
+        return jpql.append(orderBy).append(ORDER_BY).toString();
+    }
+
+}
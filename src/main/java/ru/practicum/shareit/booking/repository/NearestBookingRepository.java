@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface NearestBookingRepository {
+
+    List<NearestBookingView> findNearestBookings(Collection<Long> itemIds,
+                                                 LocalDateTime lastBefore,
+                                                 LocalDateTime nextAfter);
+
+    /**
+     * Момент, когда результат {@link #findNearestBookings} для вещи сменится сам, если обе границы сдвигаются
+     * вместе со временем: начнётся следующее бронирование или ещё одно закончится раньше lastBefore.
+     */
+    Optional<LocalDateTime> findNearestBookingsChange(Long itemId,
+                                                      LocalDateTime lastBefore,
+                                                      LocalDateTime nextAfter);
+
+    /**
+     * {@link #findNearestBookingsChange} для нескольких вещей одним запросом; вещей, у которых результат
+     * сам не сменится, в ответе нет.
+     */
+    Map<Long, LocalDateTime> findNearestBookingsChanges(Collection<Long> itemIds,
+                                                        LocalDateTime lastBefore,
+                                                        LocalDateTime nextAfter);
+
+}
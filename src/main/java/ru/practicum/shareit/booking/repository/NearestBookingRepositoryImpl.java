@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Последнее и следующее неотклонённое бронирование для каждой вещи одним запросом. ROW_NUMBER() OVER
+ * (PARTITION BY item_id) поддерживают и PostgreSQL, и H2, поэтому отдельный вариант с DISTINCT ON не нужен.
+ */
+public class NearestBookingRepositoryImpl implements NearestBookingRepository {
+
+    private static final String NEAREST_BOOKINGS_SQL = "SELECT item_id, id, booker_id, is_last, start_date FROM (" +
+            "SELECT b.item_id, b.id, b.booker_id, TRUE AS is_last, b.start_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC, b.id DESC) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' AND b.end_date < :lastBefore " +
+            "UNION ALL " +
+            "SELECT b.item_id, b.id, b.booker_id, FALSE AS is_last, b.start_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date, b.id) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' AND b.start_date > :nextAfter" +
+            ") ranked WHERE rn = 1";
+
+    private static final String NEAREST_BOOKINGS_CHANGE_SQL = "SELECT " +
+            "(SELECT MIN(b.start_date) FROM bookings b " +
+            "WHERE b.item_id = :itemId AND b.status <> 'REJECTED' AND b.start_date > :nextAfter), " +
+            "(SELECT MIN(b.end_date) FROM bookings b " +
+            "WHERE b.item_id = :itemId AND b.status <> 'REJECTED' AND b.end_date >= :lastBefore)";
+
+    private static final String NEAREST_BOOKINGS_CHANGES_SQL = "SELECT b.item_id, " +
+            "MIN(CASE WHEN b.start_date > :nextAfter THEN b.start_date END), " +
+            "MIN(CASE WHEN b.end_date >= :lastBefore THEN b.end_date END) " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' " +
+            "AND (b.start_date > :nextAfter OR b.end_date >= :lastBefore) " +
+            "GROUP BY b.item_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<NearestBookingView> findNearestBookings(Collection<Long> itemIds,
+                                                        LocalDateTime lastBefore,
+                                                        LocalDateTime nextAfter) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(NEAREST_BOOKINGS_SQL)
+                .setParameter("itemIds", itemIds)
+                .setParameter("lastBefore", lastBefore)
+                .setParameter("nextAfter", nextAfter)
+                .getResultList();
+
+        List<NearestBookingView> nearestBookings = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            nearestBookings.add(new NearestBookingView(
+                    ((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    (Boolean) row[3],
+                    ((Timestamp) row[4]).toLocalDateTime()));
+        }
+
+        return nearestBookings;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findNearestBookingsChange(Long itemId,
+                                                             LocalDateTime lastBefore,
+                                                             LocalDateTime nextAfter) {
+        Object[] row = (Object[]) entityManager.createNativeQuery(NEAREST_BOOKINGS_CHANGE_SQL)
+                .setParameter("itemId", itemId)
+                .setParameter("lastBefore", lastBefore)
+                .setParameter("nextAfter", nextAfter)
+                .getSingleResult();
+        return earliestChange(row[0], row[1], Duration.between(nextAfter, lastBefore));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, LocalDateTime> findNearestBookingsChanges(Collection<Long> itemIds,
+                                                               LocalDateTime lastBefore,
+                                                               LocalDateTime nextAfter) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(NEAREST_BOOKINGS_CHANGES_SQL)
+                .setParameter("itemIds", itemIds)
+                .setParameter("lastBefore", lastBefore)
+                .setParameter("nextAfter", nextAfter)
+                .getResultList();
+
+        Duration window = Duration.between(nextAfter, lastBefore);
+        Map<Long, LocalDateTime> changes = new HashMap<>();
+        for (Object[] row : rows) {
+            earliestChange(row[1], row[2], window)
+                    .ifPresent(change -> changes.put(((Number) row[0]).longValue(), change));
+        }
+
+        return changes;
+    }
+
+    private static Optional<LocalDateTime> earliestChange(Object nextStart, Object lastEnd, Duration window) {
+        return Stream.of(toLocalDateTime(nextStart), toLocalDateTime(lastEnd).map(end -> end.minus(window)))
+                .flatMap(Optional::stream)
+                .min(Comparator.naturalOrder());
+    }
+
+    private static Optional<LocalDateTime> toLocalDateTime(Object value) {
+        return Optional.ofNullable((Timestamp) value).map(Timestamp::toLocalDateTime);
+    }
+
+}
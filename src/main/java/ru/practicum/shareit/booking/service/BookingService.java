@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 
@@ -13,8 +14,10 @@ public interface BookingService {
 
     BookingResponseDto findBooking(Long userId, Long bookingId);
 
-    List<BookingResponseDto> findBookingsByUserId(Long userId, String state, Integer from, Integer size);
+    List<BookingResponseDto> findBookingsByUserId(Long userId, String state, Integer from, Integer size, String after);
 
-    Iterable<BookingResponseDto> findBookingsByOwnerId(Long userId, String state, Integer from, Integer size);
+    List<BookingResponseDto> findBookingsByOwnerId(Long userId, String state, Integer from, Integer size, String after);
+
+    SseEmitter subscribe(Long userId);
 
 }
@@ -2,26 +2,35 @@ package ru.practicum.shareit.booking.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.repository.BookingJpaRepository;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.stream.BookingEventRegistry;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.event.BookingCreated;
+import ru.practicum.shareit.common.event.BookingStatusChanged;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserJpaRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,52 +40,73 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
-    private final ItemJpaRepository itemJpaRepository;
-    private final UserJpaRepository userJpaRepository;
     private final BookingJpaRepository bookingJpaRepository;
+    private final EntityLoader entityLoader;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingEventRegistry bookingEventRegistry;
+    private final ItemPageCache itemPageCache;
+    private final DomainEventPublisher domainEventPublisher;
+    private final OwnerItemSummaryUpdater ownerItemSummaryUpdater;
 
     @Override
     @Transactional
     public BookingResponseDto addBooking(BookingRequestDto bookingRequestDto, Long userId) {
         checkBookingDate(bookingRequestDto);
-        checkItemExistsById(bookingRequestDto.getItemId());
-        checkUserExistsById(userId);
 
-        Item item = itemJpaRepository.getReferenceById(bookingRequestDto.getItemId());
+        Item item = entityLoader.loadItem(bookingRequestDto.getItemId());
+        User user = entityLoader.loadUser(userId);
 
         checkUserIsNotOwnerItem(item, userId);
         checkIsItemAvailable(item);
+        checkItemIsFree(item, bookingRequestDto.getStart(), bookingRequestDto.getEnd());
 
-        User user = userJpaRepository.getReferenceById(userId);
         Booking booking = bookingJpaRepository.save(BookingMapper.toBooking(bookingRequestDto, user, item));
-
-        return BookingMapper.toBookingResponseDto(booking);
+        reserveBookingPeriod(booking);
+        ownerItemSummaryUpdater.bookingAdded(booking);
+        itemPageCache.invalidate(item.getId());
+        domainEventPublisher.publish(new BookingCreated(booking.getId(), item.getId(), userId));
+        BookingResponseDto response = BookingMapper.toBookingResponseDto(booking);
+        bookingEventRegistry.publish(response, item.getOwner().getId());
+
+        return response;
     }
 
     @Override
     @Transactional
     public BookingResponseDto updateBooking(Long userId, Long bookingId, Boolean approved) {
-        checkBookingExistsById(bookingId);
-        checkUserExistsById(userId);
-
-        Booking booking = bookingJpaRepository.getReferenceById(bookingId);
+        Booking booking = entityLoader.loadBooking(bookingId);
 
         checkUserIsOwner(booking, userId);
         checkBookingIsNotApproved(booking);
 
+        Status oldStatus = booking.getStatus();
         Status status = approved ? Status.APPROVED : Status.REJECTED;
+        if (status == Status.REJECTED) {
+            bookingIntervalIndex.remove(booking.getItem().getId(), booking.getId());
+        } else if (booking.getStatus() == Status.REJECTED) {
+            reserveBookingPeriod(booking);
+        }
         booking.setStatus(status);
         Booking updatedBooking = bookingJpaRepository.save(booking);
+        ownerItemSummaryUpdater.bookingStatusChanged(updatedBooking, oldStatus);
+        itemPageCache.invalidate(booking.getItem().getId());
+        domainEventPublisher.publish(new BookingStatusChanged(booking.getId(), booking.getItem().getId(), status));
+        BookingResponseDto response = BookingMapper.toBookingResponseDto(updatedBooking);
+        bookingEventRegistry.publish(response, userId);
 
-        return BookingMapper.toBookingResponseDto(updatedBooking);
+        return response;
     }
 
     @Override
-    public BookingResponseDto findBooking(Long userId, Long bookingId) {
-        checkBookingExistsById(bookingId);
-        checkUserExistsById(userId);
+    public SseEmitter subscribe(Long userId) {
+        entityLoader.loadUser(userId);
 
-        Booking booking = bookingJpaRepository.getReferenceById(bookingId);
+        return bookingEventRegistry.subscribe(userId);
+    }
+
+    @Override
+    public BookingResponseDto findBooking(Long userId, Long bookingId) {
+        BookingView booking = entityLoader.loadBookingView(bookingId);
 
         checkUserIsOwnerOrBooker(booking, userId);
 
@@ -86,111 +116,49 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingResponseDto> findBookingsByUserId(Long userId, String stateStr, Integer from, Integer size) {
-        checkUserExistsById(userId);
-
-        Pageable pageable = PageRequest.of(from / size, size);
-        Pageable pageableSorted = PageRequest.of(from / size, size, Sort.by("start").descending());
-        List<Booking> bookings;
-        LocalDateTime now = LocalDateTime.now();
-        State state;
-        try {
-            state = State.valueOf(stateStr);
-        } catch (IllegalArgumentException e) {
-            throw new BadRequestException(String.format("Unknown state: %s", stateStr));
-        }
-        switch (state) {
-            case ALL:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerId(
-                                userId,
-                                pageableSorted);
-                break;
-            case CURRENT:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerIdAndStartIsBeforeAndEndIsAfter(userId, now, now, pageable);
-                break;
-            case PAST:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerIdAndStartIsBeforeAndEndIsBefore(userId, now, now, pageableSorted);
-                break;
-            case FUTURE:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerIdAndStartIsAfter(
-                                userId,
-                                now,
-                                pageableSorted);
-                break;
-            case WAITING:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerIdAndStatusEquals(userId, Status.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingJpaRepository
-                        .findBookingByBookerIdAndStatusEquals(userId, Status.REJECTED, pageable);
-                break;
-            default:
-                throw new BadRequestException(String.format("Unknown state: %s", state));
-        }
-
-        return BookingMapper.toListBookingResponseDto(bookings);
+    public List<BookingResponseDto> findBookingsByUserId(Long userId,
+                                                         String stateStr,
+                                                         Integer from,
+                                                         Integer size,
+                                                         String after) {
+        entityLoader.loadUser(userId);
+
+        return findBookings(BookingRole.BOOKER, userId, stateStr, from, size, after);
     }
 
     @Override
-    public Iterable<BookingResponseDto> findBookingsByOwnerId(Long ownerId, String stateStr, Integer from, Integer size) {
-        checkUserExistsById(ownerId);
+    public List<BookingResponseDto> findBookingsByOwnerId(Long ownerId,
+                                                          String stateStr,
+                                                          Integer from,
+                                                          Integer size,
+                                                          String after) {
+        entityLoader.loadUser(ownerId);
+
+        return findBookings(BookingRole.OWNER, ownerId, stateStr, from, size, after);
+    }
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        Pageable pageableSorted = PageRequest.of(from / size, size, Sort.by("start").descending());
-        Iterable<Booking> bookings;
-        LocalDateTime now = LocalDateTime.now();
+    private List<BookingResponseDto> findBookings(BookingRole role,
+                                                  Long userId,
+                                                  String stateStr,
+                                                  Integer from,
+                                                  Integer size,
+                                                  String after) {
+        State state = parseState(stateStr);
+        BookingCursor cursor = after != null ? BookingCursor.decode(after) : null;
+        int offset = cursor != null ? 0 : from / size * size;
+
+        return BookingMapper.toBookingResponseDtoList(bookingJpaRepository
+                .findBookings(role, userId, state, LocalDateTime.now(), cursor, offset, size));
+    }
 
-        State state;
+    private State parseState(String stateStr) {
         try {
-            state = State.valueOf(stateStr);
+            return State.valueOf(stateStr);
         } catch (IllegalArgumentException e) {
             throw new BadRequestException(String.format("Unknown state: %s", stateStr));
         }
-
-        switch (state) {
-            case ALL:
-                bookings = bookingJpaRepository
-                        .findAllByItemOwnerId(ownerId, pageableSorted);
-                break;
-            case CURRENT:
-                bookings = bookingJpaRepository
-                        .findBookingByItemOwnerIdAndStartIsBeforeAndEndIsAfter(ownerId, now, now, pageable);
-                break;
-            case PAST:
-                bookings = bookingJpaRepository
-                        .findBookingByItemOwnerIdAndEndIsBefore(
-                                ownerId,
-                                now,
-                                pageableSorted);
-                break;
-            case FUTURE:
-                bookings = bookingJpaRepository
-                        .findBookingByItemOwnerIdAndStartIsAfter(
-                                ownerId,
-                                now,
-                                pageableSorted);
-                break;
-            case WAITING:
-                bookings = bookingJpaRepository
-                        .findBookingByItemOwnerIdAndStatusEquals(ownerId, Status.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingJpaRepository
-                        .findBookingByItemOwnerIdAndStatusEquals(ownerId, Status.REJECTED, pageable);
-                break;
-            default:
-                throw new BadRequestException(String.format("Unknown state: %s", stateStr));
-        }
-
-        return BookingMapper.toListBookingResponseDto(bookings);
     }
 
-
     private void checkBookingDate(BookingRequestDto bookingRequestDto) {
         if (bookingRequestDto.getStart().isAfter(bookingRequestDto.getEnd())) {
             throw new BadRequestException("Дата старта не может быть позже даты окончания");
@@ -201,17 +169,10 @@ public class BookingServiceImpl implements BookingService {
         if (bookingRequestDto.getStart().equals(bookingRequestDto.getEnd())) {
             throw new BadRequestException("Дата старта не может быть равной дате окончания");
         }
-    }
-
-    private void checkUserExistsById(Long userId) {
-        if (!userJpaRepository.existsById(userId)) {
-            throw new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
-        }
-    }
-
-    private void checkItemExistsById(Long itemId) {
-        if (!itemJpaRepository.existsById(itemId)) {
-            throw new NotFoundException(String.format("Предмета с id = %d не существует", itemId));
+        if (Duration.between(bookingRequestDto.getStart(), bookingRequestDto.getEnd())
+                .compareTo(ItemAvailabilityIndex.MAX_PERIOD) > 0) {
+            throw new BadRequestException(String.format("Бронирование не может быть длиннее %d дней",
+                    ItemAvailabilityIndex.MAX_PERIOD.toDays()));
         }
     }
 
@@ -227,9 +188,16 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private void checkBookingExistsById(Long bookingId) {
-        if (!bookingJpaRepository.existsById(bookingId)) {
-            throw new NotFoundException(String.format("Брони с id = %d не существует", bookingId));
+    private void checkItemIsFree(Item item, LocalDateTime start, LocalDateTime end) {
+        if (!bookingIntervalIndex.isFree(item.getId(), start, end)) {
+            throw new BadRequestException(String.format("Вещь с id = %d уже забронирована на этот период", item.getId()));
+        }
+    }
+
+    private void reserveBookingPeriod(Booking booking) {
+        if (!bookingIntervalIndex.tryAdd(BookingMapper.toBookingInterval(booking))) {
+            throw new BadRequestException(String.format(
+                    "Вещь с id = %d уже забронирована на этот период", booking.getItem().getId()));
         }
     }
 
@@ -242,12 +210,12 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private void checkUserIsOwnerOrBooker(Booking booking, Long userId) {
-        if (!booking.getBooker().getId().equals(userId) && !booking.getItem().getOwner().getId().equals(userId)) {
+    private void checkUserIsOwnerOrBooker(BookingView booking, Long userId) {
+        if (!booking.getBookerId().equals(userId) && !booking.getItemOwnerId().equals(userId)) {
             throw new NotFoundException(String.format(
                     "Указанный пользователь с id = %d не является владельцем вещи с id = %d или брони с id = %d",
                     userId,
-                    booking.getItem().getId(),
+                    booking.getItemId(),
                     booking.getId()));
         }
     }
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Подписки пользователей на изменения их бронирований (как арендатора и как владельца вещи).
+ * Соединение держит асинхронный запрос сервлета, а не поток: на все подписки приходится один поток,
+ * который раз в {@value #HEARTBEAT_SECONDS} секунд шлёт комментарий и так находит закрытые клиентами соединения.
+ */
+@Slf4j
+@Component
+public class BookingEventRegistry implements MeterBinder {
+
+    static final String EVENT_NAME = "booking";
+    static final int MAX_SUBSCRIPTIONS_PER_USER = 4;
+    static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    private final Map<Long, Deque<SseEmitter>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder sentEvents = new LongAdder();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookingEventRegistry() {
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Открывает подписку пользователя. Сверх {@value #MAX_SUBSCRIPTIONS_PER_USER} подписок закрывается самая старая.
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe(userId, emitter));
+        List<SseEmitter> evicted = new ArrayList<>();
+        subscriptions.compute(userId, (key, emitters) -> {
+            Deque<SseEmitter> result = emitters != null ? emitters : new ConcurrentLinkedDeque<>();
+            result.addLast(emitter);
+            while (result.size() > MAX_SUBSCRIPTIONS_PER_USER) {
+                evicted.add(result.pollFirst());
+            }
+            return result;
+        });
+        subscriberCount.addAndGet(1 - evicted.size());
+        evicted.forEach(SseEmitter::complete);
+        send(userId, emitter, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    /**
+     * После фиксации текущей транзакции отправляет бронирование арендатору и владельцу вещи.
+     */
+    public void publish(BookingResponseDto booking, Long ownerId) {
+        afterCommit(() -> {
+            sendToUser(booking.getBooker().getId(), booking);
+            sendToUser(ownerId, booking);
+        });
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.booking.stream.subscribers", this, BookingEventRegistry::subscriberCount)
+                .register(registry);
+        FunctionCounter.builder("shareit.booking.stream.events", sentEvents, LongAdder::sum)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        subscriptions.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscriptions.clear();
+    }
+
+    private void sendToUser(Long userId, BookingResponseDto booking) {
+        Deque<SseEmitter> emitters = subscriptions.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (send(userId, emitter, SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(String.valueOf(booking.getId()))
+                    .data(booking, MediaType.APPLICATION_JSON))) {
+                sentEvents.increment();
+            }
+        }
+    }
+
+    private void sendHeartbeat() {
+        subscriptions.forEach((userId, emitters) -> emitters
+                .forEach(emitter -> send(userId, emitter, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписка пользователя с id = {} закрыта: {}", userId, e.getMessage());
+            unsubscribe(userId, emitter);
+            return false;
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        subscriptions.computeIfPresent(userId, (key, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
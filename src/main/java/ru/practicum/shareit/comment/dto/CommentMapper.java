@@ -36,7 +36,17 @@ public class CommentMapper {
         return commentResponseDto;
     }
 
-    public static List<CommentResponseDto> toCommentResponseDtoList(List<Comment> comments) {
+    public static CommentResponseDto toCommentResponseDto(CommentView comment) {
+        CommentResponseDto commentResponseDto = new CommentResponseDto();
+        commentResponseDto.setText(comment.getText());
+        commentResponseDto.setAuthorName(comment.getAuthorName());
+        commentResponseDto.setCreated(comment.getCreated());
+        commentResponseDto.setId(comment.getId());
+
+        return commentResponseDto;
+    }
+
+    public static List<CommentResponseDto> toCommentResponseDtoList(List<CommentView> comments) {
         return comments.stream()
                 .map(CommentMapper::toCommentResponseDto)
                 .collect(Collectors.toList());
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.comment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция отзыва с именем автора.
+ */
+@Getter
+@AllArgsConstructor
+public class CommentView {
+
+    private Long id;
+    private Long itemId;
+    private String text;
+    private String authorName;
+    private LocalDateTime created;
+
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.model.Comment;
 
 import java.util.Collection;
@@ -8,8 +11,13 @@ import java.util.List;
 
 public interface CommentJpaRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> findAllByItemId(Long itemId);
+    String COMMENT_VIEW = "SELECT new ru.practicum.shareit.comment.dto.CommentView(" +
+            "c.id, c.item.id, c.text, a.name, c.createdTime) FROM Comment c JOIN c.author a ";
 
-    Collection<Comment> findAllByItemIdIn(List<Long> itemIds);
+    @Query(COMMENT_VIEW + "WHERE c.item.id = :itemId")
+    List<CommentView> findViewsByItemId(@Param("itemId") Long itemId);
+
+    @Query(COMMENT_VIEW + "WHERE c.item.id IN :itemIds")
+    List<CommentView> findViewsByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 
 }
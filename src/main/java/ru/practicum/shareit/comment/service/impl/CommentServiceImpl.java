@@ -3,6 +3,7 @@ package ru.practicum.shareit.comment.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.repository.BookingJpaRepository;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.dto.CommentRequestDto;
@@ -10,47 +11,43 @@ import ru.practicum.shareit.comment.dto.CommentResponseDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentJpaRepository;
 import ru.practicum.shareit.comment.service.CommentService;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.event.CommentPosted;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
 import ru.practicum.shareit.exception.BadRequestException;
-import ru.practicum.shareit.exception.NotFoundException;
-import ru.practicum.shareit.item.repository.ItemJpaRepository;
-import ru.practicum.shareit.user.repository.UserJpaRepository;
+import ru.practicum.shareit.item.cache.ItemPageCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
+import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class CommentServiceImpl implements CommentService {
 
-    private final UserJpaRepository userJpaRepository;
-    private final ItemJpaRepository itemJpaRepository;
     private final CommentJpaRepository commentJpaRepository;
     private final BookingJpaRepository bookingJpaRepository;
+    private final EntityLoader entityLoader;
+    private final ItemPageCache itemPageCache;
+    private final DomainEventPublisher domainEventPublisher;
+    private final OwnerItemSummaryUpdater ownerItemSummaryUpdater;
 
     @Override
+    @Transactional
     public CommentResponseDto postComment(Long userId, Long itemId, CommentRequestDto commentRequestDto) {
-        checkItemExistsById(itemId);
-        checkUserExistsById(userId);
+        Item item = entityLoader.loadItem(itemId);
+        User user = entityLoader.loadUser(userId);
         LocalDateTime time = LocalDateTime.now();
         checkBookingExists(userId, itemId, time);
-        Comment comment = CommentMapper.toComment(commentRequestDto,
-                userJpaRepository.getReferenceById(userId),
-                itemJpaRepository.getReferenceById(itemId),
-                time);
-        return CommentMapper.toCommentResponseDto(commentJpaRepository.save(comment));
-    }
-
-    private void checkUserExistsById(Long userId) {
-        if (!userJpaRepository.existsById(userId)) {
-            throw new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
-
-        }
-    }
-
-    private void checkItemExistsById(Long itemId) {
-        if (!itemJpaRepository.existsById(itemId)) {
-            throw new NotFoundException(String.format("Предмета с id = %d не существует", itemId));
-        }
+        Comment comment = CommentMapper.toComment(commentRequestDto, user, item, time);
+        Comment savedComment = commentJpaRepository.save(comment);
+        ownerItemSummaryUpdater.commentPosted(itemId);
+        itemPageCache.invalidate(itemId);
+        domainEventPublisher.publish(new CommentPosted(savedComment.getId(), itemId, userId));
+        return CommentMapper.toCommentResponseDto(savedComment);
     }
 
     private void checkBookingExists(Long userId, Long itemId, LocalDateTime time) {
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserJpaRepository;
+
+/**
+ * Загружает сущность или бросает NotFoundException. Проверки существования выполняются над загруженным
+ * экземпляром, а не отдельным existsById. Контекст персистентности живёт весь HTTP-запрос (open-in-view)
+ * или всю транзакцию сервиса, поэтому повторная загрузка той же сущности за запрос берётся из него без SQL.
+ * Заведомо несуществующие id пользователей и вещей отсекаются {@link KnownIdFilter} без запроса к БД.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityLoader {
+
+    private final UserJpaRepository userJpaRepository;
+    private final ItemJpaRepository itemJpaRepository;
+    private final BookingJpaRepository bookingJpaRepository;
+    private final ItemRequestJpaRepository itemRequestJpaRepository;
+    private final KnownIdFilter knownIdFilter;
+
+    public User loadUser(Long userId) {
+        if (!knownIdFilter.mightContainUser(userId)) {
+            throw userNotFound(userId);
+        }
+        return userJpaRepository.findById(userId)
+                .orElseThrow(() -> {
+                    knownIdFilter.userFalsePositive();
+                    return userNotFound(userId);
+                });
+    }
+
+    public Item loadItem(Long itemId) {
+        if (!knownIdFilter.mightContainItem(itemId)) {
+            throw itemNotFound(itemId);
+        }
+        return itemJpaRepository.findById(itemId)
+                .orElseThrow(() -> {
+                    knownIdFilter.itemFalsePositive();
+                    return itemNotFound(itemId);
+                });
+    }
+
+    /**
+     * Проекция вещи для чтения: не попадает в контекст персистентности и не отслеживается на изменения.
+     */
+    public ItemView loadItemView(Long itemId) {
+        if (!knownIdFilter.mightContainItem(itemId)) {
+            throw itemNotFound(itemId);
+        }
+        return itemJpaRepository.findViewById(itemId)
+                .orElseThrow(() -> {
+                    knownIdFilter.itemFalsePositive();
+                    return itemNotFound(itemId);
+                });
+    }
+
+    public Booking loadBooking(Long bookingId) {
+        return bookingJpaRepository.findWithItemAndBookerById(bookingId)
+                .orElseThrow(() -> bookingNotFound(bookingId));
+    }
+
+    public BookingView loadBookingView(Long bookingId) {
+        return bookingJpaRepository.findViewById(bookingId)
+                .orElseThrow(() -> bookingNotFound(bookingId));
+    }
+
+    public ItemRequest loadItemRequest(Long requestId) {
+        return itemRequestJpaRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("Запроса с id = %d не существует", requestId)));
+    }
+
+    private static NotFoundException userNotFound(Long userId) {
+        return new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
+    }
+
+    private static NotFoundException itemNotFound(Long itemId) {
+        return new NotFoundException(String.format("Предмета с id = %d не существует", itemId));
+    }
+
+    private static NotFoundException bookingNotFound(Long bookingId) {
+        return new NotFoundException(String.format("Брони с id = %d не существует", bookingId));
+    }
+
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.common;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Множество идентификаторов одной таблицы в виде битовой карты. Ответ «нет» даётся, только когда отсутствие
+ * известно точно: id удалён (id не переиспользуются) или выше максимума, который БД подтвердила в этом же вызове.
+ * Другие экземпляры приложения вставляют строки в обход карты и фиксируют их в любом порядке, поэтому id
+ * без бита ниже максимума проверяется по БД. Лишний установленный бит безопасен (будет запрос к БД), поэтому
+ * бит ставится сразу после вставки, а снимается только после фиксации удаления.
+ */
+class IdBitmap {
+
+    private final BitSet ids = new BitSet();
+    private final BitSet removedIds = new BitSet();
+    private long maxId;
+    private boolean loaded;
+    private long lastCatchUpAt;
+    private boolean caughtUp;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Для id выше известного максимума сначала догружает id из БД через findIdsAfter, но не чаще раза
+     * в catchUpInterval, чтобы перебор случайных id не нагружал БД. Пока догрузка не разрешена, такой id
+     * проверяется по БД.
+     */
+    boolean mightContain(Long id, Function<Long, Collection<Long>> findIdsAfter, Duration catchUpInterval) {
+        boolean result = check(id, findIdsAfter, catchUpInterval);
+        (result ? passed : rejected).increment();
+        return result;
+    }
+
+    synchronized void add(Long id) {
+        if (id == null) {
+            return;
+        }
+        if (fits(id)) {
+            ids.set(id.intValue());
+        }
+        maxId = Math.max(maxId, id);
+    }
+
+    synchronized void remove(Long id) {
+        if (fits(id)) {
+            ids.clear(id.intValue());
+            removedIds.set(id.intValue());
+        }
+    }
+
+    /**
+     * Объединяет загруженные из БД id с уже известными: вставки, выполненные во время загрузки, не теряются.
+     */
+    synchronized void load(Collection<Long> loadedIds) {
+        for (Long id : loadedIds) {
+            if (fits(id) && !removedIds.get(id.intValue())) {
+                ids.set(id.intValue());
+            }
+            maxId = Math.max(maxId, id);
+        }
+        loaded = true;
+    }
+
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    synchronized int size() {
+        return ids.cardinality();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long passed() {
+        return passed.sum();
+    }
+
+    long falsePositives() {
+        return falsePositives.sum();
+    }
+
+    private boolean check(Long id, Function<Long, Collection<Long>> findIdsAfter, Duration catchUpInterval) {
+        if (id == null || id <= 0) {
+            return false;
+        }
+        long knownMaxId;
+        synchronized (this) {
+            if (!loaded || fits(id) && ids.get(id.intValue())) {
+                return true;
+            }
+            if (fits(id) && removedIds.get(id.intValue())) {
+                return false;
+            }
+            if (id <= maxId || !startCatchUp(catchUpInterval)) {
+                return true;
+            }
+            knownMaxId = maxId;
+        }
+        load(findIdsAfter.apply(knownMaxId));
+        synchronized (this) {
+            return id <= maxId;
+        }
+    }
+
+    private boolean startCatchUp(Duration interval) {
+        long now = System.nanoTime();
+        if (caughtUp && now - lastCatchUpAt < interval.toNanos()) {
+            return false;
+        }
+        caughtUp = true;
+        lastCatchUpAt = now;
+        return true;
+    }
+
+    private static boolean fits(Long id) {
+        return id != null && id > 0 && id <= Integer.MAX_VALUE;
+    }
+
+}
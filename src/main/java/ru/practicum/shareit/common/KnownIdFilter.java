@@ -0,0 +1,126 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.user.repository.UserJpaRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Фильтр существующих id пользователей и вещей: отвечает «точно нет» для удалённых id и для id выше максимума
+ * в БД, не загружая сущность. Ответ «возможно есть» проверяется загрузкой из БД; такие промахи учитываются
+ * как ложноположительные. Id выше известного максимума, вставленные другими экземплярами, догружаются из БД
+ * не чаще раза в {@link #CATCH_UP_INTERVAL}. Удалённые пользователи убираются по событию {@link UserDeleted}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownIdFilter implements MeterBinder, DomainEventSubscriber {
+
+    static final Duration CATCH_UP_INTERVAL = Duration.ofSeconds(1);
+    private static final String METRIC_PREFIX = "shareit.known.ids";
+
+    private final UserJpaRepository userJpaRepository;
+    private final ItemJpaRepository itemJpaRepository;
+    private final IdBitmap users = new IdBitmap();
+    private final IdBitmap items = new IdBitmap();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> userIds = userJpaRepository.findAllIds();
+        List<Long> itemIds = itemJpaRepository.findAllIds();
+        users.load(userIds);
+        items.load(itemIds);
+        log.info("Фильтр id загружен: {} пользователей, {} вещей", userIds.size(), itemIds.size());
+    }
+
+    public boolean mightContainUser(Long userId) {
+        return users.mightContain(userId, userJpaRepository::findIdsAfter, CATCH_UP_INTERVAL);
+    }
+
+    public boolean mightContainItem(Long itemId) {
+        return items.mightContain(itemId, itemJpaRepository::findIdsAfter, CATCH_UP_INTERVAL);
+    }
+
+    public void addUser(Long userId) {
+        users.add(userId);
+    }
+
+    public void addItem(Long itemId) {
+        items.add(itemId);
+    }
+
+    /**
+     * Убирает пользователя из фильтра после фиксации текущей транзакции. Вещи удаляются каскадно в БД
+     * и остаются в фильтре: для них это лишь ложноположительный ответ.
+     */
+    public void removeUser(Long userId) {
+        afterCommit(() -> users.remove(userId));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                removeUser(((UserDeleted) event).getUserId());
+            }
+        }
+    }
+
+    public void userFalsePositive() {
+        users.recordFalsePositive();
+    }
+
+    public void itemFalsePositive() {
+        items.recordFalsePositive();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "user", users);
+        bind(registry, "item", items);
+    }
+
+    private static void bind(MeterRegistry registry, String entity, IdBitmap bitmap) {
+        FunctionCounter.builder(METRIC_PREFIX + ".lookups", bitmap, IdBitmap::rejected)
+                .tags("entity", entity, "result", "absent")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".lookups", bitmap, IdBitmap::passed)
+                .tags("entity", entity, "result", "maybe")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".false.positives", bitmap, IdBitmap::falsePositives)
+                .tag("entity", entity)
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".size", bitmap, IdBitmap::size)
+                .tag("entity", entity)
+                .register(registry);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
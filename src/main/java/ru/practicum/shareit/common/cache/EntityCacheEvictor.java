@@ -0,0 +1,74 @@
+package ru.practicum.shareit.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.common.event.UserUpdated;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Сброс кэша второго уровня для строк, которые БД меняет сама (ON DELETE CASCADE), минуя Hibernate,
+ * и для строк, изменённых другими экземплярами: кэш у каждого процесса свой, поэтому их изменения приходят
+ * событиями из outbox с задержкой до {@code shareit.outbox.poll-interval}. Получает события раньше других
+ * подписчиков, чтобы те не перечитали старую запись из кэша.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class EntityCacheEvictor implements DomainEventSubscriber {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * После фиксации текущей транзакции сбрасывает все вещи. Удаление пользователя каскадом удаляет его вещи
+     * и вещи, созданные в ответ на его запросы; до фиксации вытесненную запись успело бы вернуть чтение.
+     */
+    public void evictItems() {
+        afterCommit(() -> entityManagerFactory.getCache().evict(Item.class));
+    }
+
+    /**
+     * Сбрасывает записи, изменённые любым экземпляром. Свои изменения Hibernate уже положил в кэш,
+     * поэтому для них это лишнее чтение из БД, но не ошибка.
+     */
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        Cache cache = entityManagerFactory.getCache();
+        for (DomainEvent event : events) {
+            if (event instanceof ItemUpdated) {
+                cache.evict(Item.class, ((ItemUpdated) event).getItemId());
+            } else if (event instanceof UserUpdated) {
+                cache.evict(User.class, ((UserUpdated) event).getUserId());
+            } else if (event instanceof UserDeleted) {
+                cache.evict(User.class, ((UserDeleted) event).getUserId());
+                cache.evict(Item.class);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Границы кэша второго уровня Hibernate для пользователей и вещей.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.entity-cache")
+public class EntityCacheProperties {
+
+    private Region users = new Region(10_000, Duration.ofMinutes(10));
+    private Region items = new Region(50_000, Duration.ofMinutes(10));
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Region {
+
+        private long maxSize;
+
+        /**
+         * Время жизни записи после загрузки или изменения: страховка от изменений в обход Hibernate.
+         */
+        private Duration timeToLive;
+
+    }
+
+}
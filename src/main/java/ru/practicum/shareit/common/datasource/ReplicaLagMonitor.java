@@ -0,0 +1,110 @@
+package ru.practicum.shareit.common.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Раз в {@link ReplicaProperties#getLagCheckInterval()} измеряет отставание реплики. Реплика пригодна для чтения,
+ * пока последняя проверка прошла и отставание не больше {@link ReplicaProperties#getMaxLag()}.
+ * До первой проверки и после ошибки соединения чтение идёт в основную БД.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lagMillis = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReplicaProperties properties) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.lagQuery = properties.getLagQuery();
+        this.maxLagMillis = properties.getMaxLag().toMillis();
+        this.checkIntervalMillis = properties.getLagCheckInterval().toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Снимает реплику с чтения до следующей успешной проверки.
+     */
+    public void markUnavailable() {
+        usable = false;
+    }
+
+    void recordRead(boolean fromReplica) {
+        (fromReplica ? replicaReads : primaryReads).increment();
+    }
+
+    /**
+     * Проверки не пересекаются: иначе результат более ранней мог бы затереть более свежий.
+     */
+    synchronized void check() {
+        boolean wasUsable = usable;
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+            lagMillis = lag == null ? 0 : lag.longValue();
+            usable = lagMillis <= maxLagMillis;
+        } catch (RuntimeException e) {
+            lagMillis = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Реплика недоступна, чтение переключено на основную БД: {}", e.getMessage());
+            }
+            return;
+        }
+        if (wasUsable && !usable) {
+            log.warn("Реплика отстаёт на {} мс, чтение переключено на основную БД", lagMillis);
+        } else if (!wasUsable && usable) {
+            log.info("Чтение переключено на реплику, отставание {} мс", lagMillis);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.datasource.replica.lag", this, monitor -> monitor.lagMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("shareit.datasource.reads", replicaReads, LongAdder::sum)
+                .tag("target", "replica")
+                .register(registry);
+        FunctionCounter.builder("shareit.datasource.reads", primaryReads, LongAdder::sum)
+                .tag("target", "primary")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.common.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Реплика для чтения. Пока url не задан, все запросы идут в основную БД.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.datasource.replica")
+public class ReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private int maximumPoolSize = 10;
+
+    /**
+     * Отставание, при котором чтение уходит в основную БД.
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * Запрос к реплике, возвращающий отставание в миллисекундах. NULL считается нулевым отставанием.
+     * По умолчанию для PostgreSQL: реплика, применившая весь полученный WAL, не отстаёт.
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+}
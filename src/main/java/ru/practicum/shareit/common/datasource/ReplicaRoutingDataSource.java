@@ -0,0 +1,83 @@
+package ru.practicum.shareit.common.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Отдаёт соединения реплики транзакциям readOnly, а остальным — соединения основной БД. Читать с реплики
+ * нельзя, если она отстаёт или недоступна, и после записи в том же HTTP-запросе: иначе запрос может не увидеть
+ * собственных изменений. Решение принимается при получении соединения, поэтому источник оборачивается
+ * в LazyConnectionDataSourceProxy: тот запрашивает соединение на первом SQL, когда флаг readOnly уже выставлен.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    static final String PRIMARY_ONLY_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PRIMARY_ONLY";
+
+    private final DataSource primaryDataSource;
+    private final DataSource replicaDataSource;
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionSource connectionSource) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                markRequestPrimaryOnly();
+            }
+            return connectionSource.open(primaryDataSource);
+        }
+        if (isRequestPrimaryOnly() || !replicaLagMonitor.isReplicaUsable()) {
+            replicaLagMonitor.recordRead(false);
+            return connectionSource.open(primaryDataSource);
+        }
+        try {
+            Connection connection = connectionSource.open(replicaDataSource);
+            replicaLagMonitor.recordRead(true);
+            return connection;
+        } catch (SQLException e) {
+            log.warn("Не удалось получить соединение с репликой, чтение из основной БД: {}", e.getMessage());
+            replicaLagMonitor.markUnavailable();
+            replicaLagMonitor.recordRead(false);
+            return connectionSource.open(primaryDataSource);
+        }
+    }
+
+    private static void markRequestPrimaryOnly() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PRIMARY_ONLY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static boolean isRequestPrimaryOnly() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(PRIMARY_ONLY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection open(DataSource dataSource) throws SQLException;
+
+    }
+
+}
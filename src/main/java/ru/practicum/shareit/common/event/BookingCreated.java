@@ -0,0 +1,33 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Создано бронирование.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class BookingCreated implements DomainEvent {
+
+    private Long bookingId;
+    private Long itemId;
+    private Long bookerId;
+
+    @Override
+    public String getAggregateType() {
+        return "booking";
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return bookingId;
+    }
+
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.booking.Status;
+
+/**
+ * Владелец подтвердил или отклонил бронирование.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class BookingStatusChanged implements DomainEvent {
+
+    private Long bookingId;
+    private Long itemId;
+    private Status status;
+
+    @Override
+    public String getAggregateType() {
+        return "booking";
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return bookingId;
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Оставлен отзыв о вещи. Отзывы входят в страницу вещи, поэтому событие относится к вещи.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CommentPosted implements DomainEvent {
+
+    private Long commentId;
+    private Long itemId;
+    private Long authorId;
+
+    @Override
+    public String getAggregateType() {
+        return "item";
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return itemId;
+    }
+
+}
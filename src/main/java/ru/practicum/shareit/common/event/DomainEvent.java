@@ -0,0 +1,28 @@
+package ru.practicum.shareit.common.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Изменение, о котором узнают подписчики {@link DomainEventSubscriber}. События одного агрегата доставляются
+ * в порядке записи. Тип события хранится в JSON полем type, поэтому имена ниже менять нельзя.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = BookingCreated.class, name = "BookingCreated"),
+        @JsonSubTypes.Type(value = BookingStatusChanged.class, name = "BookingStatusChanged"),
+        @JsonSubTypes.Type(value = ItemUpdated.class, name = "ItemUpdated"),
+        @JsonSubTypes.Type(value = CommentPosted.class, name = "CommentPosted"),
+        @JsonSubTypes.Type(value = UserDeleted.class, name = "UserDeleted"),
+        @JsonSubTypes.Type(value = UserUpdated.class, name = "UserUpdated")
+})
+public interface DomainEvent {
+
+    @JsonIgnore
+    String getAggregateType();
+
+    @JsonIgnore
+    Long getAggregateId();
+
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.common.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Записывает событие в outbox в текущей транзакции: событие появится тогда и только тогда,
+ * когда зафиксируется изменение.
+ */
+@Component
+@RequiredArgsConstructor
+public class DomainEventPublisher {
+
+    private final OutboxEventJpaRepository outboxEventJpaRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(event.getAggregateType());
+        outboxEvent.setAggregateId(event.getAggregateId());
+        outboxEvent.setPayload(serialize(event));
+        outboxEvent.setCreated(LocalDateTime.now());
+        outboxEventJpaRepository.save(outboxEvent);
+        afterCommit(outboxDispatcher::wakeUp);
+    }
+
+    private String serialize(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Не удалось сериализовать событие %s", event), e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
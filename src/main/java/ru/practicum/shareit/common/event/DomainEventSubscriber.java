@@ -0,0 +1,14 @@
+package ru.practicum.shareit.common.event;
+
+import java.util.List;
+
+/**
+ * Получатель событий из outbox. Вызывается из одного потока пачками в порядке записи событий.
+ * Если метод бросил исключение, та же пачка придёт снова, в том числе подписчикам, которые её уже обработали:
+ * обработка должна быть идемпотентной.
+ */
+public interface DomainEventSubscriber {
+
+    void onEvents(List<DomainEvent> events);
+
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Изменены название, описание или доступность вещи.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class ItemUpdated implements DomainEvent {
+
+    private Long itemId;
+    private Long ownerId;
+
+    @Override
+    public String getAggregateType() {
+        return "item";
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return itemId;
+    }
+
+}
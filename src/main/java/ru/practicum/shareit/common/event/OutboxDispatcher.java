@@ -0,0 +1,283 @@
+package ru.practicum.shareit.common.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.transaction.TransactionProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Доставляет события из outbox подписчикам этого экземпляра. Один поток читает таблицу пачками по возрастанию id
+ * (диапазон по первичному ключу, без сущностей Hibernate) и отдаёт пачку всем подписчикам, поэтому события
+ * одного агрегата приходят в порядке записи. Позиция чтения хранится в памяти и сдвигается только после того,
+ * как пачку приняли все подписчики: при ошибке пачка доставляется повторно (at-least-once).
+ * Id выдаются при вставке, а видны после фиксации, поэтому на пропуске в id чтение ждёт
+ * {@link OutboxProperties#getGapTimeout()}, а затем идёт дальше, запомнив пропущенные id. Они перечитываются
+ * при каждом опросе и доставляются, если появились, — уже не по порядку. Забываются (считаются откатом) они только
+ * через максимальное время транзакции ({@code spring.transaction.default-timeout}) плюс gapTimeout: позже
+ * транзакция, получившая id, зафиксироваться не может.
+ * После запуска доставляются только новые события: подписчики держат состояние в памяти и строят его заново.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxDispatcher implements MeterBinder {
+
+    private static final long PRUNE_INTERVAL_MINUTES = 60;
+    private static final Duration DEFAULT_TRANSACTION_TIMEOUT = Duration.ofSeconds(60);
+    static final int MAX_PENDING_GAPS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+    private final Duration gapHorizon;
+    private final List<DomainEventSubscriber> subscribers;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final LongAdder deliveredBatches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skippedIds = new LongAdder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+    private long cursor;
+    private long gapAfter = -1;
+    private long gapSeenAt;
+    private final NavigableMap<Long, Long> pendingGaps = new TreeMap<>();
+
+    public OutboxDispatcher(DataSource dataSource,
+                            ObjectMapper objectMapper,
+                            OutboxProperties properties,
+                            TransactionProperties transactionProperties,
+                            List<DomainEventSubscriber> subscribers) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.gapHorizon = Optional.ofNullable(transactionProperties.getDefaultTimeout())
+                .orElse(DEFAULT_TRANSACTION_TIMEOUT);
+        this.subscribers = subscribers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.execute(() -> {
+            skipExisting();
+            started = true;
+        });
+        long interval = properties.getPollInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::prune, PRUNE_INTERVAL_MINUTES, PRUNE_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    /**
+     * Просит доставить новые события, не дожидаясь очередного опроса. Повторные вызовы до начала доставки
+     * склеиваются в один.
+     */
+    public void wakeUp() {
+        if (started && wakeUpPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeUpPending.set(false);
+                drain();
+            });
+        }
+    }
+
+    void skipExisting() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM outbox_events", Long.class);
+        cursor = maxId == null ? 0 : maxId;
+    }
+
+    /**
+     * Доставляет появившиеся пропущенные события, затем пачки, пока таблица отдаёт их целиком.
+     */
+    void drain() {
+        try {
+            deliverLateEvents();
+            while (deliverBatch()) {
+                log.trace("Доставлена полная пачка событий, позиция {}", cursor);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Не удалось доставить события после id = {}, повтор при следующем опросе", cursor, e);
+        }
+    }
+
+    void prune() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE created < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention())));
+            log.debug("Удалено {} старых событий outbox", deleted);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить старые события outbox: {}", e.getMessage());
+        }
+    }
+
+    long cursor() {
+        return cursor;
+    }
+
+    Set<Long> pendingGaps() {
+        return pendingGaps.keySet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.outbox.events", deliveredEvents, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("shareit.outbox.batches", deliveredBatches, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("shareit.outbox.failures", failures, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("shareit.outbox.skipped.ids", skippedIds, LongAdder::sum)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private boolean deliverBatch() {
+        List<Row> rows = jdbcTemplate.query(
+                "SELECT id, payload FROM outbox_events WHERE id > ? ORDER BY id LIMIT ?",
+                (resultSet, rowNum) -> new Row(resultSet.getLong("id"), resultSet.getString("payload")),
+                cursor, properties.getBatchSize());
+        List<DomainEvent> events = new ArrayList<>(rows.size());
+        long last = cursor;
+        for (Row row : rows) {
+            if (row.id != last + 1 && !gapExpired(last)) {
+                break;
+            }
+            if (row.id != last + 1) {
+                rememberGap(last + 1, row.id - 1);
+            }
+            readEvent(row, events);
+            last = row.id;
+        }
+        if (last == cursor) {
+            return false;
+        }
+        for (DomainEventSubscriber subscriber : subscribers) {
+            subscriber.onEvents(events);
+        }
+        cursor = last;
+        deliveredEvents.add(events.size());
+        deliveredBatches.increment();
+        return rows.size() == properties.getBatchSize() && last == rows.get(rows.size() - 1).id;
+    }
+
+    /**
+     * Перечитывает пропущенные id и доставляет события тех, чьи транзакции зафиксировались позже.
+     * Id, которые не появились за время жизни транзакции, считаются откатом и забываются.
+     */
+    private void deliverLateEvents() {
+        long forgetBefore = System.nanoTime() - properties.getGapTimeout().plus(gapHorizon).toNanos();
+        pendingGaps.values().removeIf(seenAt -> {
+            if (seenAt - forgetBefore < 0) {
+                skippedIds.increment();
+                return true;
+            }
+            return false;
+        });
+        if (pendingGaps.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pendingGaps.keySet());
+        for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size()));
+            List<Row> rows = jdbcTemplate.query(
+                    "SELECT id, payload FROM outbox_events WHERE id IN (" + placeholders(chunk.size()) + ") ORDER BY id",
+                    (resultSet, rowNum) -> new Row(resultSet.getLong("id"), resultSet.getString("payload")),
+                    chunk.toArray());
+            if (rows.isEmpty()) {
+                continue;
+            }
+            List<DomainEvent> events = new ArrayList<>(rows.size());
+            rows.forEach(row -> readEvent(row, events));
+            for (DomainEventSubscriber subscriber : subscribers) {
+                subscriber.onEvents(events);
+            }
+            rows.forEach(row -> pendingGaps.remove(row.id));
+            log.debug("Доставлено {} событий outbox, зафиксированных после пропуска их id", rows.size());
+            deliveredEvents.add(events.size());
+            deliveredBatches.increment();
+        }
+    }
+
+    private void rememberGap(long from, long to) {
+        log.debug("Id событий outbox с {} по {} пока не видны, перечитываем их позже", from, to);
+        for (long id = from; id <= to; id++) {
+            pendingGaps.put(id, gapSeenAt);
+        }
+        while (pendingGaps.size() > MAX_PENDING_GAPS) {
+            Map.Entry<Long, Long> oldest = pendingGaps.pollFirstEntry();
+            skippedIds.increment();
+            log.warn("Слишком много пропущенных id в outbox, id = {} больше не перечитывается", oldest.getKey());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private boolean gapExpired(long last) {
+        long now = System.nanoTime();
+        if (gapAfter != last) {
+            gapAfter = last;
+            gapSeenAt = now;
+        }
+        return now - gapSeenAt >= properties.getGapTimeout().toNanos();
+    }
+
+    private void readEvent(Row row, List<DomainEvent> events) {
+        try {
+            events.add(objectMapper.readValue(row.payload, DomainEvent.class));
+        } catch (JsonProcessingException e) {
+            failures.increment();
+            log.error("Событие outbox с id = {} не прочитано и пропущено: {}", row.id, e.getMessage());
+        }
+    }
+
+    private static class Row {
+
+        private final long id;
+        private final String payload;
+
+        Row(long id, String payload) {
+            this.id = id;
+            this.payload = payload;
+        }
+
+    }
+
+}
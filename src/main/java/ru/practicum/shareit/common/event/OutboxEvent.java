@@ -0,0 +1,35 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Событие, записанное в той же транзакции, что и изменение, о котором оно сообщает.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+}
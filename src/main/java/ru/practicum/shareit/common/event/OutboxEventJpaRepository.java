@@ -0,0 +1,6 @@
+package ru.practicum.shareit.common.event;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxEventJpaRepository extends JpaRepository<OutboxEvent, Long> {
+}
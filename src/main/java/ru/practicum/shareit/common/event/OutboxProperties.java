@@ -0,0 +1,36 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки доставки событий из outbox.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.outbox")
+public class OutboxProperties {
+
+    /**
+     * Пауза между опросами таблицы. События своего экземпляра доставляются сразу после фиксации транзакции,
+     * опрос нужен для событий других экземпляров и повторов после ошибок.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    private int batchSize = 200;
+
+    /**
+     * Сколько ждать событие с пропущенным id, не доставляя следующие: транзакция, получившая его раньше, могла
+     * ещё не зафиксироваться. Потом id перечитывается отдельно до истечения максимального времени транзакции.
+     */
+    private Duration gapTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Сколько хранить доставленные события: за это время их успевают прочитать все экземпляры.
+     */
+    private Duration retention = Duration.ofDays(1);
+
+}
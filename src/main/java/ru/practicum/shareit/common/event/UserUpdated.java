@@ -0,0 +1,31 @@
+package ru.practicum.shareit.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Изменены имя или email пользователя.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class UserUpdated implements DomainEvent {
+
+    private Long userId;
+
+    @Override
+    public String getAggregateType() {
+        return "user";
+    }
+
+    @Override
+    public Long getAggregateId() {
+        return userId;
+    }
+
+}
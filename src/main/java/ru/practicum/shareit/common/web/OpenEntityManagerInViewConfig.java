@@ -0,0 +1,30 @@
+package ru.practicum.shareit.common.web;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view вместо автонастройки Spring Boot (spring.jpa.open-in-view=false): сессия Hibernate держит
+ * соединение пула до закрытия, а у асинхронного запроса она живёт, пока открыт ответ. Подписка
+ * на /bookings/stream висит до получаса, поэтому для неё сессия открывается только на время транзакции сервиса.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private static final String BOOKING_STREAM_PATH = "/bookings/stream";
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(BOOKING_STREAM_PATH);
+    }
+
+}
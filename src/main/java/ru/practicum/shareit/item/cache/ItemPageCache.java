@@ -0,0 +1,273 @@
+package ru.practicum.shareit.item.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.BookingCreated;
+import ru.practicum.shareit.common.event.BookingStatusChanged;
+import ru.practicum.shareit.common.event.CommentPosted;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Готовый JSON страницы вещи: отдельно для владельца (с последним и следующим бронированием) и для остальных.
+ * Попадание отдаётся без запросов к БД и без Jackson. Объём ограничен суммой размеров страниц, вытесняются
+ * давно не запрошенные вещи. Страница, посчитанная до инвалидации, в кэш не кладётся.
+ * Сервисы этого экземпляра сбрасывают страницы сразу после фиксации, а изменения других экземпляров
+ * приходят событиями из outbox.
+ */
+@Component
+public class ItemPageCache implements MeterBinder, DomainEventSubscriber {
+
+    static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    @Autowired
+    public ItemPageCache(ObjectMapper objectMapper) {
+        this(objectMapper, MAX_BYTES);
+    }
+
+    ItemPageCache(ObjectMapper objectMapper, long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+    }
+
+    public Optional<byte[]> find(Long itemId, Long userId) {
+        return find(itemId, userId, LocalDateTime.now());
+    }
+
+    synchronized Optional<byte[]> find(Long itemId, Long userId, LocalDateTime now) {
+        Entry entry = entries.get(itemId);
+        byte[] page = entry == null ? null : entry.page(userId, now);
+        if (page == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return Optional.ofNullable(page);
+    }
+
+    /**
+     * Версия кэша, которую нужно передать в {@link #put}: она меняется при каждой инвалидации.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Сериализует страницу и кладёт её в кэш, если с чтения версии не было инвалидаций. Страница владельца
+     * действует до validUntil, когда последнее или следующее бронирование сменится само; null — бессрочно.
+     */
+    public byte[] put(Long itemId, Long ownerId, Long userId, ItemWithBookingsResponseDto item,
+                      LocalDateTime validUntil, long expectedVersion) {
+        byte[] page = serialize(item);
+        synchronized (this) {
+            if (expectedVersion != version || page.length > maxBytes) {
+                return page;
+            }
+            Entry entry = entries.get(itemId);
+            if (entry == null || !entry.ownerId.equals(ownerId)) {
+                removeNow(itemId);
+                entry = new Entry(ownerId);
+                entries.put(itemId, entry);
+            }
+            bytes -= entry.size();
+            if (ownerId.equals(userId)) {
+                entry.ownerPage = page;
+                entry.ownerPageValidUntil = validUntil;
+            } else {
+                entry.otherPage = page;
+            }
+            bytes += entry.size();
+            evictNow();
+        }
+        return page;
+    }
+
+    /**
+     * После фиксации текущей транзакции удаляет страницы вещи.
+     */
+    public void invalidate(Long itemId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                version++;
+                if (removeNow(itemId)) {
+                    invalidations++;
+                }
+            }
+        });
+    }
+
+    /**
+     * После фиксации текущей транзакции удаляет все страницы: изменение затронуло неизвестный набор вещей.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            synchronized (this) {
+                version++;
+                invalidations += entries.size();
+                entries.clear();
+                bytes = 0;
+            }
+        });
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                invalidateAll();
+                return;
+            }
+        }
+        for (DomainEvent event : events) {
+            if (event instanceof BookingCreated) {
+                invalidate(((BookingCreated) event).getItemId());
+            } else if (event instanceof BookingStatusChanged) {
+                invalidate(((BookingStatusChanged) event).getItemId());
+            } else if (event instanceof ItemUpdated) {
+                invalidate(((ItemUpdated) event).getItemId());
+            } else if (event instanceof CommentPosted) {
+                invalidate(((CommentPosted) event).getItemId());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    synchronized long invalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String prefix = "shareit.item.page.cache";
+        FunctionCounter.builder(prefix + ".requests", this, ItemPageCache::hits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".requests", this, ItemPageCache::misses)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".evictions", this, ItemPageCache::evictions)
+                .register(registry);
+        FunctionCounter.builder(prefix + ".invalidations", this, ItemPageCache::invalidations)
+                .register(registry);
+        Gauge.builder(prefix + ".size", this, ItemPageCache::size)
+                .register(registry);
+        Gauge.builder(prefix + ".bytes", this, ItemPageCache::bytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private byte[] serialize(ItemWithBookingsResponseDto item) {
+        try {
+            return objectMapper.writeValueAsBytes(item);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Не удалось сериализовать вещь с id = %d", item.getId()), e);
+        }
+    }
+
+    private boolean removeNow(Long itemId) {
+        Entry entry = entries.remove(itemId);
+        if (entry == null) {
+            return false;
+        }
+        bytes -= entry.size();
+        return true;
+    }
+
+    private void evictNow() {
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class Entry {
+
+        private final Long ownerId;
+        private byte[] ownerPage;
+        private LocalDateTime ownerPageValidUntil;
+        private byte[] otherPage;
+
+        Entry(Long ownerId) {
+            this.ownerId = ownerId;
+        }
+
+        byte[] page(Long userId, LocalDateTime now) {
+            if (!ownerId.equals(userId)) {
+                return otherPage;
+            }
+            if (ownerPageValidUntil != null && !now.isBefore(ownerPageValidUntil)) {
+                return null;
+            }
+            return ownerPage;
+        }
+
+        long size() {
+            return (ownerPage == null ? 0 : ownerPage.length) + (otherPage == null ? 0 : otherPage.length);
+        }
+
+    }
+
+}
@@ -2,23 +2,31 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentRequestDto;
 import ru.practicum.shareit.comment.dto.CommentResponseDto;
 import ru.practicum.shareit.comment.service.CommentService;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
 import ru.practicum.shareit.item.service.ItemService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * TODO Sprint add-controllers.
  */
 @Slf4j
+@Validated
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/items")
@@ -26,6 +34,7 @@ public class ItemController {
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
     private final ItemService itemService;
     private final CommentService commentService;
+    private final ItemPageCache itemPageCache;
 
     @PostMapping
     public ItemDto createItem(@RequestBody @Validated ItemRequestDto itemRequestDto,
@@ -42,11 +51,12 @@ public class ItemController {
         return itemService.updateItem(itemId, itemRequestDto, userId);
     }
 
-    @GetMapping("/{itemId}")
-    public ItemWithBookingsResponseDto findItemById(@PathVariable Long itemId,
-                                                    @RequestHeader(X_SHARER_USER_ID) Long userId) {
+    @GetMapping(value = "/{itemId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] findItemById(@PathVariable Long itemId,
+                               @RequestHeader(X_SHARER_USER_ID) Long userId) {
         log.info("Запрос на получение вещи с id = {}", itemId);
-        return itemService.findItemById(itemId, userId);
+        return itemPageCache.find(itemId, userId)
+                .orElseGet(() -> itemService.findItemPageById(itemId, userId));
     }
 
     @GetMapping
@@ -57,9 +67,23 @@ public class ItemController {
 
     @GetMapping("/search")
     public List<ItemDto> searchItemsByText(@RequestParam String text,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @PositiveOrZero @RequestParam(defaultValue = "0") Integer offset,
+                                           @Positive @RequestParam(defaultValue = "10") Integer size,
+                                           @RequestParam(defaultValue = "false") boolean fuzzy,
                                            @RequestHeader(X_SHARER_USER_ID) Long userId) {
         log.info("Запрос на поиск вещей по запросу '{}'", text);
-        return itemService.searchItemsByText(text, userId);
+        return itemService.searchItemsByText(text, from, to, userId, offset, size, fuzzy);
+    }
+
+    @GetMapping("/suggest")
+    public List<ItemSuggestionDto> suggestItemNames(@RequestParam String prefix,
+                                                    @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                    @RequestHeader(X_SHARER_USER_ID) Long userId) {
+        return itemService.suggestItemNames(prefix, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -2,11 +2,11 @@ package ru.practicum.shareit.item.dto;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import ru.practicum.shareit.booking.dto.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.comment.dto.CommentMapper;
-import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.summary.OwnerItemSummary;
 
 import java.util.Collection;
 import java.util.List;
@@ -25,6 +25,16 @@ public class ItemMapper {
         );
     }
 
+    public static ItemDto toItemDto(ItemView item) {
+        return new ItemDto(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getRequestId()
+        );
+    }
+
     public static Item fromItemRequestDto(ItemRequestDto itemRequestDto) {
         Item item = new Item();
         item.setName(itemRequestDto.getName());
@@ -40,19 +50,14 @@ public class ItemMapper {
                 .collect(Collectors.toList());
     }
 
-    public static ItemWithBookingsResponseDto toItemWithBookingsResponseDto(Item item,
-                                                                            Booking lastBooking,
-                                                                            Booking nextBooking,
-                                                                            List<Comment> comments) {
+    public static ItemWithBookingsResponseDto toItemWithBookingsResponseDto(ItemView item,
+                                                                            BookingDto lastBooking,
+                                                                            BookingDto nextBooking,
+                                                                            List<CommentView> comments) {
         ItemWithBookingsResponseDto itemWithBookingsResponseDto = new ItemWithBookingsResponseDto();
 
-        if (lastBooking != null) {
-            itemWithBookingsResponseDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
-        }
-        if (nextBooking != null) {
-            itemWithBookingsResponseDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
-        }
-
+        itemWithBookingsResponseDto.setLastBooking(lastBooking);
+        itemWithBookingsResponseDto.setNextBooking(nextBooking);
         itemWithBookingsResponseDto.setId(item.getId());
         itemWithBookingsResponseDto.setName(item.getName());
         itemWithBookingsResponseDto.setDescription(item.getDescription());
@@ -62,5 +67,22 @@ public class ItemMapper {
         return itemWithBookingsResponseDto;
     }
 
+    public static ItemWithBookingsResponseDto toItemWithBookingsResponseDto(OwnerItemSummary summary,
+                                                                            BookingDto lastBooking,
+                                                                            BookingDto nextBooking,
+                                                                            List<CommentView> comments) {
+        ItemWithBookingsResponseDto itemWithBookingsResponseDto = new ItemWithBookingsResponseDto();
+
+        itemWithBookingsResponseDto.setLastBooking(lastBooking);
+        itemWithBookingsResponseDto.setNextBooking(nextBooking);
+        itemWithBookingsResponseDto.setId(summary.getItemId());
+        itemWithBookingsResponseDto.setName(summary.getName());
+        itemWithBookingsResponseDto.setDescription(summary.getDescription());
+        itemWithBookingsResponseDto.setAvailable(summary.getAvailable());
+        itemWithBookingsResponseDto.setComments(CommentMapper.toCommentResponseDtoList(comments));
+        itemWithBookingsResponseDto.setWaitingBookings(summary.getWaitingCount());
+
+        return itemWithBookingsResponseDto;
+    }
 
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Проекция вещи для чтения: поля ответа и id владельца для проверки доступа.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemView {
+
+    private Long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long ownerId;
+    private Long requestId;
+
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,5 +24,7 @@ public class ItemWithBookingsResponseDto {
     private BookingDto lastBooking;
     private BookingDto nextBooking;
     private List<CommentResponseDto> comments;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer waitingBookings;
 
 }
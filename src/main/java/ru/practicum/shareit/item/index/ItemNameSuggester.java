@@ -0,0 +1,250 @@
+package ru.practicum.shareit.item.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Подсказки для ввода: отсортированный словарь слов из названий доступных вещей с числом вещей для каждого.
+ * Чтение не блокируется; подсказки по последнему слову префикса — слова из его диапазона словаря
+ * с наибольшим числом вещей. Вещи удалённого владельца убираются по событию {@link UserDeleted}.
+ * Слова длиннее {@value #MAX_TERM_LENGTH} символов не хранятся; кроме словаря хранятся слова каждой вещи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemNameSuggester implements MeterBinder, DomainEventSubscriber {
+
+    static final int MAX_TERM_LENGTH = 32;
+    static final int MAX_SUGGESTIONS = 50;
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final Comparator<Map.Entry<String, Integer>> BY_WEIGHT = Map.Entry
+            .<String, Integer>comparingByValue()
+            .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+
+    private final ItemJpaRepository itemJpaRepository;
+    private final Map<String, List<ItemSuggestionDto>> singleLetterSuggestions = new ConcurrentHashMap<>();
+    private volatile Dictionary dictionary = new Dictionary();
+    private final AtomicLong version = new AtomicLong();
+    private List<Consumer<Dictionary>> pendingChanges;
+
+    /**
+     * Строит словарь из БД в новой структуре и подменяет ею текущую. Изменения, зафиксированные во время
+     * загрузки, повторяются поверх неё.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        Dictionary loaded = new Dictionary();
+        for (ItemDocument document : itemJpaRepository.findAllAvailableDocuments()) {
+            loaded.put(document.getId(), document.getOwnerId(), terms(document.getName()));
+        }
+        synchronized (this) {
+            pendingChanges.forEach(change -> change.accept(loaded));
+            pendingChanges = null;
+            dictionary = loaded;
+            version.incrementAndGet();
+            singleLetterSuggestions.clear();
+        }
+        log.info("Словарь подсказок перестроен: {} слов, ~{} КБ", loaded.termCounts.size(),
+                estimatedBytes() / 1024);
+    }
+
+    /**
+     * Учитывает новое название или доступность вещи после фиксации текущей транзакции.
+     */
+    public void index(Item item) {
+        Long itemId = item.getId();
+        Long ownerId = item.getOwner().getId();
+        Set<String> terms = Boolean.TRUE.equals(item.getAvailable()) ? terms(item.getName()) : Set.of();
+        afterCommit(() -> change(current -> current.put(itemId, ownerId, terms)));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                Long ownerId = ((UserDeleted) event).getUserId();
+                change(current -> current.removeOwner(ownerId));
+            }
+        }
+    }
+
+    /**
+     * Возвращает не больше size (но не больше {@value #MAX_SUGGESTIONS}) подсказок. Диапазон однобуквенного
+     * префикса самый большой, поэтому подсказки для него кэшируются до изменения слов на эту букву.
+     * Список, посчитанный до изменения словаря, в кэш не кладётся.
+     */
+    public List<ItemSuggestionDto> suggest(String prefix, int size) {
+        List<String> words = ItemSearchIndex.tokenize(prefix).collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = words.get(words.size() - 1);
+        int limit = Math.min(size, MAX_SUGGESTIONS);
+        if (normalized.length() > 1) {
+            return findTop(normalized, limit);
+        }
+        List<ItemSuggestionDto> suggestions = singleLetterSuggestions.get(normalized);
+        if (suggestions == null) {
+            long expectedVersion = version.get();
+            suggestions = Collections.unmodifiableList(findTop(normalized, MAX_SUGGESTIONS));
+            synchronized (this) {
+                if (expectedVersion == version.get()) {
+                    singleLetterSuggestions.put(normalized, suggestions);
+                }
+            }
+        }
+        return suggestions.subList(0, Math.min(limit, suggestions.size()));
+    }
+
+    public int size() {
+        return dictionary.termCounts.size();
+    }
+
+    /**
+     * Оценка занимаемой словарём памяти: строка слова и узел списка с пропусками на каждое слово.
+     */
+    public long estimatedBytes() {
+        return dictionary.termCounts.keySet().stream()
+                .mapToLong(term -> ENTRY_OVERHEAD_BYTES + 2L * term.length())
+                .sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.item.suggest.terms", this, ItemNameSuggester::size)
+                .register(registry);
+        Gauge.builder("shareit.item.suggest.memory", this, ItemNameSuggester::estimatedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private List<ItemSuggestionDto> findTop(String prefix, int size) {
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(size + 1, BY_WEIGHT);
+        for (Map.Entry<String, Integer> entry : dictionary.termCounts
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            top.add(entry);
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+        List<ItemSuggestionDto> suggestions = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Map.Entry<String, Integer> entry = top.poll();
+            suggestions.add(new ItemSuggestionDto(entry.getKey(), entry.getValue()));
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+
+    /**
+     * Применяет изменение к текущему словарю и запоминает его для загружаемого.
+     */
+    private synchronized void change(Function<Dictionary, Set<String>> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change::apply);
+        }
+        Set<String> changedTerms = change.apply(dictionary);
+        if (!changedTerms.isEmpty()) {
+            version.incrementAndGet();
+            changedTerms.forEach(term -> singleLetterSuggestions.remove(term.substring(0, 1)));
+        }
+    }
+
+    private static Set<String> terms(String name) {
+        return ItemSearchIndex.tokenize(name)
+                .filter(term -> term.length() <= MAX_TERM_LENGTH)
+                .collect(Collectors.toSet());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Словарь и слова каждой вещи по владельцам. Изменения возвращают слова, число вещей у которых изменилось.
+     */
+    private static class Dictionary {
+
+        private final ConcurrentNavigableMap<String, Integer> termCounts = new ConcurrentSkipListMap<>();
+        private final Map<Long, Set<String>> itemTerms = new HashMap<>();
+        private final Map<Long, Long> itemOwners = new HashMap<>();
+        private final Map<Long, Set<Long>> ownerItems = new HashMap<>();
+
+        Set<String> put(Long itemId, Long ownerId, Set<String> terms) {
+            Set<String> removed = remove(itemId);
+            if (terms.isEmpty()) {
+                return removed;
+            }
+            itemTerms.put(itemId, terms);
+            itemOwners.put(itemId, ownerId);
+            ownerItems.computeIfAbsent(ownerId, id -> new HashSet<>()).add(itemId);
+            terms.forEach(term -> termCounts.merge(term, 1, Integer::sum));
+            Set<String> changed = new HashSet<>(removed);
+            changed.addAll(terms);
+            return changed;
+        }
+
+        Set<String> removeOwner(Long ownerId) {
+            Set<Long> itemIds = ownerItems.get(ownerId);
+            if (itemIds == null) {
+                return Set.of();
+            }
+            Set<String> changed = new HashSet<>();
+            new ArrayList<>(itemIds).forEach(itemId -> changed.addAll(remove(itemId)));
+            return changed;
+        }
+
+        private Set<String> remove(Long itemId) {
+            Set<String> terms = itemTerms.remove(itemId);
+            if (terms == null) {
+                return Set.of();
+            }
+            Long ownerId = itemOwners.remove(itemId);
+            Set<Long> itemIds = ownerItems.get(ownerId);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                ownerItems.remove(ownerId);
+            }
+            terms.forEach(term -> termCounts.computeIfPresent(term, (key, count) -> count > 1 ? count - 1 : null));
+            return terms;
+        }
+
+    }
+
+}
@@ -0,0 +1,261 @@
+package ru.practicum.shareit.item.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс доступных вещей по словам названия и описания.
+ * Слово запроса совпадает со словом вещи, если является его началом: «дрел» находит «дрель» и «дрели».
+ * Вещь попадает в выдачу, если совпали все слова запроса; выше стоят совпадения в названии и точные совпадения.
+ * Вещи удалённого владельца убираются по событию {@link UserDeleted}.
+ */
+@Slf4j
+@Component
+@Profile("!" + ItemSearchEngine.FULL_TEXT_PROFILE)
+@RequiredArgsConstructor
+public class ItemSearchIndex implements DomainEventSubscriber {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_MATCH_FACTOR = 4;
+    private static final int PREFIX_MATCH_FACTOR = 2;
+    private static final int FUZZY_MATCH_FACTOR = 1;
+
+    private final ItemJpaRepository itemJpaRepository;
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> itemTerms = new HashMap<>();
+    private final Map<Long, Long> itemOwners = new HashMap<>();
+    private final Map<Long, Set<Long>> ownerItems = new HashMap<>();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, ItemDocument> pendingChanges;
+    private Set<Long> pendingRemovedOwners;
+    private volatile boolean ready;
+
+    /**
+     * Загружает индекс из БД. Изменения, зафиксированные во время загрузки, применяются поверх неё.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLocked(() -> {
+            pendingChanges = new HashMap<>();
+            pendingRemovedOwners = new HashSet<>();
+        });
+        List<ItemDocument> documents = itemJpaRepository.findAllAvailableDocuments();
+        writeLocked(() -> {
+            postings.clear();
+            itemTerms.clear();
+            itemOwners.clear();
+            ownerItems.clear();
+            trigramIndex.clear();
+            documents.stream()
+                    .filter(document -> !pendingRemovedOwners.contains(document.getOwnerId()))
+                    .forEach(this::putNow);
+            pendingChanges.forEach(this::applyNow);
+            pendingChanges = null;
+            pendingRemovedOwners = null;
+            ready = true;
+        });
+        log.info("Поисковый индекс вещей перестроен: {} вещей, {} слов", documents.size(), postings.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Обновляет вещь в индексе после фиксации текущей транзакции; недоступная вещь из индекса убирается.
+     */
+    public void index(Item item) {
+        Long itemId = item.getId();
+        ItemDocument document = Boolean.TRUE.equals(item.getAvailable())
+                ? new ItemDocument(itemId, item.getOwner().getId(), item.getName(), item.getDescription())
+                : null;
+        afterCommit(() -> writeLocked(() -> {
+            if (pendingChanges != null) {
+                pendingChanges.put(itemId, document);
+            }
+            applyNow(itemId, document);
+        }));
+    }
+
+    /**
+     * Убирает из индекса все вещи владельца.
+     */
+    public void removeOwner(Long ownerId) {
+        afterCommit(() -> writeLocked(() -> {
+            if (pendingChanges != null) {
+                pendingRemovedOwners.add(ownerId);
+            }
+            for (Long itemId : new ArrayList<>(ownerItems.getOrDefault(ownerId, Set.of()))) {
+                if (pendingChanges != null) {
+                    pendingChanges.put(itemId, null);
+                }
+                removeNow(itemId);
+            }
+        }));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                removeOwner(((UserDeleted) event).getUserId());
+            }
+        }
+    }
+
+    /**
+     * Возвращает id вещей, подходящих под запрос, в порядке убывания релевантности. В режиме fuzzy слово
+     * запроса совпадает также со словами, отличающимися от него на одну-две опечатки, но с меньшим весом.
+     */
+    public List<Long> search(String text, boolean fuzzy) {
+        List<String> queryTerms = tokenize(text).distinct().collect(Collectors.toList());
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Integer> termScores = scoreTerm(queryTerm, fuzzy);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((itemId, score) -> score + termScores.get(itemId));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static Stream<String> tokenize(String text) {
+        if (text == null) {
+            return Stream.empty();
+        }
+        return SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))
+                .filter(term -> !term.isEmpty());
+    }
+
+    /**
+     * Совпадает ли слово вещи со словом запроса по тем же правилам, что и в {@link #search}.
+     */
+    public static boolean matches(String queryTerm, String word, boolean fuzzy) {
+        if (word.startsWith(queryTerm)) {
+            return true;
+        }
+        if (!fuzzy || queryTerm.length() < TrigramIndex.MIN_TERM_LENGTH) {
+            return false;
+        }
+        int maxDistance = TrigramIndex.maxDistance(queryTerm);
+        return TrigramIndex.distance(queryTerm, word, maxDistance) <= maxDistance;
+    }
+
+    private Map<Long, Integer> scoreTerm(String queryTerm, boolean fuzzy) {
+        Map<Long, Integer> scores = new HashMap<>();
+        postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).forEach((term, items) -> {
+            int factor = term.equals(queryTerm) ? EXACT_MATCH_FACTOR : PREFIX_MATCH_FACTOR;
+            items.forEach((itemId, weight) -> scores.merge(itemId, weight * factor, Math::max));
+        });
+        if (fuzzy) {
+            trigramIndex.findSimilar(queryTerm).keySet().forEach(term -> postings.get(term)
+                    .forEach((itemId, weight) -> scores.merge(itemId, weight * FUZZY_MATCH_FACTOR, Math::max)));
+        }
+        return scores;
+    }
+
+    private void applyNow(Long itemId, ItemDocument document) {
+        removeNow(itemId);
+        if (document != null) {
+            putNow(document);
+        }
+    }
+
+    private void putNow(ItemDocument document) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(document.getName()).distinct().forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(document.getDescription()).distinct()
+                .forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> {
+            trigramIndex.add(key);
+            return new HashMap<>();
+        }).put(document.getId(), weight));
+        itemTerms.put(document.getId(), weights.keySet());
+        itemOwners.put(document.getId(), document.getOwnerId());
+        ownerItems.computeIfAbsent(document.getOwnerId(), id -> new HashSet<>()).add(document.getId());
+    }
+
+    private void removeNow(Long itemId) {
+        Set<String> terms = itemTerms.remove(itemId);
+        if (terms == null) {
+            return;
+        }
+        Long ownerId = itemOwners.remove(itemId);
+        Set<Long> itemIds = ownerItems.get(ownerId);
+        itemIds.remove(itemId);
+        if (itemIds.isEmpty()) {
+            ownerItems.remove(ownerId);
+        }
+        for (String term : terms) {
+            Map<Long, Integer> items = postings.get(term);
+            items.remove(itemId);
+            if (items.isEmpty()) {
+                postings.remove(term);
+                trigramIndex.remove(term);
+            }
+        }
+    }
+
+    private void writeLocked(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
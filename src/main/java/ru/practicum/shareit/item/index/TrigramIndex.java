@@ -0,0 +1,124 @@
+package ru.practicum.shareit.item.index;
+
+import java.util.*;
+
+/**
+ * Триграммы слов словаря для поиска с опечатками. Кандидаты берутся только из списков слов, делящих
+ * с запросом триграммы; расстояние редактирования считается лишь для {@value #MAX_CANDIDATES} лучших из них.
+ * Не потокобезопасен: доступ синхронизирует {@link ItemSearchIndex}.
+ */
+class TrigramIndex {
+
+    static final int MAX_CANDIDATES = 50;
+    static final int MIN_TERM_LENGTH = 3;
+
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+    void add(String term) {
+        for (String trigram : trigrams(term)) {
+            termsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+        }
+    }
+
+    void remove(String term) {
+        for (String trigram : trigrams(term)) {
+            Set<String> terms = termsByTrigram.get(trigram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    termsByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        termsByTrigram.clear();
+    }
+
+    /**
+     * Возвращает слова словаря, отличающиеся от term не больше чем на допустимое число правок,
+     * вместе с расстоянием до них.
+     */
+    Map<String, Integer> findSimilar(String term) {
+        if (term.length() < MIN_TERM_LENGTH) {
+            return Collections.emptyMap();
+        }
+        int maxDistance = maxDistance(term);
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (String trigram : trigrams(term)) {
+            for (String candidate : termsByTrigram.getOrDefault(trigram, Collections.emptySet())) {
+                if (Math.abs(candidate.length() - term.length()) <= maxDistance) {
+                    sharedTrigrams.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(MAX_CANDIDATES + 1,
+                Map.Entry.comparingByValue());
+        for (Map.Entry<String, Integer> entry : sharedTrigrams.entrySet()) {
+            top.add(entry);
+            if (top.size() > MAX_CANDIDATES) {
+                top.poll();
+            }
+        }
+        Map<String, Integer> similar = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : top) {
+            int distance = distance(term, entry.getKey(), maxDistance);
+            if (distance <= maxDistance) {
+                similar.put(entry.getKey(), distance);
+            }
+        }
+        return similar;
+    }
+
+    static int maxDistance(String term) {
+        return term.length() <= 4 ? 1 : 2;
+    }
+
+    /**
+     * Расстояние Дамерау–Левенштейна (с перестановкой соседних букв) или max + 1, если оно больше max.
+     */
+    static int distance(String first, String second, int max) {
+        if (Math.abs(first.length() - second.length()) > max) {
+            return max + 1;
+        }
+        int[] previousRow = new int[second.length() + 1];
+        int[] row = new int[second.length() + 1];
+        int[] nextRow = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            nextRow[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(nextRow[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, previousRow[j - 2] + 1);
+                }
+                nextRow[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previousRow;
+            previousRow = row;
+            row = nextRow;
+            nextRow = recycled;
+        }
+        return Math.min(row[second.length()], max + 1);
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "  " + term + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.repository;
+
+import java.util.List;
+
+public interface ItemFullTextRepository {
+
+    List<Long> findRankedAvailableIds(String text, int from, int size);
+
+}
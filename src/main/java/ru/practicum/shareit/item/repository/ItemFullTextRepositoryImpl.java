@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Ранжированный поиск доступных вещей в БД. С профилем {@value ItemSearchEngine#FULL_TEXT_PROFILE} запрос идёт
+ * по сгенерированному столбцу search_vector с GIN-индексом (schema-postgresql.sql, только PostgreSQL).
+ * Без профиля используется LIKE без учёта регистра, где совпадения в названии стоят выше совпадений в описании:
+ * так поиск работает и в H2 профилей ci и test.
+ */
+public class ItemFullTextRepositoryImpl implements ItemFullTextRepository {
+
+    private static final String FULL_TEXT_SQL = "SELECT i.id FROM items i, plainto_tsquery('russian', :text) q " +
+            "WHERE i.is_available AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id";
+
+    private static final String LIKE_SQL = "SELECT i.id FROM items i " +
+            "WHERE i.is_available AND (LOWER(i.name) LIKE :text ESCAPE '\\' " +
+            "OR LOWER(i.description) LIKE :text ESCAPE '\\') " +
+            "ORDER BY CASE WHEN LOWER(i.name) LIKE :text ESCAPE '\\' THEN 0 ELSE 1 END, i.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private Environment environment;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> findRankedAvailableIds(String text, int from, int size) {
+        boolean fullText = environment.acceptsProfiles(Profiles.of(ItemSearchEngine.FULL_TEXT_PROFILE));
+        List<Number> ids = entityManager.createNativeQuery(fullText ? FULL_TEXT_SQL : LIKE_SQL)
+                .setParameter("text", fullText ? text : toLikePattern(text))
+                .setFirstResult(from)
+                .setMaxResults(size)
+                .getResultList();
+        return ids.stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+    }
+
+    private static String toLikePattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+}
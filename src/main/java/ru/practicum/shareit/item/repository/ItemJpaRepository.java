@@ -1,16 +1,49 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.index.ItemDocument;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.index.OwnerItemDocument;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemJpaRepository extends JpaRepository<Item, Long> {
+public interface ItemJpaRepository extends JpaRepository<Item, Long>, ItemFullTextRepository {
 
-    List<Item> findAllByOwnerId(Long ownerId);
+    String ITEM_VIEW = "SELECT new ru.practicum.shareit.item.dto.ItemView(" +
+            "i.id, i.name, i.description, i.available, i.owner.id, i.request.id) FROM Item i ";
 
-    List<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(String name, String description, boolean available);
+    @Query(ITEM_VIEW + "WHERE i.id = :itemId")
+    Optional<ItemView> findViewById(@Param("itemId") Long itemId);
 
-    List<Item> findAllByRequestId(Long requestId);
+    @Query(ITEM_VIEW + "WHERE i.owner.id = :ownerId ORDER BY i.id")
+    List<ItemView> findViewsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(ITEM_VIEW + "WHERE i.id IN :itemIds")
+    List<ItemView> findViewsByIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT i FROM Item i WHERE i.request.id = :requestId")
+    List<Item> findAllByRequestId(@Param("requestId") Long requestId);
+
+    @Query("SELECT i FROM Item i WHERE i.request.id IN :requestIds")
+    List<Item> findAllByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query("SELECT i.id FROM Item i")
+    List<Long> findAllIds();
+
+    @Query("SELECT i.id FROM Item i WHERE i.id > :after")
+    List<Long> findIdsAfter(@Param("after") Long after);
+
+    @Query("SELECT new ru.practicum.shareit.item.index.ItemDocument(i.id, i.owner.id, i.name, i.description) " +
+            "FROM Item i WHERE i.available = true")
+    List<ItemDocument> findAllAvailableDocuments();
+
+    @Query("SELECT new ru.practicum.shareit.request.index.OwnerItemDocument(i.id, i.owner.id, i.name, i.description) " +
+            "FROM Item i WHERE i.available = true")
+    List<OwnerItemDocument> findAllAvailableOwnerDocuments();
 
 }
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Поиск запросом к БД с пагинацией на стороне БД. С фильтром результаты читаются пачками,
+ * пока не наберётся страница. Поиск с опечатками не поддерживается: fuzzy игнорируется.
+ */
+@Component
+@RequiredArgsConstructor
+public class DatabaseItemSearchEngine implements ItemSearchEngine {
+
+    static final int BATCH_SIZE = 100;
+
+    private final ItemJpaRepository itemJpaRepository;
+
+    @Override
+    public List<Long> search(String text, boolean fuzzy, Predicate<Long> filter, int from, int size) {
+        if (filter == null) {
+            return itemJpaRepository.findRankedAvailableIds(text, from, size);
+        }
+        List<Long> page = new ArrayList<>();
+        int skipped = 0;
+        for (int position = 0; ; position += BATCH_SIZE) {
+            List<Long> batch = itemJpaRepository.findRankedAvailableIds(text, position, BATCH_SIZE);
+            for (Long itemId : batch) {
+                if (!filter.test(itemId)) {
+                    continue;
+                }
+                if (skipped < from) {
+                    skipped++;
+                    continue;
+                }
+                page.add(itemId);
+                if (page.size() == size) {
+                    return page;
+                }
+            }
+            if (batch.size() < BATCH_SIZE) {
+                return page;
+            }
+        }
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item.search;
+
+/**
+ * Count-min sketch частоты обращений к ключам кэша. После {@code 10 * capacity} обращений все счётчики
+ * делятся пополам, чтобы давно популярные запросы постепенно уступали новым.
+ * Не потокобезопасен: доступ синхронизирует {@link ItemSearchCache}.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[][] counters;
+    private final int mask;
+    private final int resetThreshold;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(capacity, 16) * 4 - 1) << 1;
+        counters = new int[DEPTH][width];
+        mask = width - 1;
+        resetThreshold = 10 * capacity;
+    }
+
+    void increment(Object key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            counters[row][index(hash, row)]++;
+        }
+        if (++additions >= resetThreshold) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int row) {
+        int mixed = hash * SEEDS[row];
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    private void reset() {
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+}
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Поиск по {@link ItemSearchIndex}. Пока индекс не загружен, запросы выполняет {@link DatabaseItemSearchEngine}.
+ */
+@Primary
+@Component
+@Profile("!" + ItemSearchEngine.FULL_TEXT_PROFILE)
+@RequiredArgsConstructor
+public class IndexItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemSearchIndex itemSearchIndex;
+    private final DatabaseItemSearchEngine databaseItemSearchEngine;
+
+    @Override
+    public List<Long> search(String text, boolean fuzzy, Predicate<Long> filter, int from, int size) {
+        if (!itemSearchIndex.isReady()) {
+            return databaseItemSearchEngine.search(text, fuzzy, filter, from, size);
+        }
+        Stream<Long> itemIds = itemSearchIndex.search(text, fuzzy).stream();
+        if (filter != null) {
+            itemIds = itemIds.filter(filter);
+        }
+        return itemIds.skip(from)
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+        itemSearchIndex.index(item);
+    }
+
+    /**
+     * Пока индекс не загружен, поиск идёт через LIKE, и правила {@link #mayMatch} к нему неприменимы.
+     */
+    @Override
+    public boolean isCacheable() {
+        return itemSearchIndex.isReady();
+    }
+
+    @Override
+    public boolean mayMatch(List<String> queryTerms, boolean fuzzy, Collection<String> words) {
+        return queryTerms.stream()
+                .anyMatch(queryTerm -> words.stream()
+                        .anyMatch(word -> ItemSearchIndex.matches(queryTerm, word, fuzzy)));
+    }
+
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Кэш страниц результатов поиска вещей. Вытеснение — по давности использования, но новый запрос попадает
+ * в заполненный кэш, только если по оценке {@link FrequencySketch} он встречается чаще вытесняемого:
+ * разовые запросы не вымывают популярные. Результат, посчитанный до инвалидации, в кэш не кладётся.
+ * По событиям {@link ItemUpdated} и {@link UserDeleted} записи сбрасываются и на других экземплярах.
+ */
+@Component
+public class ItemSearchCache implements MeterBinder, DomainEventSubscriber {
+
+    static final int CAPACITY = 1000;
+
+    private final int capacity;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<Key, List<ItemDto>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+    private long invalidations;
+
+    public ItemSearchCache() {
+        this(CAPACITY);
+    }
+
+    ItemSearchCache(int capacity) {
+        this.capacity = capacity;
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    public synchronized List<ItemDto> get(Key key) {
+        sketch.increment(key);
+        List<ItemDto> items = entries.get(key);
+        if (items == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return items;
+    }
+
+    /**
+     * Версия кэша, которую нужно передать в {@link #put}: она меняется при каждой инвалидации.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized void put(Key key, List<ItemDto> items, long expectedVersion) {
+        if (expectedVersion != version) {
+            return;
+        }
+        if (entries.size() >= capacity && !entries.containsKey(key)) {
+            Iterator<Map.Entry<Key, List<ItemDto>>> eldest = entries.entrySet().iterator();
+            Key victim = eldest.next().getKey();
+            if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                rejections++;
+                return;
+            }
+            eldest.remove();
+            evictions++;
+        }
+        entries.put(key, List.copyOf(items));
+    }
+
+    /**
+     * После фиксации текущей транзакции удаляет записи, на которые могло повлиять изменение.
+     */
+    public void invalidate(Predicate<Key> affected) {
+        afterCommit(() -> invalidateNow(affected));
+    }
+
+    public void invalidateAll() {
+        invalidate(key -> true);
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                invalidateAll();
+                return;
+            }
+        }
+        for (DomainEvent event : events) {
+            if (event instanceof ItemUpdated) {
+                invalidateItemNow(((ItemUpdated) event).getItemId());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    synchronized long rejections() {
+        return rejections;
+    }
+
+    synchronized long invalidations() {
+        return invalidations;
+    }
+
+    synchronized double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String prefix = "shareit.item.search.cache";
+        FunctionCounter.builder(prefix + ".requests", this, ItemSearchCache::hits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".requests", this, ItemSearchCache::misses)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".evictions", this, ItemSearchCache::evictions)
+                .register(registry);
+        FunctionCounter.builder(prefix + ".rejections", this, ItemSearchCache::rejections)
+                .register(registry);
+        FunctionCounter.builder(prefix + ".invalidations", this, ItemSearchCache::invalidations)
+                .register(registry);
+        Gauge.builder(prefix + ".hit.ratio", this, ItemSearchCache::hitRatio)
+                .register(registry);
+        Gauge.builder(prefix + ".size", this, ItemSearchCache::size)
+                .register(registry);
+    }
+
+    private synchronized void invalidateNow(Predicate<Key> affected) {
+        version++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (affected.test(keys.next())) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private synchronized void invalidateItemNow(Long itemId) {
+        version++;
+        Iterator<List<ItemDto>> pages = entries.values().iterator();
+        while (pages.hasNext()) {
+            if (pages.next().stream().anyMatch(item -> item.getId().equals(itemId))) {
+                pages.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Нормализованные слова запроса и страница.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Key {
+
+        private final List<String> terms;
+        private final boolean fuzzy;
+        private final int offset;
+        private final int size;
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Поиск доступных вещей по тексту. Реализация выбирается профилем: по умолчанию работает
+ * {@link IndexItemSearchEngine}, с профилем {@value #FULL_TEXT_PROFILE} — {@link DatabaseItemSearchEngine}.
+ */
+public interface ItemSearchEngine {
+
+    String FULL_TEXT_PROFILE = "full-text-search";
+
+    /**
+     * Возвращает страницу id найденных вещей в порядке убывания релевантности. Страница набирается
+     * из вещей, прошедших filter (null — без фильтра).
+     * fuzzy включает поиск с опечатками, если реализация его поддерживает.
+     */
+    List<Long> search(String text, boolean fuzzy, Predicate<Long> filter, int from, int size);
+
+    /**
+     * Сообщает о добавленной или изменённой вещи.
+     */
+    void index(Item item);
+
+    /**
+     * Можно ли сейчас кэшировать результаты: их инвалидация по {@link #mayMatch} будет верной.
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Может ли вещь со словами words попасть в результаты запроса из слов queryTerms.
+     * Используется для инвалидации {@link ItemSearchCache}; без точного ответа возвращает true.
+     */
+    default boolean mayMatch(List<String> queryTerms, boolean fuzzy, Collection<String> words) {
+        return true;
+    }
+
+}
@@ -2,8 +2,10 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -14,8 +16,13 @@ public interface ItemService {
 
     ItemWithBookingsResponseDto findItemById(Long itemId, Long userId);
 
+    byte[] findItemPageById(Long itemId, Long userId);
+
     List<ItemWithBookingsResponseDto> findUserItems(Long userId);
 
-    List<ItemDto> searchItemsByText(String text, Long userId);
+    List<ItemDto> searchItemsByText(String text, LocalDateTime from, LocalDateTime to, Long userId,
+                                    int offset, int size, boolean fuzzy);
+
+    List<ItemSuggestionDto> suggestItemNames(String prefix, int size);
 
 }
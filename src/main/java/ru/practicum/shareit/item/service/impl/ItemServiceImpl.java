@@ -3,116 +3,280 @@ package ru.practicum.shareit.item.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.Status;
-import ru.practicum.shareit.booking.model.Booking;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.repository.BookingJpaRepository;
-import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.repository.CommentJpaRepository;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
+import ru.practicum.shareit.common.event.ItemUpdated;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
+import ru.practicum.shareit.item.index.ItemNameSuggester;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.summary.OwnerItemSummary;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
+import ru.practicum.shareit.request.index.ItemRequestMatcher;
 import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
-import ru.practicum.shareit.user.repository.UserJpaRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
 
-    private final UserJpaRepository userJpaRepository;
+    /**
+     * На странице вещи последним считается и бронирование, которое закончится в ближайший час.
+     */
+    private static final Duration LAST_BOOKING_SHIFT = Duration.ofHours(1);
+    static final int MAX_SEARCH_SIZE = 100;
+
     private final ItemJpaRepository itemJpaRepository;
     private final BookingJpaRepository bookingJpaRepository;
     private final CommentJpaRepository commentJpaRepository;
     private final ItemRequestJpaRepository itemRequestJpaRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
+    private final EntityLoader entityLoader;
+    private final KnownIdFilter knownIdFilter;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final ItemPageCache itemPageCache;
+    private final DomainEventPublisher domainEventPublisher;
+    private final OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository;
+    private final OwnerItemSummaryUpdater ownerItemSummaryUpdater;
 
     @Override
+    @Transactional
     public ItemDto addItem(ItemRequestDto itemRequestDto, Long userId) {
         Item item = ItemMapper.fromItemRequestDto(itemRequestDto);
         if (itemRequestDto.getRequestId() != null) {
             item.setRequest(itemRequestJpaRepository.getReferenceById(itemRequestDto.getRequestId()));
         }
-        checkUserExistsById(userId);
-        item.setOwner(userJpaRepository.getReferenceById(userId));
+        item.setOwner(entityLoader.loadUser(userId));
+        Item savedItem = itemJpaRepository.save(item);
+        ownerItemSummaryUpdater.itemAdded(savedItem);
+        knownIdFilter.addItem(savedItem.getId());
+        itemSearchEngine.index(savedItem);
+        itemNameSuggester.index(savedItem);
+        itemRequestMatcher.index(savedItem);
+        invalidateSearchCache(searchWords(savedItem));
         log.debug("Добавлена новая вещь пользователем с id = {}", userId);
-        return ItemMapper.toItemDto(itemJpaRepository.save(item));
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Override
+    @Transactional
     public ItemDto updateItem(Long itemId, ItemRequestDto itemRequestDto, Long userId) {
-        checkItemExistsById(itemId);
-        checkUserExistsById(userId);
-        checkItemOwner(itemId, userId);
+        Item item = entityLoader.loadItem(itemId);
+        checkItemOwner(item, userId);
+        String oldName = item.getName();
+        String oldDescription = item.getDescription();
+        boolean wasAvailable = Boolean.TRUE.equals(item.getAvailable());
+        Set<String> oldSearchWords = searchWords(item);
 
-        Item item = itemJpaRepository.getReferenceById(itemId);
         Optional.ofNullable(itemRequestDto.getName()).ifPresent(item::setName);
         Optional.ofNullable(itemRequestDto.getDescription()).ifPresent(item::setDescription);
         Optional.ofNullable(itemRequestDto.getAvailable()).ifPresent(item::setAvailable);
+        Item savedItem = itemJpaRepository.save(item);
+        ownerItemSummaryUpdater.itemUpdated(savedItem);
+        itemSearchEngine.index(savedItem);
+        itemNameSuggester.index(savedItem);
+        itemRequestMatcher.index(savedItem);
+        itemPageCache.invalidate(itemId);
+        domainEventPublisher.publish(new ItemUpdated(itemId, userId));
+        // В кэше поиска лежат готовые ItemDto, поэтому сбрасываем и при правке, не меняющей набор слов
+        if (!Objects.equals(oldName, savedItem.getName())
+                || !Objects.equals(oldDescription, savedItem.getDescription())
+                || wasAvailable != Boolean.TRUE.equals(savedItem.getAvailable())) {
+            oldSearchWords.addAll(searchWords(savedItem));
+            invalidateSearchCache(oldSearchWords);
+        }
         log.debug("Обновлен предмет с id = {} пользователем с id = {}", itemId, userId);
-        return ItemMapper.toItemDto(itemJpaRepository.save(item));
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Override
     public ItemWithBookingsResponseDto findItemById(Long itemId, Long userId) {
-        checkItemExistsById(itemId);
-        log.debug("Получен предмет с id = {} пользователем с id = {}", itemId, userId);
-        Item item = itemJpaRepository.getReferenceById(itemId);
-        if (item.getOwner().getId().equals(userId)) {
-            Booking lastBooking = bookingJpaRepository
-                    .findFirstByItemIdAndEndIsBeforeOrderByEndDesc(item.getId(), LocalDateTime.now().plusHours(1))
-                    .orElse(null);
-            if (lastBooking != null && lastBooking.getStatus() == Status.REJECTED) {
-                lastBooking = null;
+        return toItemPage(entityLoader.loadItemView(itemId), userId, LocalDateTime.now());
+    }
+
+    @Override
+    public byte[] findItemPageById(Long itemId, Long userId) {
+        long cacheVersion = itemPageCache.version();
+        ItemView item = entityLoader.loadItemView(itemId);
+        LocalDateTime now = LocalDateTime.now();
+        ItemWithBookingsResponseDto page = toItemPage(item, userId, now);
+        LocalDateTime validUntil = item.getOwnerId().equals(userId)
+                ? bookingJpaRepository.findNearestBookingsChange(itemId, now.plus(LAST_BOOKING_SHIFT), now).orElse(null)
+                : null;
+        return itemPageCache.put(itemId, item.getOwnerId(), userId, page, validUntil, cacheVersion);
+    }
+
+    @Override
+    public List<ItemWithBookingsResponseDto> findUserItems(Long userId) {
+        entityLoader.loadUser(userId);
+        log.debug("Получение всех предметов пользователя с id = {}", userId);
+        List<OwnerItemSummary> summaries = ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(userId);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BookingDto> lastBookingMap = new HashMap<>();
+        Map<Long, BookingDto> nextBookingMap = new HashMap<>();
+        List<Long> expiredItemIds = new ArrayList<>();
+        List<Long> commentedItemIds = new ArrayList<>();
+        for (OwnerItemSummary summary : summaries) {
+            if (summary.isExpired(now)) {
+                expiredItemIds.add(summary.getItemId());
+            } else {
+                if (summary.getLastBookingId() != null) {
+                    lastBookingMap.put(summary.getItemId(),
+                            BookingMapper.toBookingDto(summary.getLastBookingId(), summary.getLastBookerId()));
+                }
+                if (summary.getNextBookingId() != null) {
+                    nextBookingMap.put(summary.getItemId(),
+                            BookingMapper.toBookingDto(summary.getNextBookingId(), summary.getNextBookerId()));
+                }
             }
-            Booking nextBooking = bookingJpaRepository
-                    .findFirstByItemIdAndStartIsAfterOrderByStart(item.getId(), LocalDateTime.now())
-                    .orElse(null);
-            if (nextBooking != null && nextBooking.getStatus() == Status.REJECTED) {
-                nextBooking = null;
+            if (summary.getCommentCount() > 0) {
+                commentedItemIds.add(summary.getItemId());
+            }
+        }
+        if (!expiredItemIds.isEmpty()) {
+            for (NearestBookingView nearestBooking : bookingJpaRepository
+                    .findNearestBookings(expiredItemIds, now, now)) {
+                (nearestBooking.isLast() ? lastBookingMap : nextBookingMap)
+                        .put(nearestBooking.getItemId(), BookingMapper.toBookingDto(nearestBooking));
             }
-            return ItemMapper.toItemWithBookingsResponseDto(item,
-                    lastBooking,
-                    nextBooking,
-                    commentJpaRepository.findAllByItemId(itemId));
+        }
+        Map<Long, List<CommentView>> commentMap = commentedItemIds.isEmpty()
+                ? Collections.emptyMap()
+                : commentJpaRepository.findViewsByItemIdIn(commentedItemIds).stream()
+                .collect(Collectors.groupingBy(CommentView::getItemId));
+
+        return summaries.stream()
+                .map(summary -> ItemMapper.toItemWithBookingsResponseDto(summary,
+                        lastBookingMap.get(summary.getItemId()),
+                        nextBookingMap.get(summary.getItemId()),
+                        commentMap.getOrDefault(summary.getItemId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDto> searchItemsByText(String text, LocalDateTime from, LocalDateTime to, Long userId,
+                                           int offset, int size, boolean fuzzy) {
+        checkSearchPeriod(from, to);
+        int limit = Math.min(size, MAX_SEARCH_SIZE);
+        if (text == null || text.isBlank()) {
+            log.debug("Пустой запрос, возвращен пустой список");
+            return Collections.emptyList();
+        }
+        if (from != null || !itemSearchEngine.isCacheable()) {
+            return searchItems(text, fuzzy, from == null ? null : freeItemFilter(from, to), offset, limit);
+        }
+        ItemSearchCache.Key key = new ItemSearchCache.Key(ItemSearchIndex.tokenize(text).collect(Collectors.toList()),
+                fuzzy,
+                offset,
+                limit);
+        List<ItemDto> cachedItems = itemSearchCache.get(key);
+        if (cachedItems != null) {
+            log.debug("Результаты поиска по запросу '{}' взяты из кэша", text);
+            return cachedItems;
+        }
+        long cacheVersion = itemSearchCache.version();
+        List<ItemDto> items = searchItems(text, fuzzy, null, offset, limit);
+        itemSearchCache.put(key, items, cacheVersion);
+        return items;
+    }
+
+    @Override
+    public List<ItemSuggestionDto> suggestItemNames(String prefix, int size) {
+        return itemNameSuggester.suggest(prefix, size);
+    }
+
+    private List<ItemDto> searchItems(String text, boolean fuzzy, Predicate<Long> filter, int offset, int size) {
+        List<ItemView> items = findAllByIdInOrder(itemSearchEngine.search(text, fuzzy, filter, offset, size));
+        log.debug("Найдены все предметы по запросу '{}'", text);
+        return items.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Слова, по которым вещь находится поиском; у недоступной вещи их нет.
+     */
+    private static Set<String> searchWords(Item item) {
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return new HashSet<>();
+        }
+        return Stream.concat(ItemSearchIndex.tokenize(item.getName()), ItemSearchIndex.tokenize(item.getDescription()))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private void invalidateSearchCache(Set<String> changedWords) {
+        if (!changedWords.isEmpty()) {
+            itemSearchCache.invalidate(key -> itemSearchEngine.mayMatch(key.getTerms(), key.isFuzzy(), changedWords));
+        }
+    }
+
+    private ItemWithBookingsResponseDto toItemPage(ItemView item, Long userId, LocalDateTime now) {
+        log.debug("Получен предмет с id = {} пользователем с id = {}", item.getId(), userId);
+        List<CommentView> comments = commentJpaRepository.findViewsByItemId(item.getId());
+        if (item.getOwnerId().equals(userId)) {
+            return toItemWithBookingsResponseDtoList(List.of(item),
+                    now.plus(LAST_BOOKING_SHIFT),
+                    now,
+                    Map.of(item.getId(), comments)).get(0);
         }
         return ItemMapper.toItemWithBookingsResponseDto(item,
                 null,
                 null,
-                commentJpaRepository.findAllByItemId(itemId));
+                comments);
     }
 
-    @Override
-    public List<ItemWithBookingsResponseDto> findUserItems(Long userId) {
-        checkUserExistsById(userId);
-        log.debug("Получение всех предметов пользователя с id = {}", userId);
-        List<Item> items = itemJpaRepository.findAllByOwnerId(userId);
+    private List<ItemWithBookingsResponseDto> toItemWithBookingsResponseDtoList(List<ItemView> items,
+                                                                                LocalDateTime lastBefore,
+                                                                                LocalDateTime nextAfter,
+                                                                                Map<Long, List<CommentView>> commentMap) {
         List<Long> itemIds = items.stream()
-                .map(Item::getId)
+                .map(ItemView::getId)
                 .collect(Collectors.toList());
-        List<Booking> lastBookings = bookingJpaRepository
-                .findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(itemIds, LocalDateTime.now());
-        List<Booking> nextBookings = bookingJpaRepository
-                .findFirstByItemIdInAndStartIsAfterOrderByStart(itemIds, LocalDateTime.now());
-        Map<Long, Booking> lastBookingMap = lastBookings.stream()
-                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
-        Map<Long, Booking> nextBookingMap = nextBookings.stream()
-                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
-        Map<Long, List<Comment>> commentMap = commentJpaRepository
-                .findAllByItemIdIn(itemIds)
-                .stream()
-                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        Map<Long, BookingDto> lastBookingMap = new HashMap<>();
+        Map<Long, BookingDto> nextBookingMap = new HashMap<>();
+        for (NearestBookingView nearestBooking : bookingJpaRepository
+                .findNearestBookings(itemIds, lastBefore, nextAfter)) {
+            (nearestBooking.isLast() ? lastBookingMap : nextBookingMap)
+                    .put(nearestBooking.getItemId(), BookingMapper.toBookingDto(nearestBooking));
+        }
         List<ItemWithBookingsResponseDto> itemWithBookingsResponseDtoList = new ArrayList<>();
-        for (Item item : items) {
+        for (ItemView item : items) {
             itemWithBookingsResponseDtoList.add(ItemMapper.toItemWithBookingsResponseDto(item,
                     lastBookingMap.get(item.getId()),
                     nextBookingMap.get(item.getId()),
@@ -122,29 +286,42 @@ public class ItemServiceImpl implements ItemService {
         return itemWithBookingsResponseDtoList;
     }
 
-    @Override
-    public List<ItemDto> searchItemsByText(String text, Long userId) {
-        if (text == null || text.isBlank()) {
-            log.debug("Пустой запрос, возвращен пустой список");
-            return Collections.emptyList();
-        }
-        List<Item> items = itemJpaRepository.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(text,
-                text,
-                true);
-        log.debug("Найдены все предметы по запросу '{}'", text);
-        return ItemMapper.toItemDtoList(items);
+    private Predicate<Long> freeItemFilter(LocalDateTime from, LocalDateTime to) {
+        BitSet possiblyBusyItems = itemAvailabilityIndex.findPossiblyBusyItems(from, to);
+        return itemId -> !possiblyBusyItems.get(ItemAvailabilityIndex.toBit(itemId))
+                || bookingIntervalIndex.isFree(itemId, from, to);
     }
 
-    private void checkUserExistsById(Long userId) {
-        if (!userJpaRepository.existsById(userId)) {
-            throw new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
-
+    /**
+     * Загружает вещи в порядке переданных id. Вещи, удалённые вместе с владельцем, но ещё не убранные
+     * из поискового индекса, пропускаются.
+     */
+    private List<ItemView> findAllByIdInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
         }
+        Map<Long, ItemView> itemMap = itemJpaRepository.findViewsByIdIn(itemIds)
+                .stream()
+                .collect(Collectors.toMap(ItemView::getId, Function.identity()));
+        return itemIds.stream()
+                .map(itemMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    private void checkItemExistsById(Long itemId) {
-        if (!itemJpaRepository.existsById(itemId)) {
-            throw new NotFoundException(String.format("Предмета с id = %d не существует", itemId));
+    private void checkSearchPeriod(LocalDateTime from, LocalDateTime to) {
+        if ((from == null) != (to == null)) {
+            throw new BadRequestException("Период поиска должен содержать обе даты: from и to");
+        }
+        if (from != null && !from.isBefore(to)) {
+            throw new BadRequestException("Дата начала периода поиска должна быть раньше даты окончания");
+        }
+        if (to != null && !to.isAfter(LocalDateTime.now())) {
+            throw new BadRequestException("Период поиска должен заканчиваться в будущем");
+        }
+        if (from != null && Duration.between(from, to).compareTo(ItemAvailabilityIndex.MAX_PERIOD) > 0) {
+            throw new BadRequestException(String.format("Период поиска не может быть длиннее %d дней",
+                    ItemAvailabilityIndex.MAX_PERIOD.toDays()));
         }
     }
 
@@ -155,10 +332,9 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
-    private void checkItemOwner(Long itemId, Long userId) {
-        Item item = itemJpaRepository.getReferenceById(itemId);
+    private void checkItemOwner(Item item, Long userId) {
         if (item.getOwner() == null || !item.getOwner().getId().equals(userId)) {
-            throw new NotFoundException(String.format("У вещи с id = %d другой владелец", itemId));
+            throw new NotFoundException(String.format("У вещи с id = %d другой владелец", item.getId()));
         }
     }
 }
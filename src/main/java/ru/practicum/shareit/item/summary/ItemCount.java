@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Число строк, относящихся к вещи: отзывов или бронирований в заданном статусе.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemCount {
+
+    private Long itemId;
+    private Long count;
+
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Строка витрины вещей владельца. Последнее и следующее бронирование посчитаны на момент записи и верны
+ * до bookingsChangeAt; null — пока не изменятся сами бронирования.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "owner_item_summary")
+public class OwnerItemSummary {
+
+    @Id
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "description", nullable = false)
+    private String description;
+
+    @Column(name = "is_available", nullable = false)
+    private Boolean available;
+
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+
+    @Column(name = "next_booking_start")
+    private LocalDateTime nextBookingStart;
+
+    @Column(name = "bookings_change_at")
+    private LocalDateTime bookingsChangeAt;
+
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount;
+
+    @Column(name = "waiting_count", nullable = false)
+    private int waitingCount;
+
+    public boolean isExpired(LocalDateTime now) {
+        return bookingsChangeAt != null && !now.isBefore(bookingsChangeAt);
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Результат сверки витрины с исходными таблицами.
+ */
+@Getter
+@AllArgsConstructor
+public class OwnerItemSummaryCheck {
+
+    private int checkedItems;
+    private int missingItems;
+    private int inconsistentItems;
+
+    /**
+     * Первые вещи с отсутствующей или расходящейся строкой.
+     */
+    private List<Long> sampleItemIds;
+
+}
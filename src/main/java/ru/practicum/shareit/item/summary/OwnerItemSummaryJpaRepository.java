@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.summary;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.Status;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OwnerItemSummaryJpaRepository extends JpaRepository<OwnerItemSummary, Long> {
+
+    List<OwnerItemSummary> findByOwnerIdOrderByItemId(Long ownerId);
+
+    /**
+     * Блокирует строки до конца транзакции: без блокировки параллельные изменения одной вещи теряли бы
+     * друг друга, а пересчёт затирал бы счётчики, увеличенные после его чтения.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OwnerItemSummary s WHERE s.itemId IN :itemIds ORDER BY s.itemId")
+    List<OwnerItemSummary> findAllForUpdate(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT s.itemId FROM OwnerItemSummary s " +
+            "WHERE s.bookingsChangeAt <= :now AND s.itemId > :afterItemId ORDER BY s.itemId")
+    List<Long> findExpiredItemIds(@Param("now") LocalDateTime now,
+                                  @Param("afterItemId") Long afterItemId,
+                                  Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OwnerItemSummary s SET s.name = :name, s.description = :description, s.available = :available " +
+            "WHERE s.itemId = :itemId")
+    int updateItemFields(@Param("itemId") Long itemId,
+                         @Param("name") String name,
+                         @Param("description") String description,
+                         @Param("available") Boolean available);
+
+    @Modifying
+    @Query("UPDATE OwnerItemSummary s SET s.commentCount = s.commentCount + 1 WHERE s.itemId = :itemId")
+    int incrementCommentCount(@Param("itemId") Long itemId);
+
+    @Modifying
+    @Query("UPDATE OwnerItemSummary s SET s.waitingCount = s.waitingCount - 1 WHERE s.itemId = :itemId")
+    int decrementWaitingCount(@Param("itemId") Long itemId);
+
+    @Query("SELECT new ru.practicum.shareit.item.summary.ItemCount(c.item.id, COUNT(c)) FROM Comment c " +
+            "WHERE c.item.id IN :itemIds GROUP BY c.item.id")
+    List<ItemCount> countComments(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT new ru.practicum.shareit.item.summary.ItemCount(b.item.id, COUNT(b)) FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status = :status GROUP BY b.item.id")
+    List<ItemCount> countBookings(@Param("itemIds") Collection<Long> itemIds, @Param("status") Status status);
+
+    /**
+     * Вещи, чьи бронирования или отзывы принадлежат пользователю: при его удалении они удаляются каскадом.
+     */
+    @Query(value = "SELECT item_id FROM bookings WHERE booker_id = :userId " +
+            "UNION SELECT item_id FROM comments WHERE author_id = :userId", nativeQuery = true)
+    List<Long> findItemIdsTouchedBy(@Param("userId") Long userId);
+
+}
@@ -0,0 +1,190 @@
+package ru.practicum.shareit.item.summary;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Обслуживание витрины вещей владельца: периодический пересчёт строк с истёкшим сроком, полная перестройка
+ * и сверка с исходными таблицами. Перестройка и сверка доступны как endpoint actuator ownerItemSummary:
+ * GET — сверка, POST — перестройка. Обе идут пачками по {@link OwnerItemSummaryProperties#getBatchSize()} вещей,
+ * каждая в своей транзакции; сверка пачки читает один снимок данных, чтобы параллельные изменения
+ * не считались расхождениями.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "ownerItemSummary")
+@EnableConfigurationProperties(OwnerItemSummaryProperties.class)
+public class OwnerItemSummaryMaintenance implements MeterBinder {
+
+    private static final int SAMPLE_SIZE = 20;
+
+    private final OwnerItemSummaryUpdater ownerItemSummaryUpdater;
+    private final OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository;
+    private final ItemJpaRepository itemJpaRepository;
+    private final OwnerItemSummaryProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final LongAdder refreshedItems = new LongAdder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "owner-item-summary-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OwnerItemSummaryMaintenance(OwnerItemSummaryUpdater ownerItemSummaryUpdater,
+                                       OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository,
+                                       ItemJpaRepository itemJpaRepository,
+                                       OwnerItemSummaryProperties properties,
+                                       PlatformTransactionManager transactionManager) {
+        this.ownerItemSummaryUpdater = ownerItemSummaryUpdater;
+        this.ownerItemSummaryJpaRepository = ownerItemSummaryJpaRepository;
+        this.itemJpaRepository = itemJpaRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.readOnlyTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = properties.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshExpiredSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Пересчитывает строки, у которых сменились последнее или следующее бронирование.
+     */
+    public int refreshExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int refreshed = 0;
+        long afterItemId = 0;
+        while (true) {
+            long after = afterItemId;
+            List<Long> itemIds = transactionTemplate.execute(status -> {
+                List<Long> expired = ownerItemSummaryJpaRepository
+                        .findExpiredItemIds(now, after, PageRequest.of(0, properties.getBatchSize()));
+                ownerItemSummaryUpdater.refresh(expired, now);
+                return expired;
+            });
+            if (itemIds == null || itemIds.isEmpty()) {
+                break;
+            }
+            refreshed += itemIds.size();
+            afterItemId = itemIds.get(itemIds.size() - 1);
+        }
+        refreshedItems.add(refreshed);
+        return refreshed;
+    }
+
+    @WriteOperation
+    public int rebuild() {
+        int rebuilt = 0;
+        for (List<Long> itemIds : batches(itemJpaRepository.findAllIds())) {
+            transactionTemplate.executeWithoutResult(status ->
+                    ownerItemSummaryUpdater.refresh(itemIds, LocalDateTime.now()));
+            rebuilt += itemIds.size();
+        }
+        log.info("Витрина вещей владельца перестроена для {} вещей", rebuilt);
+        return rebuilt;
+    }
+
+    @ReadOperation
+    public OwnerItemSummaryCheck check() {
+        CheckTotals totals = new CheckTotals();
+        for (List<Long> itemIds : batches(itemJpaRepository.findAllIds())) {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> checkBatch(itemIds, totals));
+        }
+        if (totals.missing > 0 || totals.inconsistent > 0) {
+            log.warn("Витрина вещей владельца расходится с данными: нет строк — {}, расходятся — {}, например {}",
+                    totals.missing, totals.inconsistent, totals.sample);
+        }
+        return new OwnerItemSummaryCheck(totals.checked, totals.missing, totals.inconsistent, totals.sample);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.owner.item.summary.refreshed", refreshedItems, LongAdder::sum)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshExpiredSafely() {
+        try {
+            int refreshed = refreshExpired();
+            if (refreshed > 0) {
+                log.debug("Пересчитано {} строк витрины вещей владельца", refreshed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось пересчитать витрину вещей владельца: {}", e.getMessage());
+        }
+    }
+
+    private void checkBatch(List<Long> itemIds, CheckTotals totals) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, OwnerItemSummary> stored = ownerItemSummaryJpaRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(OwnerItemSummary::getItemId, Function.identity()));
+        for (OwnerItemSummary expected : ownerItemSummaryUpdater.compute(itemIds, now)) {
+            totals.checked++;
+            OwnerItemSummary summary = stored.get(expected.getItemId());
+            if (summary == null) {
+                totals.missing++;
+            } else if (OwnerItemSummaryUpdater.differs(summary, expected, now)) {
+                totals.inconsistent++;
+            } else {
+                continue;
+            }
+            if (totals.sample.size() < SAMPLE_SIZE) {
+                totals.sample.add(expected.getItemId());
+            }
+        }
+    }
+
+    private List<List<Long>> batches(List<Long> itemIds) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < itemIds.size(); from += properties.getBatchSize()) {
+            batches.add(itemIds.subList(from, Math.min(itemIds.size(), from + properties.getBatchSize())));
+        }
+        return batches;
+    }
+
+    private static class CheckTotals {
+
+        private int checked;
+        private int missing;
+        private int inconsistent;
+        private final List<Long> sample = new ArrayList<>();
+
+    }
+
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Обслуживание витрины вещей владельца.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.owner-item-summary")
+public class OwnerItemSummaryProperties {
+
+    /**
+     * Как часто пересчитывать строки, у которых истёк срок последнего и следующего бронирования.
+     * До пересчёта их ближайшие бронирования считаются при каждом чтении.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * Сколько вещей пересчитывается или проверяется в одной транзакции.
+     */
+    private int batchSize = 500;
+
+}
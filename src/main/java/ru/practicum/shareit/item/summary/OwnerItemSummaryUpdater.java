@@ -0,0 +1,275 @@
+package ru.practicum.shareit.item.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поддерживает витрину {@link OwnerItemSummary} в транзакции изменения: большинство изменений — один UPDATE
+ * строки вещи. Строку, которой нет или у которой истёк срок последнего и следующего бронирования, а также
+ * изменения, после которых ближайшие бронирования нельзя вывести из строки, пересчитывают по исходным таблицам.
+ */
+@Component
+@RequiredArgsConstructor
+public class OwnerItemSummaryUpdater {
+
+    private final OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository;
+    private final ItemJpaRepository itemJpaRepository;
+    private final BookingJpaRepository bookingJpaRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void itemAdded(Item item) {
+        OwnerItemSummary summary = new OwnerItemSummary();
+        summary.setItemId(item.getId());
+        summary.setOwnerId(item.getOwner().getId());
+        summary.setName(item.getName());
+        summary.setDescription(item.getDescription());
+        summary.setAvailable(item.getAvailable());
+        entityManager.persist(summary);
+    }
+
+    public void itemUpdated(Item item) {
+        if (ownerItemSummaryJpaRepository.updateItemFields(item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable()) == 0) {
+            refresh(List.of(item.getId()));
+        }
+    }
+
+    public void commentPosted(Long itemId) {
+        if (ownerItemSummaryJpaRepository.incrementCommentCount(itemId) == 0) {
+            refresh(List.of(itemId));
+        }
+    }
+
+    /**
+     * Новое бронирование ещё не началось: оно может стать только следующим.
+     */
+    public void bookingAdded(Booking booking) {
+        LocalDateTime now = LocalDateTime.now();
+        OwnerItemSummary summary = findForUpdate(booking.getItem().getId());
+        if (summary == null) {
+            refresh(List.of(booking.getItem().getId()), now);
+            return;
+        }
+        if (summary.isExpired(now) || !booking.getStart().isAfter(now)) {
+            refreshBookings(summary, now);
+        } else {
+            if (summary.getNextBookingStart() == null
+                    || booking.getStart().isBefore(summary.getNextBookingStart())) {
+                summary.setNextBookingId(booking.getId());
+                summary.setNextBookerId(booking.getBooker().getId());
+                summary.setNextBookingStart(booking.getStart());
+            }
+            if (summary.getBookingsChangeAt() == null
+                    || booking.getStart().isBefore(summary.getBookingsChangeAt())) {
+                summary.setBookingsChangeAt(booking.getStart());
+            }
+        }
+        if (booking.getStatus() == Status.WAITING) {
+            summary.setWaitingCount(summary.getWaitingCount() + 1);
+        }
+    }
+
+    /**
+     * Подтверждение не меняет ближайшие бронирования. Отклонение меняет, только если отклонено последнее
+     * или следующее; срок строки при этом может остаться раньше нужного — это лишь лишний пересчёт.
+     */
+    public void bookingStatusChanged(Booking booking, Status oldStatus) {
+        Long itemId = booking.getItem().getId();
+        boolean rejectionChanged = (oldStatus == Status.REJECTED) != (booking.getStatus() == Status.REJECTED);
+        if (!rejectionChanged) {
+            if (oldStatus == Status.WAITING && ownerItemSummaryJpaRepository.decrementWaitingCount(itemId) == 0) {
+                refresh(List.of(itemId));
+            }
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        OwnerItemSummary summary = findForUpdate(itemId);
+        if (summary == null) {
+            refresh(List.of(itemId), now);
+            return;
+        }
+        if (summary.isExpired(now)
+                || oldStatus == Status.REJECTED
+                || booking.getId().equals(summary.getLastBookingId())
+                || booking.getId().equals(summary.getNextBookingId())) {
+            refreshBookings(summary, now);
+        }
+        if (oldStatus == Status.WAITING) {
+            summary.setWaitingCount(summary.getWaitingCount() - 1);
+        }
+    }
+
+    /**
+     * Вещи, строки которых нужно пересчитать после удаления пользователя: вызывается до удаления.
+     */
+    public List<Long> findItemsTouchedBy(Long userId) {
+        return ownerItemSummaryJpaRepository.findItemIdsTouchedBy(userId);
+    }
+
+    public void refresh(Collection<Long> itemIds) {
+        refresh(itemIds, LocalDateTime.now());
+    }
+
+    /**
+     * Пересчитывает строки вещей по исходным таблицам, создавая недостающие. Несохранённые изменения
+     * текущей транзакции сначала отправляются в БД, иначе пересчёт бы их не увидел.
+     */
+    public void refresh(Collection<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        Map<Long, OwnerItemSummary> stored = ownerItemSummaryJpaRepository.findAllForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(OwnerItemSummary::getItemId, Function.identity()));
+        for (OwnerItemSummary expected : compute(itemIds, now)) {
+            OwnerItemSummary summary = stored.get(expected.getItemId());
+            if (summary == null) {
+                entityManager.persist(expected);
+            } else {
+                copy(expected, summary);
+            }
+        }
+    }
+
+    /**
+     * Строки витрины для вещей, посчитанные по исходным таблицам на момент now. Удалённых вещей в ответе нет.
+     */
+    public List<OwnerItemSummary> compute(Collection<Long> itemIds, LocalDateTime now) {
+        List<ItemView> items = itemJpaRepository.findViewsByIdIn(itemIds);
+        Map<Long, Long> commentCounts = toMap(ownerItemSummaryJpaRepository.countComments(itemIds));
+        Map<Long, Long> waitingCounts = toMap(ownerItemSummaryJpaRepository.countBookings(itemIds, Status.WAITING));
+        Map<Long, NearestBookingView> lastBookings = new HashMap<>();
+        Map<Long, NearestBookingView> nextBookings = new HashMap<>();
+        for (NearestBookingView nearestBooking : bookingJpaRepository.findNearestBookings(itemIds, now, now)) {
+            (nearestBooking.isLast() ? lastBookings : nextBookings).put(nearestBooking.getItemId(), nearestBooking);
+        }
+        Map<Long, LocalDateTime> changes = bookingJpaRepository.findNearestBookingsChanges(itemIds, now, now);
+
+        List<OwnerItemSummary> summaries = new ArrayList<>(items.size());
+        for (ItemView item : items) {
+            OwnerItemSummary summary = new OwnerItemSummary();
+            summary.setItemId(item.getId());
+            summary.setOwnerId(item.getOwnerId());
+            summary.setName(item.getName());
+            summary.setDescription(item.getDescription());
+            summary.setAvailable(item.getAvailable());
+            NearestBookingView lastBooking = lastBookings.get(item.getId());
+            if (lastBooking != null) {
+                summary.setLastBookingId(lastBooking.getId());
+                summary.setLastBookerId(lastBooking.getBookerId());
+            }
+            NearestBookingView nextBooking = nextBookings.get(item.getId());
+            if (nextBooking != null) {
+                summary.setNextBookingId(nextBooking.getId());
+                summary.setNextBookerId(nextBooking.getBookerId());
+                summary.setNextBookingStart(nextBooking.getStart());
+            }
+            summary.setBookingsChangeAt(changes.get(item.getId()));
+            summary.setCommentCount(commentCounts.getOrDefault(item.getId(), 0L).intValue());
+            summary.setWaitingCount(waitingCounts.getOrDefault(item.getId(), 0L).intValue());
+            summaries.add(summary);
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Расходится ли сохранённая строка с посчитанной. Ближайшие бронирования истёкшей строки не сравниваются:
+     * при чтении их пересчитывают. Срок строки может быть раньше нужного, но не позже.
+     */
+    public static boolean differs(OwnerItemSummary stored, OwnerItemSummary expected, LocalDateTime now) {
+        if (!Objects.equals(stored.getOwnerId(), expected.getOwnerId())
+                || !Objects.equals(stored.getName(), expected.getName())
+                || !Objects.equals(stored.getDescription(), expected.getDescription())
+                || !Objects.equals(stored.getAvailable(), expected.getAvailable())
+                || stored.getCommentCount() != expected.getCommentCount()
+                || stored.getWaitingCount() != expected.getWaitingCount()) {
+            return true;
+        }
+        if (stored.isExpired(now)) {
+            return false;
+        }
+        return !Objects.equals(stored.getLastBookingId(), expected.getLastBookingId())
+                || !Objects.equals(stored.getLastBookerId(), expected.getLastBookerId())
+                || !Objects.equals(stored.getNextBookingId(), expected.getNextBookingId())
+                || !Objects.equals(stored.getNextBookerId(), expected.getNextBookerId())
+                || !Objects.equals(stored.getNextBookingStart(), expected.getNextBookingStart())
+                || expected.getBookingsChangeAt() != null && (stored.getBookingsChangeAt() == null
+                || stored.getBookingsChangeAt().isAfter(expected.getBookingsChangeAt()));
+    }
+
+    private OwnerItemSummary findForUpdate(Long itemId) {
+        List<OwnerItemSummary> summaries = ownerItemSummaryJpaRepository.findAllForUpdate(List.of(itemId));
+        return summaries.isEmpty() ? null : summaries.get(0);
+    }
+
+    /**
+     * Пересчитывает только последнее и следующее бронирование строки: остальные поля поддерживаются
+     * при каждом изменении. Строка меняется после запросов, иначе перед ними её записал бы автоматический flush.
+     */
+    private void refreshBookings(OwnerItemSummary summary, LocalDateTime now) {
+        List<Long> itemIds = List.of(summary.getItemId());
+        List<NearestBookingView> nearestBookings = bookingJpaRepository.findNearestBookings(itemIds, now, now);
+        LocalDateTime changeAt = bookingJpaRepository.findNearestBookingsChanges(itemIds, now, now)
+                .get(summary.getItemId());
+        summary.setLastBookingId(null);
+        summary.setLastBookerId(null);
+        summary.setNextBookingId(null);
+        summary.setNextBookerId(null);
+        summary.setNextBookingStart(null);
+        for (NearestBookingView nearestBooking : nearestBookings) {
+            if (nearestBooking.isLast()) {
+                summary.setLastBookingId(nearestBooking.getId());
+                summary.setLastBookerId(nearestBooking.getBookerId());
+            } else {
+                summary.setNextBookingId(nearestBooking.getId());
+                summary.setNextBookerId(nearestBooking.getBookerId());
+                summary.setNextBookingStart(nearestBooking.getStart());
+            }
+        }
+        summary.setBookingsChangeAt(changeAt);
+    }
+
+    private static void copy(OwnerItemSummary from, OwnerItemSummary to) {
+        to.setOwnerId(from.getOwnerId());
+        to.setName(from.getName());
+        to.setDescription(from.getDescription());
+        to.setAvailable(from.getAvailable());
+        to.setLastBookingId(from.getLastBookingId());
+        to.setLastBookerId(from.getLastBookerId());
+        to.setNextBookingId(from.getNextBookingId());
+        to.setNextBookerId(from.getNextBookerId());
+        to.setNextBookingStart(from.getNextBookingStart());
+        to.setBookingsChangeAt(from.getBookingsChangeAt());
+        to.setCommentCount(from.getCommentCount());
+        to.setWaitingCount(from.getWaitingCount());
+    }
+
+    private static Map<Long, Long> toMap(List<ItemCount> counts) {
+        return counts.stream().collect(Collectors.toMap(ItemCount::getItemId, ItemCount::getCount));
+    }
+
+}
@@ -1,10 +1,13 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.dto.ItemRequestNotificationDto;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import javax.validation.Valid;
@@ -22,6 +25,7 @@ import java.util.List;
 public class ItemRequestController {
 
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final String X_NEXT_CURSOR = "X-Next-Cursor";
 
     private final ItemRequestService itemRequestService;
 
@@ -38,12 +42,29 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDtoResponse> findAllItemRequests(
+    public ResponseEntity<List<ItemRequestDtoResponse>> findAllItemRequests(
             @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
             @Positive @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after,
             @RequestHeader(X_SHARER_USER_ID) Long userId
     ) {
-        return itemRequestService.findAllItemRequests(from, size, userId);
+        List<ItemRequestDtoResponse> itemRequests = itemRequestService.findAllItemRequests(from, size, userId, after);
+        if (itemRequests.size() < size) {
+            return ResponseEntity.ok(itemRequests);
+        }
+        ItemRequestDtoResponse last = itemRequests.get(itemRequests.size() - 1);
+        return ResponseEntity.ok()
+                .header(X_NEXT_CURSOR, new ItemRequestCursor(last.getCreated(), last.getId()).encode())
+                .body(itemRequests);
+    }
+
+    @GetMapping("/notifications")
+    public List<ItemRequestNotificationDto> findNotifications(
+            @PositiveOrZero @RequestParam(defaultValue = "0") Long after,
+            @Positive @RequestParam(defaultValue = "10") Integer size,
+            @RequestHeader(X_SHARER_USER_ID) Long userId
+    ) {
+        return itemRequestService.findNotifications(userId, after, size);
     }
 
     @GetMapping("/{requestId}")
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ItemRequestNotificationDto {
+
+    private Long id;
+    private Long requestId;
+    private String description;
+    private LocalDateTime created;
+
+}
@@ -5,10 +5,14 @@ import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.dto.ItemRequestNotificationDto;
+import ru.practicum.shareit.request.index.ItemRequestFeedEntry;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestNotification;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @UtilityClass
 public class ItemRequestMapper {
@@ -31,4 +35,32 @@ public class ItemRequestMapper {
         return response;
     }
 
+    public static List<ItemRequestDtoResponse> toResponseList(List<ItemRequest> requests) {
+        return requests.stream()
+                .map(request -> toResponse(request, null))
+                .collect(Collectors.toList());
+    }
+
+    public static ItemRequestDtoResponse toResponse(ItemRequestFeedEntry entry) {
+        ItemRequestDtoResponse response = new ItemRequestDtoResponse();
+        response.setId(entry.getId());
+        response.setDescription(entry.getDescription());
+        response.setCreated(entry.getCreated());
+        return response;
+    }
+
+    public static ItemRequestNotificationDto toNotificationDto(ItemRequestNotification notification) {
+        ItemRequestNotificationDto dto = new ItemRequestNotificationDto();
+        dto.setId(notification.getId());
+        dto.setRequestId(notification.getRequest().getId());
+        dto.setDescription(notification.getRequest().getDescription());
+        dto.setCreated(notification.getCreated());
+        return dto;
+    }
+
+    public static ItemRequestFeedEntry toFeedEntry(ItemRequest request) {
+        return new ItemRequestFeedEntry(request.getId(), request.getDescription(), request.getCreated(),
+                request.getRequester().getId());
+    }
+
 }
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.request.index;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Последние {@value #CAPACITY} запросов в порядке (created DESC, id DESC). Страницы чужих запросов
+ * отдаются из памяти, если окно позволяет заполнить страницу целиком или содержит все запросы таблицы;
+ * иначе сервис читает страницу из базы. Чтение не блокируется, изменения применяются после фиксации транзакции;
+ * запросы удалённого пользователя убираются по событию {@link UserDeleted}.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeed implements MeterBinder, DomainEventSubscriber {
+
+    static final int CAPACITY = 1000;
+
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "created", "id");
+
+    private static final Comparator<ItemRequestFeedEntry> ORDER = Comparator
+            .comparing(ItemRequestFeedEntry::getCreated)
+            .thenComparing(ItemRequestFeedEntry::getId)
+            .reversed();
+
+    private final ItemRequestJpaRepository itemRequestJpaRepository;
+    private final int capacity;
+    private final NavigableSet<ItemRequestFeedEntry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private final LongAdder memoryPages = new LongAdder();
+    private final LongAdder databasePages = new LongAdder();
+    private volatile boolean ready;
+    private volatile boolean complete;
+
+    @Autowired
+    public ItemRequestFeed(ItemRequestJpaRepository itemRequestJpaRepository) {
+        this(itemRequestJpaRepository, CAPACITY);
+    }
+
+    ItemRequestFeed(ItemRequestJpaRepository itemRequestJpaRepository, int capacity) {
+        this.itemRequestJpaRepository = itemRequestJpaRepository;
+        this.capacity = capacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<ItemRequestFeedEntry> recent = itemRequestJpaRepository
+                .findRecentFeedEntries(PageRequest.of(0, capacity, NEWEST_FIRST));
+        entries.addAll(recent);
+        complete = recent.size() < capacity;
+        trim();
+        ready = true;
+        log.info("Лента запросов загружена: {} запросов", entries.size());
+    }
+
+    /**
+     * Добавляет запрос в ленту после фиксации текущей транзакции.
+     */
+    public void add(ItemRequestFeedEntry entry) {
+        afterCommit(() -> addNow(entry));
+    }
+
+    /**
+     * Убирает из ленты запросы удалённого пользователя после фиксации текущей транзакции.
+     */
+    public void removeRequester(Long requesterId) {
+        afterCommit(() -> entries.removeIf(entry -> entry.getRequesterId().equals(requesterId)));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                removeRequester(((UserDeleted) event).getUserId());
+            }
+        }
+    }
+
+    /**
+     * Страница запросов других пользователей: после позиции after или с пропуском offset запросов.
+     * Пустой результат означает, что страницу нужно читать из базы.
+     */
+    public Optional<List<ItemRequestFeedEntry>> findOtherUserRequests(Long userId,
+                                                                      ItemRequestCursor after,
+                                                                      int offset,
+                                                                      int size) {
+        if (!ready) {
+            databasePages.increment();
+            return Optional.empty();
+        }
+        boolean wholeTable = complete;
+        NavigableSet<ItemRequestFeedEntry> tail = after == null ? entries : entries.tailSet(
+                new ItemRequestFeedEntry(after.getId(), null, after.getCreated(), null), false);
+        List<ItemRequestFeedEntry> page = new ArrayList<>(Math.min(size, capacity));
+        int skipped = 0;
+        for (ItemRequestFeedEntry entry : tail) {
+            if (entry.getRequesterId().equals(userId)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(entry);
+            if (page.size() == size) {
+                break;
+            }
+        }
+        if (page.size() < size && !wholeTable) {
+            databasePages.increment();
+            return Optional.empty();
+        }
+        memoryPages.increment();
+        return Optional.of(page);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.request.feed.pages", memoryPages, LongAdder::sum)
+                .tag("source", "memory")
+                .register(registry);
+        FunctionCounter.builder("shareit.request.feed.pages", databasePages, LongAdder::sum)
+                .tag("source", "database")
+                .register(registry);
+        Gauge.builder("shareit.request.feed.size", this, ItemRequestFeed::size)
+                .register(registry);
+    }
+
+    private synchronized void addNow(ItemRequestFeedEntry entry) {
+        entries.add(entry);
+        trim();
+    }
+
+    private void trim() {
+        while (entries.size() > capacity) {
+            entries.pollLast();
+            complete = false;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class ItemRequestFeedEntry {
+
+    private Long id;
+    private String description;
+    private LocalDateTime created;
+    private Long requesterId;
+
+}
@@ -0,0 +1,228 @@
+package ru.practicum.shareit.request.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.event.DomainEvent;
+import ru.practicum.shareit.common.event.DomainEventSubscriber;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Индекс владельцев по словам названий и описаний их доступных вещей. Для текста запроса находит владельцев,
+ * чьи вещи могут на него ответить: слово запроса без окончания совпадает с началом слова вещи
+ * («дрель» находит «дрели»). Редкие слова весят больше, а слова, которые есть у большинства владельцев,
+ * не учитываются. Стоимость поиска зависит от числа найденных владельцев, а не от числа вещей.
+ * Вещи удалённого владельца убираются по событию {@link UserDeleted}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemRequestMatcher implements DomainEventSubscriber {
+
+    static final int MAX_OWNERS = 50;
+    static final int MIN_TERM_LENGTH = 3;
+    private static final int COMMON_TERM_MIN_OWNERS = 100;
+    private static final double COMMON_TERM_SHARE = 0.2;
+
+    private final ItemJpaRepository itemJpaRepository;
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, OwnerItemDocument> items = new HashMap<>();
+    private final Map<Long, Set<Long>> ownerItems = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, OwnerItemDocument> pendingChanges;
+
+    /**
+     * Загружает индекс из БД. Изменения, зафиксированные во время загрузки, применяются поверх неё.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLocked(() -> pendingChanges = new HashMap<>());
+        List<OwnerItemDocument> documents = itemJpaRepository.findAllAvailableOwnerDocuments();
+        writeLocked(() -> {
+            postings.clear();
+            items.clear();
+            ownerItems.clear();
+            documents.forEach(this::putNow);
+            pendingChanges.forEach(this::applyNow);
+            pendingChanges = null;
+        });
+        log.info("Индекс владельцев для запросов перестроен: {} владельцев, {} слов", ownerItems.size(),
+                postings.size());
+    }
+
+    /**
+     * Обновляет вещь в индексе после фиксации текущей транзакции; недоступная вещь из индекса убирается.
+     */
+    public void index(Item item) {
+        Long itemId = item.getId();
+        OwnerItemDocument document = Boolean.TRUE.equals(item.getAvailable())
+                ? new OwnerItemDocument(itemId, item.getOwner().getId(), item.getName(), item.getDescription())
+                : null;
+        afterCommit(() -> writeLocked(() -> {
+            if (pendingChanges != null) {
+                pendingChanges.put(itemId, document);
+            }
+            applyNow(itemId, document);
+        }));
+    }
+
+    /**
+     * Убирает вещи удалённого владельца после фиксации текущей транзакции.
+     */
+    public void removeOwner(Long ownerId) {
+        afterCommit(() -> writeLocked(() -> {
+            Set<Long> itemIds = ownerItems.get(ownerId);
+            if (itemIds == null) {
+                return;
+            }
+            new ArrayList<>(itemIds).forEach(itemId -> {
+                if (pendingChanges != null) {
+                    pendingChanges.put(itemId, null);
+                }
+                applyNow(itemId, null);
+            });
+        }));
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof UserDeleted) {
+                removeOwner(((UserDeleted) event).getUserId());
+            }
+        }
+    }
+
+    /**
+     * Возвращает не больше {@value #MAX_OWNERS} владельцев, кроме excludedOwnerId, в порядке убывания
+     * совпадения их вещей с текстом.
+     */
+    public List<Long> findOwners(String text, Long excludedOwnerId) {
+        List<String> stems = ItemSearchIndex.tokenize(text)
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .map(ItemRequestMatcher::stem)
+                .distinct()
+                .collect(Collectors.toList());
+        if (stems.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            int commonTermOwners = Math.max(COMMON_TERM_MIN_OWNERS, (int) (ownerItems.size() * COMMON_TERM_SHARE));
+            Map<Long, Double> scores = new HashMap<>();
+            for (String stem : stems) {
+                Set<Long> owners = findOwnersByStem(stem, commonTermOwners);
+                if (owners.isEmpty() || owners.size() > commonTermOwners) {
+                    continue;
+                }
+                double weight = Math.log(1 + (double) ownerItems.size() / owners.size());
+                owners.forEach(ownerId -> scores.merge(ownerId, weight, Double::sum));
+            }
+            scores.remove(excludedOwnerId);
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_OWNERS)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Слово без окончания: одна буква у коротких слов, две у длинных, но не короче {@value #MIN_TERM_LENGTH}.
+     */
+    static String stem(String term) {
+        int ending = term.length() > 5 ? 2 : 1;
+        return term.substring(0, Math.max(MIN_TERM_LENGTH, term.length() - ending));
+    }
+
+    private Set<Long> findOwnersByStem(String stem, int limit) {
+        Set<Long> owners = new HashSet<>();
+        for (Map<Long, Integer> termOwners : postings.subMap(stem, true, stem + Character.MAX_VALUE, false)
+                .values()) {
+            owners.addAll(termOwners.keySet());
+            if (owners.size() > limit) {
+                break;
+            }
+        }
+        return owners;
+    }
+
+    private void applyNow(Long itemId, OwnerItemDocument document) {
+        removeNow(itemId);
+        if (document != null) {
+            putNow(document);
+        }
+    }
+
+    private void putNow(OwnerItemDocument document) {
+        items.put(document.getId(), document);
+        ownerItems.computeIfAbsent(document.getOwnerId(), key -> new HashSet<>()).add(document.getId());
+        terms(document).forEach(term -> postings.computeIfAbsent(term, key -> new HashMap<>())
+                .merge(document.getOwnerId(), 1, Integer::sum));
+    }
+
+    private void removeNow(Long itemId) {
+        OwnerItemDocument document = items.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        Set<Long> itemIds = ownerItems.get(document.getOwnerId());
+        itemIds.remove(itemId);
+        if (itemIds.isEmpty()) {
+            ownerItems.remove(document.getOwnerId());
+        }
+        for (String term : terms(document)) {
+            Map<Long, Integer> owners = postings.get(term);
+            owners.computeIfPresent(document.getOwnerId(), (ownerId, count) -> count > 1 ? count - 1 : null);
+            if (owners.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static Set<String> terms(OwnerItemDocument document) {
+        Set<String> terms = new HashSet<>();
+        ItemSearchIndex.tokenize(document.getName()).forEach(terms::add);
+        ItemSearchIndex.tokenize(document.getDescription()).forEach(terms::add);
+        terms.removeIf(term -> term.length() < MIN_TERM_LENGTH);
+        return terms;
+    }
+
+    private void writeLocked(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class OwnerItemDocument {
+
+    private Long id;
+    private Long ownerId;
+    private String name;
+    private String description;
+
+}
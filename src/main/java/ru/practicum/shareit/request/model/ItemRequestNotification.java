@@ -0,0 +1,33 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Уведомление владельца о запросе, на который может ответить одна из его вещей.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "request_notifications")
+public class ItemRequestNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "request_id")
+    private ItemRequest request;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+}
@@ -5,8 +5,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.index.ItemRequestFeedEntry;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestJpaRepository extends JpaRepository<ItemRequest, Long> {
@@ -15,4 +17,15 @@ public interface ItemRequestJpaRepository extends JpaRepository<ItemRequest, Lon
 
     @Query("SELECT ir FROM ItemRequest ir WHERE ir.requester.id <> :requesterId")
     List<ItemRequest> findOtherUserItems(@Param("requesterId") Long requesterId, Pageable pageable);
+
+    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requester.id <> :requesterId " +
+            "AND (ir.created < :created OR (ir.created = :created AND ir.id < :id))")
+    List<ItemRequest> findOtherUserItemsBefore(@Param("requesterId") Long requesterId,
+                                               @Param("created") LocalDateTime created,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.request.index.ItemRequestFeedEntry(" +
+            "ir.id, ir.description, ir.created, ir.requester.id) FROM ItemRequest ir")
+    List<ItemRequestFeedEntry> findRecentFeedEntries(Pageable pageable);
 }
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.model.ItemRequestNotification;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+public interface ItemRequestNotificationJpaRepository extends JpaRepository<ItemRequestNotification, Long> {
+
+    @Query("SELECT n FROM ItemRequestNotification n JOIN FETCH n.request " +
+            "WHERE n.ownerId = :ownerId AND n.id > :after ORDER BY n.id")
+    List<ItemRequestNotification> findOwnerNotifications(@Param("ownerId") Long ownerId,
+                                                         @Param("after") Long after,
+                                                         Pageable pageable);
+
+    /**
+     * Создаёт уведомления одним запросом; владельцы, удалённые после сопоставления, пропускаются.
+     * Без указанной таблицы Hibernate считал бы, что нативный запрос мог изменить что угодно, и сбрасывал бы
+     * весь кэш второго уровня.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "request_notifications"))
+    @Query(value = "INSERT INTO request_notifications (owner_id, request_id, created) " +
+            "SELECT u.id, :requestId, :created FROM users u WHERE u.id IN (:ownerIds)", nativeQuery = true)
+    int notifyOwners(@Param("requestId") Long requestId,
+                     @Param("created") LocalDateTime created,
+                     @Param("ownerIds") Collection<Long> ownerIds);
+
+}
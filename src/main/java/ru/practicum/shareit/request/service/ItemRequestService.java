@@ -2,6 +2,7 @@ package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.dto.ItemRequestNotificationDto;
 
 import java.util.List;
 
@@ -11,8 +12,10 @@ public interface ItemRequestService {
 
     List<ItemRequestDtoResponse> findItemRequestsByRequesterId(Long userId);
 
-    List<ItemRequestDtoResponse> findAllItemRequests(Integer from, Integer size, Long requesterId);
+    List<ItemRequestDtoResponse> findAllItemRequests(Integer from, Integer size, Long requesterId, String after);
 
     ItemRequestDtoResponse findItemRequestById(Long requestId, Long userId);
 
+    List<ItemRequestNotificationDto> findNotifications(Long ownerId, Long after, Integer size);
+
 }
@@ -4,99 +4,124 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.exception.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.dto.ItemRequestNotificationDto;
 import ru.practicum.shareit.request.dto.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.index.ItemRequestFeed;
+import ru.practicum.shareit.request.index.ItemRequestFeedEntry;
+import ru.practicum.shareit.request.index.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
 import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+import ru.practicum.shareit.request.repository.ItemRequestNotificationJpaRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserJpaRepository;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class ItemRequestServiceImpl implements ItemRequestService {
 
-    private final UserJpaRepository userJpaRepository;
     private final ItemJpaRepository itemJpaRepository;
     private final ItemRequestJpaRepository itemRequestJpaRepository;
+    private final EntityLoader entityLoader;
+    private final ItemRequestFeed itemRequestFeed;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final ItemRequestNotificationJpaRepository itemRequestNotificationJpaRepository;
 
     @Override
+    @Transactional
     public ItemRequestDtoResponse postNewItemRequest(ItemRequestDtoRequest itemRequestDtoRequest, Long userId) {
-        checkUserExistsById(userId);
-        User user = userJpaRepository.getReferenceById(userId);
+        User user = entityLoader.loadUser(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDtoRequest, user);
         ItemRequest savedItemRequest = itemRequestJpaRepository.save(itemRequest);
+        itemRequestFeed.add(ItemRequestMapper.toFeedEntry(savedItemRequest));
+        List<Long> ownerIds = itemRequestMatcher.findOwners(savedItemRequest.getDescription(), userId);
+        if (!ownerIds.isEmpty()) {
+            itemRequestNotificationJpaRepository.notifyOwners(savedItemRequest.getId(),
+                    savedItemRequest.getCreated(), ownerIds);
+        }
 
         return ItemRequestMapper.toResponse(savedItemRequest, null);
     }
 
     @Override
     public List<ItemRequestDtoResponse> findItemRequestsByRequesterId(Long userId) {
-        checkUserExistsById(userId);
+        entityLoader.loadUser(userId);
         List<ItemRequest> itemRequests = itemRequestJpaRepository.findAllByRequesterId(
                 userId,
                 Sort.by("created").descending());
-        List<List<Item>> items = itemRequests.stream()
-                .map(itemRequest -> itemJpaRepository
-                        .findAllByRequestId(itemRequest.getId()))
-                .collect(Collectors.toList());
-        List<ItemRequestDtoResponse> itemRequestDtoResponses = new ArrayList<>();
-        for (ItemRequest itemRequest : itemRequests) {
-            for (List<Item> itemList : items) {
-                itemRequestDtoResponses.add(ItemRequestMapper.toResponse(itemRequest, itemList));
-                break;
-            }
-            break;
-        }
 
-        return itemRequestDtoResponses;
+        return withItems(ItemRequestMapper.toResponseList(itemRequests));
     }
 
     @Override
-    public List<ItemRequestDtoResponse> findAllItemRequests(Integer from, Integer size, Long requesterId) {
-        checkUserExistsById(requesterId);
-        List<ItemRequest> itemRequests = itemRequestJpaRepository
-                .findOtherUserItems(requesterId, PageRequest.of(from / size,
-                        size,
-                        Sort.by("created").descending()));
-        List<ItemRequestDtoResponse> itemRequestDtoResponseList = new ArrayList<>();
-        for (ItemRequest itemRequest : itemRequests) {
-            List<Item> items = itemJpaRepository.findAllByRequestId(itemRequest.getId());
-            itemRequestDtoResponseList.add(ItemRequestMapper.toResponse(itemRequest, items));
+    public List<ItemRequestDtoResponse> findAllItemRequests(Integer from, Integer size, Long requesterId, String after) {
+        entityLoader.loadUser(requesterId);
+        ItemRequestCursor cursor = after != null ? ItemRequestCursor.decode(after) : null;
+        int offset = cursor != null ? 0 : from / size * size;
+        Optional<List<ItemRequestFeedEntry>> recent = itemRequestFeed
+                .findOtherUserRequests(requesterId, cursor, offset, size);
+        if (recent.isPresent()) {
+            return withItems(recent.get().stream()
+                    .map(ItemRequestMapper::toResponse)
+                    .collect(Collectors.toList()));
         }
+        List<ItemRequest> itemRequests = cursor != null
+                ? itemRequestJpaRepository.findOtherUserItemsBefore(requesterId, cursor.getCreated(), cursor.getId(),
+                        PageRequest.of(0, size, ItemRequestFeed.NEWEST_FIRST))
+                : itemRequestJpaRepository.findOtherUserItems(requesterId,
+                        PageRequest.of(from / size, size, ItemRequestFeed.NEWEST_FIRST));
 
-        return itemRequestDtoResponseList;
+        return withItems(ItemRequestMapper.toResponseList(itemRequests));
     }
 
     @Override
     public ItemRequestDtoResponse findItemRequestById(Long requestId, Long userId) {
-        checkUserExistsById(userId);
-        checkItemRequestExistsById(requestId);
-        ItemRequest itemRequest = itemRequestJpaRepository.getReferenceById(requestId);
+        entityLoader.loadUser(userId);
+        ItemRequest itemRequest = entityLoader.loadItemRequest(requestId);
         List<Item> items = itemJpaRepository.findAllByRequestId(requestId);
 
         return ItemRequestMapper.toResponse(itemRequest, items);
     }
 
-    private void checkUserExistsById(Long userId) {
-        if (!userJpaRepository.existsById(userId)) {
-            throw new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
+    @Override
+    public List<ItemRequestNotificationDto> findNotifications(Long ownerId, Long after, Integer size) {
+        entityLoader.loadUser(ownerId);
 
-        }
+        return itemRequestNotificationJpaRepository
+                .findOwnerNotifications(ownerId, after, PageRequest.of(0, size))
+                .stream()
+                .map(ItemRequestMapper::toNotificationDto)
+                .collect(Collectors.toList());
     }
 
-    private void checkItemRequestExistsById(Long requestId) {
-        if (!itemRequestJpaRepository.existsById(requestId)) {
-            throw new NotFoundException(String.format("Запроса с id = %d не существует", requestId));
+    private List<ItemRequestDtoResponse> withItems(List<ItemRequestDtoResponse> responses) {
+        if (responses.isEmpty()) {
+            return responses;
         }
+        List<Long> requestIds = responses.stream()
+                .map(ItemRequestDtoResponse::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<Item>> itemMap = itemJpaRepository
+                .findAllByRequestIdIn(requestIds)
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        responses.forEach(response -> response.setItems(ItemMapper.toItemDtoList(
+                itemMap.getOrDefault(response.getId(), Collections.emptyList()))));
+
+        return responses;
     }
-
 }
@@ -1,7 +1,18 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 public interface UserJpaRepository extends JpaRepository<User, Long> {
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :after")
+    List<Long> findIdsAfter(@Param("after") Long after);
+
 }
@@ -4,7 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.common.cache.EntityCacheEvictor;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.common.event.UserUpdated;
+import ru.practicum.shareit.item.cache.ItemPageCache;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.dto.UserRequestDto;
@@ -22,11 +29,18 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
 
     private final UserJpaRepository userJpaRepository;
+    private final EntityLoader entityLoader;
+    private final KnownIdFilter knownIdFilter;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ItemPageCache itemPageCache;
+    private final DomainEventPublisher domainEventPublisher;
+    private final OwnerItemSummaryUpdater ownerItemSummaryUpdater;
 
     @Override
     @Transactional
     public UserDto addUser(UserRequestDto userRequestDto) {
         User user = userJpaRepository.save(UserMapper.fromUserRequestDto(userRequestDto));
+        knownIdFilter.addUser(user.getId());
         log.debug("Пользователь с id = {} добавлен", user.getId());
         return UserMapper.toUserDto(user);
     }
@@ -34,27 +48,35 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserDto updateUser(UserRequestDto userRequestDto, Long userId) {
-        checkUserExistsById(userId);
-        User user = userJpaRepository.getReferenceById(userId);
+        User user = entityLoader.loadUser(userId);
         Optional.ofNullable(userRequestDto.getName()).ifPresent(user::setName);
         Optional.ofNullable(userRequestDto.getEmail()).ifPresent(user::setEmail);
         User updateedUser = userJpaRepository.save(user);
+        if (userRequestDto.getName() != null) {
+            itemPageCache.invalidateAll();
+        }
+        domainEventPublisher.publish(new UserUpdated(userId));
         log.debug("Пользователь с id = {} обновлен", userId);
         return UserMapper.toUserDto(updateedUser);
     }
 
     @Override
     public UserDto findUserById(Long userId) {
-        checkUserExistsById(userId);
+        User user = entityLoader.loadUser(userId);
         log.debug("Получен пользователь с id = {}", userId);
-        return UserMapper.toUserDto(userJpaRepository.getReferenceById(userId));
+        return UserMapper.toUserDto(user);
     }
 
     @Override
     @Transactional
     public void deleteUserById(Long userId) {
-        checkUserExistsById(userId);
-        userJpaRepository.deleteById(userId);
+        User user = entityLoader.loadUser(userId);
+        List<Long> touchedItemIds = ownerItemSummaryUpdater.findItemsTouchedBy(userId);
+        userJpaRepository.delete(user);
+        ownerItemSummaryUpdater.refresh(touchedItemIds);
+        entityCacheEvictor.evictItems();
+        itemPageCache.invalidateAll();
+        domainEventPublisher.publish(new UserDeleted(userId));
         log.debug("Удалён пользователь с id = {}", userId);
     }
 
@@ -64,10 +86,4 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDtoList(userJpaRepository.findAll());
     }
 
-    private void checkUserExistsById(Long userId) {
-        if (!userJpaRepository.existsById(userId)) {
-            throw new NotFoundException(String.format("Пользователя с id = %d не существует", userId));
-        }
-    }
-
 }
@@ -0,0 +1,3 @@
+-- В H2 нет частичных индексов: выборки WAITING/REJECTED обслуживают составные индексы со статусом.
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status ON bookings (booker_id, status, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status ON bookings (item_id, status, start_date DESC, id DESC);
@@ -0,0 +1,13 @@
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_waiting ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_rejected ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'REJECTED';
+CREATE INDEX IF NOT EXISTS idx_bookings_item_waiting ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS idx_bookings_item_rejected ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'REJECTED';
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', name), 'A') || setweight(to_tsvector('russian', description), 'B')
+) STORED;
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
@@ -3,6 +3,9 @@ DROP TABLE IF EXISTS requests;
 DROP TABLE IF EXISTS items;
 DROP TABLE IF EXISTS bookings;
 DROP TABLE IF EXISTS comments;
+DROP TABLE IF EXISTS request_notifications;
+DROP TABLE IF EXISTS outbox_events;
+DROP TABLE IF EXISTS owner_item_summary;
 
 CREATE TABLE IF NOT EXISTS users
 (
@@ -23,6 +26,9 @@ CREATE TABLE IF NOT EXISTS requests
     FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created DESC);
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests (created DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS items
 (
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -32,23 +38,37 @@ CREATE TABLE IF NOT EXISTS items
     owner_id     BIGINT                                  NOT NULL,
     request_id   BIGINT,
     CONSTRAINT pk_item PRIMARY KEY (id),
+    CONSTRAINT uq_item_owner UNIQUE (id, owner_id),
     FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
     FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+-- owner_id — копия items.owner_id, чтобы списки владельца не соединялись с items. Внешний ключ по паре
+-- (item_id, owner_id) не даёт записать чужого владельца и сам переносит смену владельца вещи на её бронирования.
 CREATE TABLE IF NOT EXISTS bookings
 (
     id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     item_id    BIGINT                                  NOT NULL,
+    owner_id   BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
     status     VARCHAR(16),
     CONSTRAINT pk_booking PRIMARY KEY (id),
-    FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    FOREIGN KEY (item_id, owner_id) REFERENCES items (id, owner_id) ON DELETE CASCADE ON UPDATE CASCADE,
     FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_start ON bookings (owner_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_status ON bookings (owner_id, status, start_date DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -59,4 +79,56 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT pk_comment PRIMARY KEY (id),
     FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
     FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+CREATE INDEX IF NOT EXISTS idx_comments_author ON comments (author_id);
+
+CREATE TABLE IF NOT EXISTS request_notifications
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    owner_id   BIGINT                                  NOT NULL,
+    request_id BIGINT                                  NOT NULL,
+    created    TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_request_notification PRIMARY KEY (id),
+    FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
+    FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_request_notifications_owner ON request_notifications (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_request_notifications_request ON request_notifications (request_id);
+
+-- Без внешних ключей: событие об удалении должно пережить удалённую строку.
+CREATE TABLE IF NOT EXISTS outbox_events
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    aggregate_type VARCHAR(32)                             NOT NULL,
+    aggregate_id   BIGINT                                  NOT NULL,
+    payload        VARCHAR(4096)                           NOT NULL,
+    created        TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_outbox_event PRIMARY KEY (id)
+);
+
+-- Витрина для списка вещей владельца: поля вещи, последнее и следующее бронирование, число отзывов и
+-- бронирований в ожидании. bookings_change_at — когда последнее или следующее бронирование сменится само.
+CREATE TABLE IF NOT EXISTS owner_item_summary
+(
+    item_id            BIGINT                      NOT NULL,
+    owner_id           BIGINT                      NOT NULL,
+    name               VARCHAR(255)                NOT NULL,
+    description        VARCHAR(1024)               NOT NULL,
+    is_available       BOOLEAN                     NOT NULL,
+    last_booking_id    BIGINT,
+    last_booker_id     BIGINT,
+    next_booking_id    BIGINT,
+    next_booker_id     BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    bookings_change_at TIMESTAMP WITHOUT TIME ZONE,
+    comment_count      INTEGER                     NOT NULL,
+    waiting_count      INTEGER                     NOT NULL,
+    CONSTRAINT pk_owner_item_summary PRIMARY KEY (item_id),
+    FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_owner_item_summary_owner ON owner_item_summary (owner_id, item_id);
+CREATE INDEX IF NOT EXISTS idx_owner_item_summary_change ON owner_item_summary (bookings_change_at);
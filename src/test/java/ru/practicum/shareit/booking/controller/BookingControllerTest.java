@@ -12,9 +12,11 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.impl.BookingServiceImpl;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -23,6 +25,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.*;
@@ -108,7 +111,7 @@ class BookingControllerTest {
 
     @Test
     void testFindBookingsByUserId() throws Exception {
-        when(bookingService.findBookingsByUserId(anyLong(), anyString(), anyInt(), anyInt()))
+        when(bookingService.findBookingsByUserId(anyLong(), anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(new ArrayList<>());
         MockHttpServletRequestBuilder getResult = MockMvcRequestBuilders.get("/bookings");
         MockHttpServletRequestBuilder paramResult = getResult.param("from", "1");
@@ -125,8 +128,8 @@ class BookingControllerTest {
 
     @Test
     void testFindBookingsByOwnerId() throws Exception {
-        when(bookingService.findBookingsByOwnerId(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(mock(Iterable.class));
+        when(bookingService.findBookingsByOwnerId(anyLong(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(new ArrayList<>());
         MockHttpServletRequestBuilder paramResult = MockMvcRequestBuilders.get("/bookings/owner")
                 .param("from", "1ug");
         MockHttpServletRequestBuilder requestBuilder = paramResult
@@ -140,8 +143,8 @@ class BookingControllerTest {
 
     @Test
     void findBookingsByOwnerId2() throws Exception {
-        when(bookingService.findBookingsByOwnerId(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(mock(Iterable.class));
+        when(bookingService.findBookingsByOwnerId(anyLong(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(new ArrayList<>());
         MockHttpServletRequestBuilder getResult = MockMvcRequestBuilders.get("/bookings/owner");
         getResult.accept("ddd");
         MockHttpServletRequestBuilder paramResult = getResult.param("from", "1");
@@ -154,6 +157,49 @@ class BookingControllerTest {
         actualPerformResult.andExpect(MockMvcResultMatchers.status().is(406));
     }
 
+    @Test
+    void findBookingsByUserIdWhenPageIsFullThenReturnNextCursor() throws Exception {
+        BookingResponseDto bookingResponseDto = createBookingResponseDto(createUserDto(), createItemDto());
+        when(bookingService.findBookingsByUserId(anyLong(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(List.of(bookingResponseDto));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/bookings")
+                .param("size", "1")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(bookingController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor",
+                        new BookingCursor(bookingResponseDto.getStart(), bookingResponseDto.getId()).encode()));
+    }
+
+    @Test
+    void findBookingsByOwnerIdPassesCursorToService() throws Exception {
+        when(bookingService.findBookingsByOwnerId(anyLong(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(new ArrayList<>());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/bookings/owner")
+                .param("after", "token")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(bookingController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("X-Next-Cursor"));
+        verify(bookingService).findBookingsByOwnerId(2L, "ALL", 0, 10, "token");
+    }
+
+    @Test
+    void streamStartsAsyncRequestForUser() throws Exception {
+        when(bookingService.subscribe(anyLong())).thenReturn(new SseEmitter());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/bookings/stream")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(bookingController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted());
+        verify(bookingService).subscribe(2L);
+    }
+
     private UserDto createUserDto() {
         UserDto userDto = new UserDto(1L, "User1", "user1@mail.ru");
         return userDto;
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Открытая подписка на /bookings/stream не должна держать соединение пула, пока ждёт событий.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-stream",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@AutoConfigureMockMvc
+class BookingStreamConnectionTest {
+
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final int STREAMS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void openStreamsDoNotHoldPoolConnections() throws Exception {
+        long userId = createUser();
+
+        for (int i = 0; i < STREAMS; i++) {
+            mockMvc.perform(get("/bookings/stream").header(X_SHARER_USER_ID, userId))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk());
+    }
+
+    private long createUser() throws Exception {
+        String response = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Подписчик\", \"email\": \"stream@mail.ru\"}"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+}
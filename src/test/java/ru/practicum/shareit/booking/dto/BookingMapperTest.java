@@ -1,6 +1,5 @@
 package ru.practicum.shareit.booking.dto;
 
-import com.fasterxml.jackson.databind.MappingIterator;
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.model.Booking;
@@ -11,11 +10,9 @@ import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
 class BookingMapperTest {
 
@@ -34,6 +31,7 @@ class BookingMapperTest {
         assertSame(users.get(0), booking.getBooker());
         assertEquals(Status.WAITING, booking.getStatus());
         assertSame(item, booking.getItem());
+        assertEquals(users.get(1).getId(), booking.getOwnerId());
         assertEquals("01:01:01", booking.getEnd().toLocalTime().toString());
         assertEquals("01:01:01", booking.getStart().toLocalTime().toString());
     }
@@ -62,33 +60,6 @@ class BookingMapperTest {
         assertEquals(1L, bookingResponseDto.getBooker().getId());
     }
 
-    @Test
-    void testToListBookingResponseDto() {
-        List<User> users = createUsers();
-        ItemRequest itemRequest = createRequest(users.get(2));
-        Item item = createItem(users.get(1), itemRequest);
-
-        Booking booking = new Booking();
-        booking.setBooker(users.get(0));
-        booking.setEnd(LocalDateTime.of(1, 1, 1, 1, 1, 1));
-        booking.setId(1L);
-        booking.setItem(item);
-        booking.setStart(LocalDateTime.of(1, 1, 1, 1, 1, 1));
-        booking.setStatus(Status.WAITING);
-
-        LinkedHashSet<Booking> bookingSet = new LinkedHashSet<>();
-        bookingSet.add(booking);
-        assertEquals(1, BookingMapper.toListBookingResponseDto(bookingSet).size());
-    }
-
-    @Test
-    void testToListBookingResponseDto2() {
-        Iterable<Booking> iterable = mock(Iterable.class);
-        when(iterable.iterator()).thenReturn(MappingIterator.emptyIterator());
-        assertTrue(BookingMapper.toListBookingResponseDto(iterable).isEmpty());
-        verify(iterable).iterator();
-    }
-
     private List<User> createUsers() {
         User user = new User();
         user.setEmail("user1@example.org");
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.common.event.UserDeleted;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final Long BOOKER_ID = 10L;
+    private static final Long OWNER_ID = 20L;
+
+    @Mock
+    private BookingJpaRepository bookingJpaRepository;
+
+    private ItemAvailabilityIndex itemAvailabilityIndex;
+
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemAvailabilityIndex = new ItemAvailabilityIndex();
+        bookingIntervalIndex = new BookingIntervalIndex(bookingJpaRepository, itemAvailabilityIndex);
+        bookingIntervalIndex.rebuild();
+    }
+
+    @Test
+    void isFreeWhenItemHasNoBookings() {
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE, BASE.plusDays(1)));
+    }
+
+    @Test
+    void tryAddWhenPeriodsOverlapThenReturnFalse() {
+        assertTrue(bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusDays(2))));
+
+        assertFalse(bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE.plusDays(1), BASE.plusDays(3))));
+        assertFalse(bookingIntervalIndex.tryAdd(interval(3L, 1L, BASE.minusDays(1), BASE.plusHours(1))));
+        assertFalse(bookingIntervalIndex.tryAdd(interval(4L, 1L, BASE.plusHours(1), BASE.plusHours(2))));
+        assertEquals(1, bookingIntervalIndex.size());
+    }
+
+    @Test
+    void tryAddWhenPeriodsTouchOrBelongToOtherItemThenReturnTrue() {
+        assertTrue(bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusDays(1))));
+
+        assertTrue(bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE.plusDays(1), BASE.plusDays(2))));
+        assertTrue(bookingIntervalIndex.tryAdd(interval(3L, 1L, BASE.minusDays(1), BASE)));
+        assertTrue(bookingIntervalIndex.tryAdd(interval(4L, 2L, BASE, BASE.plusDays(1))));
+    }
+
+    @Test
+    void isFreeWhenLongBookingStartedLongBefore() {
+        bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusDays(30)));
+        bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE.plusDays(31), BASE.plusDays(32)));
+
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusDays(20), BASE.plusDays(21)));
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE.plusDays(30), BASE.plusDays(31)));
+    }
+
+    @Test
+    void removeFreesPeriod() {
+        bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusDays(1)));
+
+        bookingIntervalIndex.remove(1L, 1L);
+
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE, BASE.plusDays(1)));
+        assertEquals(0, bookingIntervalIndex.size());
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void removeKeepsDaysStillCoveredByOtherBookings() {
+        bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusHours(2)));
+        bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE.plusHours(3), BASE.plusDays(1)));
+
+        bookingIntervalIndex.remove(1L, 1L);
+
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusHours(1)).get(1));
+    }
+
+    @Test
+    void rebuildLoadsActiveBookingsFromRepository() {
+        when(bookingJpaRepository.findIntervalsByStatusInAndEndAfter(any(), any()))
+                .thenReturn(List.of(interval(1L, 1L, BASE, BASE.plusDays(1)),
+                        interval(2L, 2L, BASE, BASE.plusDays(1))));
+
+        bookingIntervalIndex.rebuild();
+
+        assertEquals(2, bookingIntervalIndex.size());
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE, BASE.plusHours(1)));
+        assertFalse(bookingIntervalIndex.isFree(2L, BASE, BASE.plusHours(1)));
+    }
+
+    @Test
+    void rebuildKeepsOverlappingBookingsFromDatabase() {
+        when(bookingJpaRepository.findIntervalsByStatusInAndEndAfter(any(), any()))
+                .thenReturn(List.of(interval(1L, 1L, BASE, BASE.plusDays(10)),
+                        interval(2L, 1L, BASE.plusDays(1), BASE.plusDays(2))));
+
+        bookingIntervalIndex.rebuild();
+
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusDays(5), BASE.plusDays(6)));
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusDays(1), BASE.plusDays(2)));
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE.plusDays(10), BASE.plusDays(11)));
+
+        bookingIntervalIndex.remove(1L, 1L);
+
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE.plusDays(5), BASE.plusDays(6)));
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusDays(1), BASE.plusDays(2)));
+    }
+
+    @Test
+    void tryAddWhenItemAlreadyHasTenThousandBookings() {
+        List<BookingInterval> intervals = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            intervals.add(interval(i, 1L, BASE.plusDays(i), BASE.plusDays(i).plusHours(12)));
+        }
+        when(bookingJpaRepository.findIntervalsByStatusInAndEndAfter(any(), any())).thenReturn(intervals);
+        bookingIntervalIndex.rebuild();
+
+        assertFalse(bookingIntervalIndex.tryAdd(interval(10_000L, 1L,
+                BASE.plusDays(5_000).plusHours(6), BASE.plusDays(5_000).plusHours(18))));
+        assertTrue(bookingIntervalIndex.tryAdd(interval(10_001L, 1L,
+                BASE.plusDays(5_000).plusHours(12), BASE.plusDays(5_001))));
+        assertEquals(10_001, bookingIntervalIndex.size());
+    }
+
+    @Test
+    void rebuildKeepsChangesMadeWhileLoading() {
+        BookingInterval added = interval(3L, 1L, BASE.plusDays(5), BASE.plusDays(6));
+        when(bookingJpaRepository.findIntervalsByStatusInAndEndAfter(any(), any())).thenAnswer(invocation -> {
+            assertTrue(bookingIntervalIndex.tryAdd(added));
+            bookingIntervalIndex.remove(1L, 1L);
+            return List.of(interval(1L, 1L, BASE, BASE.plusDays(1)), interval(2L, 2L, BASE, BASE.plusDays(1)));
+        });
+
+        bookingIntervalIndex.rebuild();
+
+        assertEquals(2, bookingIntervalIndex.size());
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE, BASE.plusDays(1)));
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusDays(5), BASE.plusDays(6)));
+        assertFalse(bookingIntervalIndex.isFree(2L, BASE, BASE.plusHours(1)));
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE.plusDays(5), BASE.plusDays(6)).get(1));
+        assertFalse(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusHours(1)).get(1));
+    }
+
+    @Test
+    void checksWaitForFirstLoad() throws InterruptedException {
+        BookingIntervalIndex notLoaded = new BookingIntervalIndex(bookingJpaRepository, itemAvailabilityIndex);
+        when(bookingJpaRepository.findIntervalsByStatusInAndEndAfter(any(), any()))
+                .thenReturn(List.of(interval(1L, 1L, BASE, BASE.plusDays(1))));
+        AtomicReference<Boolean> free = new AtomicReference<>();
+        Thread check = new Thread(() -> free.set(notLoaded.isFree(1L, BASE, BASE.plusHours(1))));
+        check.start();
+
+        check.join(200);
+        assertTrue(check.isAlive());
+
+        notLoaded.rebuild();
+        check.join();
+        assertFalse(free.get());
+    }
+
+    @Test
+    void pruneRemovesEndedBookings() {
+        bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE.minusDays(30), BASE.minusDays(1)));
+        bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE, BASE.plusHours(2)));
+        bookingIntervalIndex.tryAdd(interval(3L, 2L, BASE.minusDays(2), BASE.minusDays(1)));
+
+        assertEquals(2, bookingIntervalIndex.prune(BASE.plusHours(1)));
+
+        assertEquals(1, bookingIntervalIndex.size());
+        assertTrue(bookingIntervalIndex.isFree(2L, BASE.minusDays(2), BASE.minusDays(1)));
+        assertFalse(bookingIntervalIndex.isFree(1L, BASE.plusHours(1), BASE.plusHours(3)));
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE.plusHours(2), BASE.plusDays(1)));
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE.minusDays(2), BASE.minusDays(1)).isEmpty());
+    }
+
+    @Test
+    void userDeletedFreesBookerPeriods() {
+        bookingIntervalIndex.tryAdd(new BookingInterval(1L, 1L, 11L, OWNER_ID, BASE, BASE.plusDays(1)));
+        bookingIntervalIndex.tryAdd(interval(2L, 1L, BASE.plusDays(1), BASE.plusDays(2)));
+
+        bookingIntervalIndex.onEvents(List.of(new UserDeleted(11L)));
+
+        assertTrue(bookingIntervalIndex.tryAdd(interval(3L, 1L, BASE, BASE.plusDays(1))));
+        assertEquals(2, bookingIntervalIndex.size());
+    }
+
+    @Test
+    void userDeletedDropsBookingsOfOwnerItems() {
+        bookingIntervalIndex.tryAdd(interval(1L, 1L, BASE, BASE.plusDays(1)));
+        bookingIntervalIndex.tryAdd(new BookingInterval(2L, 2L, BOOKER_ID, 21L, BASE, BASE.plusDays(1)));
+
+        bookingIntervalIndex.onEvents(List.of(new UserDeleted(OWNER_ID)));
+
+        assertEquals(1, bookingIntervalIndex.size());
+        assertTrue(bookingIntervalIndex.isFree(1L, BASE, BASE.plusDays(1)));
+        assertFalse(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusDays(1)).get(1));
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusDays(1)).get(2));
+    }
+
+    private BookingInterval interval(Long bookingId, Long itemId, LocalDateTime start, LocalDateTime end) {
+        return new BookingInterval(bookingId, itemId, BOOKER_ID, OWNER_ID, start, end);
+    }
+
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemAvailabilityIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private final ItemAvailabilityIndex itemAvailabilityIndex = new ItemAvailabilityIndex();
+
+    @Test
+    void findPossiblyBusyItemsReturnsItemsBookedOnAnyDayOfPeriod() {
+        itemAvailabilityIndex.markBusy(1L, BASE, BASE.plusDays(1));
+        itemAvailabilityIndex.markBusy(2L, BASE.plusDays(5), BASE.plusDays(6));
+        itemAvailabilityIndex.markBusy(3L, BASE.plusDays(2), BASE.plusDays(3));
+
+        BitSet busyItems = itemAvailabilityIndex.findPossiblyBusyItems(BASE.plusDays(1), BASE.plusDays(2));
+
+        assertTrue(busyItems.get(1));
+        assertFalse(busyItems.get(2));
+        assertTrue(busyItems.get(3));
+    }
+
+    @Test
+    void markBusyWhenBookingEndsAtMidnightDoesNotMarkNextDay() {
+        LocalDateTime midnight = BASE.toLocalDate().plusDays(1).atStartOfDay();
+        itemAvailabilityIndex.markBusy(1L, BASE, midnight);
+
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(midnight, midnight.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void unmarkBusyClearsOnlyDaysThatAreNoLongerBusy() {
+        itemAvailabilityIndex.markBusy(1L, BASE, BASE.plusDays(2));
+
+        itemAvailabilityIndex.unmarkBusy(1L, BASE, BASE.plusDays(2), day -> day.equals(BASE.toLocalDate()));
+
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusHours(1)).get(1));
+        assertFalse(itemAvailabilityIndex.findPossiblyBusyItems(BASE.plusDays(1), BASE.plusDays(2)).get(1));
+    }
+
+    @Test
+    void replaceRebuildsAllDays() {
+        itemAvailabilityIndex.markBusy(1L, BASE, BASE.plusDays(1));
+
+        itemAvailabilityIndex.replace(Stream.of(new BookingInterval(1L, 2L, 3L, 4L, BASE.plusDays(3), BASE.plusDays(4))));
+
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusDays(1)).isEmpty());
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE.plusDays(3), BASE.plusDays(4)).get(2));
+    }
+
+    @Test
+    void removeDaysBeforeKeepsCurrentDay() {
+        itemAvailabilityIndex.markBusy(1L, BASE, BASE.plusDays(2));
+
+        itemAvailabilityIndex.removeDaysBefore(BASE.plusDays(1).toLocalDate());
+
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE, BASE.plusHours(1)).isEmpty());
+        assertTrue(itemAvailabilityIndex.findPossiblyBusyItems(BASE.plusDays(1), BASE.plusDays(2)).get(1));
+    }
+
+}
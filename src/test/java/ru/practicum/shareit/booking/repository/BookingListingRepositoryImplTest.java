@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+class BookingListingRepositoryImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingJpaRepository bookingJpaRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(new User(null, "Owner", "owner@example.org"));
+        booker = entityManager.persist(new User(null, "Booker", "booker@example.org"));
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Аккумуляторная дрель");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        entityManager.persist(item);
+        for (int i = 0; i < 7; i++) {
+            Booking booking = new Booking();
+            booking.setStart(NOW.plusDays(i - 3).minusHours(1));
+            booking.setEnd(NOW.plusDays(i - 3).plusHours(11));
+            booking.setItem(item);
+            booking.setOwnerId(item.getOwner().getId());
+            booking.setBooker(booker);
+            booking.setStatus(i % 2 == 0 ? Status.APPROVED : Status.WAITING);
+            bookings.add(entityManager.persist(booking));
+        }
+        Booking sameStart = new Booking();
+        sameStart.setStart(NOW.plusDays(3));
+        sameStart.setEnd(NOW.plusDays(4));
+        sameStart.setItem(item);
+        sameStart.setOwnerId(item.getOwner().getId());
+        sameStart.setBooker(booker);
+        bookings.add(entityManager.persist(sameStart));
+        entityManager.flush();
+    }
+
+    @Test
+    void findBookingsAfterCursorWalksAllPagesInStartDescOrder() {
+        List<Long> ids = new ArrayList<>();
+        BookingCursor cursor = null;
+        List<BookingView> page;
+        do {
+            page = bookingJpaRepository.findBookings(BookingRole.BOOKER, booker.getId(), State.ALL, NOW, cursor, 0, 3);
+            page.forEach(booking -> ids.add(booking.getId()));
+            if (!page.isEmpty()) {
+                BookingView last = page.get(page.size() - 1);
+                cursor = new BookingCursor(last.getStart(), last.getId());
+            }
+        } while (page.size() == 3);
+
+        assertEquals(expectedOrder(), ids);
+    }
+
+    @Test
+    void findBookingsWithOffsetUsesSameOrderAsCursor() {
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < bookings.size(); from += 3) {
+            bookingJpaRepository.findBookings(BookingRole.OWNER, owner.getId(), State.ALL, NOW, null, from, 3)
+                    .forEach(booking -> ids.add(booking.getId()));
+        }
+
+        assertEquals(expectedOrder(), ids);
+    }
+
+    @Test
+    void findBookingsFiltersByState() {
+        for (BookingRole role : BookingRole.values()) {
+            Long userId = role == BookingRole.OWNER ? owner.getId() : booker.getId();
+            assertEquals(4, find(role, userId, State.FUTURE).size());
+            assertEquals(3, find(role, userId, State.PAST).size());
+            assertEquals(1, find(role, userId, State.CURRENT).size());
+            assertEquals(4, find(role, userId, State.WAITING).size());
+            assertEquals(0, find(role, userId, State.REJECTED).size());
+        }
+        assertEquals(0, find(BookingRole.OWNER, booker.getId(), State.ALL).size());
+        assertEquals(0, find(BookingRole.BOOKER, owner.getId(), State.ALL).size());
+    }
+
+    @Test
+    void findBookingsProjectsBookerAndItemFields() {
+        BookingView view = find(BookingRole.BOOKER, booker.getId(), State.CURRENT).get(0);
+
+        assertEquals(booker.getId(), view.getBookerId());
+        assertEquals("Booker", view.getBookerName());
+        assertEquals("booker@example.org", view.getBookerEmail());
+        assertEquals(item.getId(), view.getItemId());
+        assertEquals("Дрель", view.getItemName());
+        assertEquals("Аккумуляторная дрель", view.getItemDescription());
+        assertEquals(true, view.getItemAvailable());
+        assertNull(view.getItemRequestId());
+        assertEquals(Status.WAITING, view.getStatus());
+    }
+
+    @Test
+    void findBookingsForOwnerFollowsItemOwnerChange() {
+        User newOwner = entityManager.persist(new User(null, "New owner", "new.owner@example.org"));
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE items SET owner_id = :ownerId WHERE id = :itemId")
+                .setParameter("ownerId", newOwner.getId())
+                .setParameter("itemId", item.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        assertEquals(0, find(BookingRole.OWNER, owner.getId(), State.ALL).size());
+        assertEquals(bookings.size(), find(BookingRole.OWNER, newOwner.getId(), State.ALL).size());
+        assertEquals(4, find(BookingRole.OWNER, newOwner.getId(), State.WAITING).size());
+    }
+
+    private List<BookingView> find(BookingRole role, Long userId, State state) {
+        return bookingJpaRepository.findBookings(role, userId, state, NOW, null, 0, 10);
+    }
+
+    private List<Long> expectedOrder() {
+        return bookings.stream()
+                .sorted((a, b) -> a.getStart().equals(b.getStart())
+                        ? b.getId().compareTo(a.getId())
+                        : b.getStart().compareTo(a.getStart()))
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class NearestBookingRepositoryImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingJpaRepository bookingJpaRepository;
+
+    private User booker;
+    private Item drill;
+    private Item saw;
+    private Item ladder;
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(new User(null, "Owner", "owner@example.org"));
+        booker = entityManager.persist(new User(null, "Booker", "booker@example.org"));
+        drill = persistItem(owner, "Дрель");
+        saw = persistItem(owner, "Пила");
+        ladder = persistItem(owner, "Стремянка");
+    }
+
+    @Test
+    void findNearestBookingsReturnsLastAndNextForEveryItem() {
+        persistBooking(drill, NOW.minusDays(5), NOW.minusDays(4), Status.APPROVED);
+        Booking drillLast = persistBooking(drill, NOW.minusDays(2), NOW.minusDays(1), Status.APPROVED);
+        Booking drillNext = persistBooking(drill, NOW.plusDays(1), NOW.plusDays(2), Status.WAITING);
+        persistBooking(drill, NOW.plusDays(3), NOW.plusDays(4), Status.APPROVED);
+        Booking sawLast = persistBooking(saw, NOW.minusDays(3), NOW.minusDays(2), Status.APPROVED);
+        Booking sawNext = persistBooking(saw, NOW.plusDays(5), NOW.plusDays(6), Status.APPROVED);
+
+        Map<Long, NearestBookingView> last = find(true);
+        Map<Long, NearestBookingView> next = find(false);
+
+        assertEquals(2, last.size());
+        assertEquals(drillLast.getId(), last.get(drill.getId()).getId());
+        assertEquals(sawLast.getId(), last.get(saw.getId()).getId());
+        assertEquals(booker.getId(), last.get(saw.getId()).getBookerId());
+        assertEquals(2, next.size());
+        assertEquals(drillNext.getId(), next.get(drill.getId()).getId());
+        assertEquals(sawNext.getId(), next.get(saw.getId()).getId());
+        assertFalse(last.containsKey(ladder.getId()));
+    }
+
+    @Test
+    void findNearestBookingsSkipsRejectedBookings() {
+        Booking last = persistBooking(drill, NOW.minusDays(3), NOW.minusDays(2), Status.APPROVED);
+        persistBooking(drill, NOW.minusDays(2), NOW.minusDays(1), Status.REJECTED);
+        persistBooking(drill, NOW.plusDays(1), NOW.plusDays(2), Status.REJECTED);
+        Booking next = persistBooking(drill, NOW.plusDays(2), NOW.plusDays(3), Status.WAITING);
+
+        assertEquals(last.getId(), find(true).get(drill.getId()).getId());
+        assertEquals(next.getId(), find(false).get(drill.getId()).getId());
+    }
+
+    @Test
+    void findNearestBookingsWhenNoItemsThenReturnEmptyList() {
+        assertTrue(bookingJpaRepository.findNearestBookings(List.of(), NOW, NOW).isEmpty());
+    }
+
+    @Test
+    void findNearestBookingsChangeReturnsNextStartOrLastCandidateEndShiftedByWindow() {
+        persistBooking(drill, NOW.minusDays(2), NOW.minusDays(1), Status.APPROVED);
+        persistBooking(drill, NOW.minusHours(1), NOW.plusHours(3), Status.APPROVED);
+        persistBooking(drill, NOW.plusHours(2), NOW.plusHours(5), Status.REJECTED);
+        persistBooking(drill, NOW.plusHours(4), NOW.plusHours(6), Status.WAITING);
+        persistBooking(saw, NOW.plusHours(1), NOW.plusHours(10), Status.WAITING);
+        entityManager.flush();
+
+        assertEquals(Optional.of(NOW.plusHours(2)),
+                bookingJpaRepository.findNearestBookingsChange(drill.getId(), NOW.plusHours(1), NOW));
+        assertEquals(Optional.of(NOW.plusHours(1)),
+                bookingJpaRepository.findNearestBookingsChange(saw.getId(), NOW.plusHours(1), NOW));
+        assertEquals(Optional.empty(),
+                bookingJpaRepository.findNearestBookingsChange(ladder.getId(), NOW.plusHours(1), NOW));
+    }
+
+    @Test
+    void findNearestBookingsChangesReturnsChangeForEveryItemWithCandidates() {
+        persistBooking(drill, NOW.minusHours(1), NOW.plusHours(3), Status.APPROVED);
+        persistBooking(drill, NOW.plusHours(2), NOW.plusHours(5), Status.REJECTED);
+        persistBooking(drill, NOW.plusHours(4), NOW.plusHours(6), Status.WAITING);
+        persistBooking(saw, NOW.plusHours(1), NOW.plusHours(10), Status.WAITING);
+        entityManager.flush();
+
+        Map<Long, LocalDateTime> changes = bookingJpaRepository
+                .findNearestBookingsChanges(List.of(drill.getId(), saw.getId(), ladder.getId()), NOW, NOW);
+
+        assertEquals(2, changes.size());
+        assertEquals(NOW.plusHours(3), changes.get(drill.getId()));
+        assertEquals(NOW.plusHours(1), changes.get(saw.getId()));
+        assertTrue(bookingJpaRepository.findNearestBookingsChanges(List.of(), NOW, NOW).isEmpty());
+    }
+
+    private Map<Long, NearestBookingView> find(boolean last) {
+        entityManager.flush();
+        return bookingJpaRepository
+                .findNearestBookings(List.of(drill.getId(), saw.getId(), ladder.getId()), NOW, NOW)
+                .stream()
+                .filter(view -> view.isLast() == last)
+                .collect(Collectors.toMap(NearestBookingView::getItemId, Function.identity()));
+    }
+
+    private Item persistItem(User owner, String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return entityManager.persist(item);
+    }
+
+    private Booking persistBooking(Item item, LocalDateTime start, LocalDateTime end, Status status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setOwnerId(item.getOwner().getId());
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return entityManager.persist(booking);
+    }
+
+}
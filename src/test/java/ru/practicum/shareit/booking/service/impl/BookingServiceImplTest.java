@@ -1,20 +1,33 @@
 package ru.practicum.shareit.booking.service.impl;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.booking.stream.BookingEventRegistry;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.event.BookingCreated;
+import ru.practicum.shareit.common.event.BookingStatusChanged;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
+import ru.practicum.shareit.common.KnownIdFilter;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserJpaRepository;
 
@@ -22,11 +35,18 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,10 +58,32 @@ class BookingServiceImplTest {
     private UserJpaRepository userJpaRepository;
     @Mock
     private BookingJpaRepository bookingJpaRepository;
+    @Mock
+    private ItemRequestJpaRepository itemRequestJpaRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookingEventRegistry bookingEventRegistry;
+    @Mock
+    private ItemPageCache itemPageCache;
+    @Mock
+    private DomainEventPublisher domainEventPublisher;
+    @Mock
+    private OwnerItemSummaryUpdater ownerItemSummaryUpdater;
 
-    @InjectMocks
     private BookingServiceImpl bookingService;
 
+    @BeforeEach
+    void setUp() {
+        EntityLoader entityLoader = new EntityLoader(userJpaRepository,
+                itemJpaRepository,
+                bookingJpaRepository,
+                itemRequestJpaRepository,
+                new KnownIdFilter(userJpaRepository, itemJpaRepository));
+        bookingService = new BookingServiceImpl(bookingJpaRepository, entityLoader, bookingIntervalIndex,
+                bookingEventRegistry, itemPageCache, domainEventPublisher, ownerItemSummaryUpdater);
+    }
+
     @Test
     void findBookingsByUserIdForAllState() {
         Long userId = 1L;
@@ -56,11 +98,13 @@ class BookingServiceImplTest {
         booking.setBooker(user);
         booking.setItem(item);
         List<Booking> bookings = Collections.singletonList(booking);
-        when(userJpaRepository.existsById(userId)).thenReturn(true);
-        when(bookingJpaRepository.findBookingByBookerId(any(), any())).thenReturn(bookings);
+        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(State.ALL), any(), any(),
+                eq(0), eq(10)))
+                .thenReturn(toViews(bookings));
 
         List<BookingResponseDto> actualBookings =
-                bookingService.findBookingsByUserId(userId, state, from, size);
+                bookingService.findBookingsByUserId(userId, state, from, size, null);
 
         assertEquals(bookings.get(0).getId(), actualBookings.get(0).getId());
     }
@@ -87,10 +131,11 @@ class BookingServiceImplTest {
         booking.setBooker(users.get(1));
         booking.setStatus(Status.WAITING);
         List<Booking> bookings = Collections.singletonList(booking);
-        when(userJpaRepository.existsById(userId)).thenReturn(true);
-        when(bookingJpaRepository.findBookingByBookerIdAndStartIsAfter(any(), any(), any()))
-                .thenReturn(bookings);
-        List<BookingResponseDto> result = bookingService.findBookingsByUserId(userId, state, from, size);
+        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(State.FUTURE), any(), any(),
+                eq(0), eq(10)))
+                .thenReturn(toViews(bookings));
+        List<BookingResponseDto> result = bookingService.findBookingsByUserId(userId, state, from, size, null);
 
         assertEquals(bookings.get(0).getId(), result.get(0).getId());
     }
@@ -112,12 +157,12 @@ class BookingServiceImplTest {
         booking.setItem(item);
         booking.setStatus(Status.WAITING);
         List<Booking> bookings = Collections.singletonList(booking);
-        when(userJpaRepository.existsById(userId)).thenReturn(true);
-        when(bookingJpaRepository.findBookingByBookerIdAndStatusEquals(
-                userId, Status.WAITING, PageRequest.of(from / size, size)))
-                .thenReturn(bookings);
+        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(State.WAITING), any(),
+                eq(null), eq(0), eq(10)))
+                .thenReturn(toViews(bookings));
         List<BookingResponseDto> result =
-                bookingService.findBookingsByUserId(userId, state, from, size);
+                bookingService.findBookingsByUserId(userId, state, from, size, null);
         assertEquals(1, result.size());
         assertEquals(booking.getId(), result.get(0).getId());
     }
@@ -135,12 +180,12 @@ class BookingServiceImplTest {
 
         Booking booking = createBooking(item, users.get(1));
         List<Booking> bookings = List.of(booking);
-        when(userJpaRepository.existsById(userId)).thenReturn(true);
-        when(bookingJpaRepository.findBookingByBookerIdAndStartIsBeforeAndEndIsAfter(
-                any(), any(), any(), any()))
-                .thenReturn(bookings);
+        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.BOOKER), eq(userId), eq(State.CURRENT), any(), any(),
+                eq(0), eq(10)))
+                .thenReturn(toViews(bookings));
         List<BookingResponseDto> result =
-                bookingService.findBookingsByUserId(userId, state, from, size);
+                bookingService.findBookingsByUserId(userId, state, from, size, null);
         assertEquals(booking.getId(), result.get(0).getId());
     }
 
@@ -153,9 +198,9 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, users.get(0));
         booking.setStatus(Status.WAITING);
         bookingJpaRepository.save(booking);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
         Iterable<BookingResponseDto> bookings =
-                bookingService.findBookingsByOwnerId(1L, "WAITING", 0, 10);
+                bookingService.findBookingsByOwnerId(1L, "WAITING", 0, 10, null);
 
         assertEquals(1, List.of(bookings).size());
     }
@@ -168,9 +213,9 @@ class BookingServiceImplTest {
         itemJpaRepository.save(item);
         Booking booking = createBooking(item, users.get(0));
         bookingJpaRepository.save(booking);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
         Iterable<BookingResponseDto> bookings =
-                bookingService.findBookingsByOwnerId(1L, "FUTURE", 0, 10);
+                bookingService.findBookingsByOwnerId(1L, "FUTURE", 0, 10, null);
 
         assertEquals(1, List.of(bookings).size());
     }
@@ -186,8 +231,8 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, user);
         bookingJpaRepository.save(booking);
 
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        Iterable<BookingResponseDto> bookings = bookingService.findBookingsByOwnerId(user.getId(), "ALL", 0, 10);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        Iterable<BookingResponseDto> bookings = bookingService.findBookingsByOwnerId(user.getId(), "ALL", 0, 10, null);
         assertEquals(1, List.of(bookings).size());
     }
 
@@ -203,9 +248,9 @@ class BookingServiceImplTest {
         booking.setStatus(Status.APPROVED);
         bookingJpaRepository.save(booking);
 
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
         Iterable<BookingResponseDto> bookings =
-                bookingService.findBookingsByOwnerId(users.get(0).getId(), "PAST", 0, 1);
+                bookingService.findBookingsByOwnerId(users.get(0).getId(), "PAST", 0, 1, null);
         assertEquals(1, List.of(bookings).size());
     }
 
@@ -219,14 +264,77 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, users.get(0));
         booking.setStatus(Status.APPROVED);
         bookingJpaRepository.save(booking);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
 
         Iterable<BookingResponseDto> bookings =
-                bookingService.findBookingsByOwnerId(users.get(0).getId(), "CURRENT", 0, 10);
+                bookingService.findBookingsByOwnerId(users.get(0).getId(), "CURRENT", 0, 10, null);
 
         assertEquals(1, List.of(bookings).size());
     }
 
+    @Test
+    void findBookingsByUserIdAfterCursorUsesSeekQuery() {
+        List<User> users = createUsers();
+        Item item = createItem(users.get(0));
+        Booking booking = createBooking(item, users.get(1));
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2030, 1, 1, 10, 0), 5L);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.BOOKER), eq(2L), eq(State.PAST), any(), any(),
+                eq(0), eq(10)))
+                .thenReturn(toViews(List.of(booking)));
+
+        List<BookingResponseDto> result = bookingService.findBookingsByUserId(2L, "PAST", 0, 10, cursor.encode());
+
+        assertEquals(1, result.size());
+        verify(bookingJpaRepository).findBookings(eq(BookingRole.BOOKER), eq(2L), eq(State.PAST), any(),
+                argThat(after -> after.getId().equals(5L) && after.getStart().equals(cursor.getStart())),
+                eq(0), eq(10));
+    }
+
+    @Test
+    void findBookingsByOwnerIdAfterCursorUsesSeekQuery() {
+        List<User> users = createUsers();
+        Item item = createItem(users.get(0));
+        Booking booking = createBooking(item, users.get(1));
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2030, 1, 1, 10, 0), 5L);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(bookingJpaRepository.findBookings(eq(BookingRole.OWNER), eq(1L), eq(State.WAITING), any(), any(),
+                eq(0), eq(10)))
+                .thenReturn(toViews(List.of(booking)));
+
+        List<BookingResponseDto> result = bookingService.findBookingsByOwnerId(1L, "WAITING", 0, 10, cursor.encode());
+
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void findBookingsByUserIdWhenFromIsNotPageAlignedThenOffsetIsRoundedDownToPage() {
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+
+        bookingService.findBookingsByUserId(1L, "ALL", 25, 10, null);
+
+        verify(bookingJpaRepository).findBookings(eq(BookingRole.BOOKER), eq(1L), eq(State.ALL),
+                any(LocalDateTime.class), eq(null), eq(20), eq(10));
+    }
+
+    @Test
+    void findBookingsByUserIdWhenCursorIsMalformedThenThrowBadRequestException() {
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.findBookingsByUserId(1L, "ALL", 0, 10, "not-a-cursor"));
+    }
+
+    @Test
+    void findBookingsByOwnerIdWhenStateIsUnknownThenThrowBadRequestException() {
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.findBookingsByOwnerId(1L, "UNSUPPORTED", 0, 10, null));
+    }
+
     @Test
     void addBookingWhenStartTimeIsEqualToEndTimeThenThrowBadRequestException() {
         BookingRequestDto bookingRequestDto = new BookingRequestDto();
@@ -253,6 +361,19 @@ class BookingServiceImplTest {
                 () -> bookingService.addBooking(bookingRequestDto, userId));
     }
 
+    @Test
+    void addBookingWhenPeriodIsTooLongThenThrowBadRequestException() {
+        BookingRequestDto bookingRequestDto = new BookingRequestDto();
+        bookingRequestDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingRequestDto.setEnd(LocalDateTime.of(9999, 12, 31, 0, 0));
+        bookingRequestDto.setItemId(1L);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.addBooking(bookingRequestDto, 1L));
+        verifyNoInteractions(bookingJpaRepository);
+    }
+
     @Test
     void addBookingWhenStartTimeIsBeforeCurrentTimeThenThrowBadRequestException() {
         BookingRequestDto bookingRequestDto = new BookingRequestDto();
@@ -273,7 +394,7 @@ class BookingServiceImplTest {
         bookingRequestDto.setStart(LocalDateTime.now().plusHours(1));
         bookingRequestDto.setEnd(LocalDateTime.now().plusDays(1));
         Long userId = 1L;
-        when(itemJpaRepository.existsById(bookingRequestDto.getItemId())).thenReturn(false);
+        when(itemJpaRepository.findById(bookingRequestDto.getItemId())).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -294,20 +415,68 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, users.get(1));
         booking.setStatus(Status.APPROVED);
 
-        when(itemJpaRepository.getReferenceById(any())).thenReturn(item);
+        when(itemJpaRepository.findById(any())).thenReturn(Optional.of(item));
         when(bookingJpaRepository.save(any())).thenReturn(booking);
-        when(itemJpaRepository.existsById(any())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(bookingIntervalIndex.isFree(any(), any(), any())).thenReturn(true);
+        when(bookingIntervalIndex.tryAdd(any())).thenReturn(true);
         BookingResponseDto bookingResponseDto =
                 bookingService.addBooking(bookingRequestDto, users.get(1).getId());
         assertEquals(booking.getId(), bookingResponseDto.getId());
+        verify(bookingIntervalIndex).tryAdd(any());
+        verify(bookingEventRegistry).publish(bookingResponseDto, users.get(0).getId());
+        verify(ownerItemSummaryUpdater).bookingAdded(booking);
+        verify(itemPageCache).invalidate(item.getId());
+        verify(domainEventPublisher).publish(new BookingCreated(booking.getId(), item.getId(), users.get(1).getId()));
+    }
+
+    @Test
+    void addBookingWhenItemIsAlreadyBookedThenThrowBadRequestException() {
+        BookingRequestDto bookingRequestDto = new BookingRequestDto();
+        bookingRequestDto.setItemId(1L);
+        bookingRequestDto.setStart(LocalDateTime.now().plusHours(1));
+        bookingRequestDto.setEnd(LocalDateTime.now().plusDays(1));
+
+        List<User> users = createUsers();
+        Item item = createItem(users.get(0));
+
+        when(itemJpaRepository.findById(any())).thenReturn(Optional.of(item));
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(bookingIntervalIndex.isFree(any(), any(), any())).thenReturn(false);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.addBooking(bookingRequestDto, users.get(1).getId()));
+        verify(bookingJpaRepository, never()).save(any());
+    }
+
+    @Test
+    void addBookingWhenConcurrentBookingWinsThenThrowBadRequestException() {
+        BookingRequestDto bookingRequestDto = new BookingRequestDto();
+        bookingRequestDto.setItemId(1L);
+        bookingRequestDto.setStart(LocalDateTime.now().plusHours(1));
+        bookingRequestDto.setEnd(LocalDateTime.now().plusDays(1));
+
+        List<User> users = createUsers();
+        Item item = createItem(users.get(0));
+        Booking booking = createBooking(item, users.get(1));
+
+        when(itemJpaRepository.findById(any())).thenReturn(Optional.of(item));
+        when(bookingJpaRepository.save(any())).thenReturn(booking);
+        when(userJpaRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(bookingIntervalIndex.isFree(any(), any(), any())).thenReturn(true);
+        when(bookingIntervalIndex.tryAdd(any())).thenReturn(false);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.addBooking(bookingRequestDto, users.get(1).getId()));
     }
 
     @Test
     void updateBookingWhenBookingIdOrUserIdIsInvalidThenThrowNotFoundException() {
         Long bookingId = 1L;
         Long userId = 1L;
-        when(bookingJpaRepository.existsById(bookingId)).thenReturn(false);
+        when(bookingJpaRepository.findWithItemAndBookerById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -323,9 +492,7 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, users.get(1));
         booking.setStatus(Status.APPROVED);
 
-        when(bookingJpaRepository.getReferenceById(booking.getId())).thenReturn(booking);
-        when(bookingJpaRepository.existsById(booking.getId())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
+        when(bookingJpaRepository.findWithItemAndBookerById(booking.getId())).thenReturn(Optional.of(booking));
 
         assertThrows(
                 BadRequestException.class,
@@ -341,9 +508,7 @@ class BookingServiceImplTest {
         Booking booking = createBooking(item, users.get(1));
         booking.setStatus(Status.APPROVED);
 
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.getReferenceById(any())).thenReturn(booking);
+        when(bookingJpaRepository.findWithItemAndBookerById(any())).thenReturn(Optional.of(booking));
 
         assertThrows(
                 NotFoundException.class,
@@ -358,15 +523,18 @@ class BookingServiceImplTest {
 
         Booking booking = createBooking(item, users.get(1));
 
-        when(bookingJpaRepository.existsById(any())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.getReferenceById(any())).thenReturn(booking);
+        when(bookingJpaRepository.findWithItemAndBookerById(any())).thenReturn(Optional.of(booking));
         when(bookingJpaRepository.save(booking)).thenReturn(booking);
 
         BookingResponseDto bookingResponseDto =
                 bookingService.updateBooking(users.get(0).getId(), booking.getId(), true);
 
         assertEquals(Status.APPROVED, bookingResponseDto.getStatus());
+        verify(bookingEventRegistry).publish(bookingResponseDto, users.get(0).getId());
+        verify(ownerItemSummaryUpdater).bookingStatusChanged(booking, Status.WAITING);
+        verify(itemPageCache).invalidate(item.getId());
+        verify(domainEventPublisher)
+                .publish(new BookingStatusChanged(booking.getId(), item.getId(), Status.APPROVED));
     }
 
     @Test
@@ -377,20 +545,38 @@ class BookingServiceImplTest {
 
         Booking booking = createBooking(item, users.get(1));
 
-        when(bookingJpaRepository.existsById(any())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.getReferenceById(any())).thenReturn(booking);
+        when(bookingJpaRepository.findWithItemAndBookerById(any())).thenReturn(Optional.of(booking));
         when(bookingJpaRepository.save(booking)).thenReturn(booking);
 
         BookingResponseDto bookingResponseDto =
                 bookingService.updateBooking(users.get(0).getId(), booking.getId(), false);
 
         assertEquals(Status.REJECTED, bookingResponseDto.getStatus());
+        verify(bookingIntervalIndex).remove(item.getId(), booking.getId());
+        verify(ownerItemSummaryUpdater).bookingStatusChanged(booking, Status.WAITING);
+    }
+
+    @Test
+    void updateBookingToApprovedWhenRejectedBookingPeriodIsTakenThenThrowBadRequestException() {
+        List<User> users = createUsers();
+
+        Item item = createItem(users.get(0));
+
+        Booking booking = createBooking(item, users.get(1));
+        booking.setStatus(Status.REJECTED);
+
+        when(bookingJpaRepository.findWithItemAndBookerById(any())).thenReturn(Optional.of(booking));
+        when(bookingIntervalIndex.tryAdd(any())).thenReturn(false);
+
+        assertThrows(
+                BadRequestException.class,
+                () -> bookingService.updateBooking(users.get(0).getId(), booking.getId(), true));
+        assertEquals(Status.REJECTED, booking.getStatus());
     }
 
     @Test
     void findBookingWhenInvalidIdsThenThrowNotFoundException() {
-        when(bookingJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(bookingJpaRepository.findViewById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
@@ -405,9 +591,7 @@ class BookingServiceImplTest {
 
         Booking booking = createBooking(item, users.get(1));
 
-        when(bookingJpaRepository.existsById(any())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.getReferenceById(any())).thenReturn(booking);
+        when(bookingJpaRepository.findViewById(any())).thenReturn(Optional.of(toView(booking)));
         assertThrows(
                 NotFoundException.class,
                 () -> bookingService.findBooking(3L, booking.getId()));
@@ -421,9 +605,7 @@ class BookingServiceImplTest {
 
         Booking booking = createBooking(item, users.get(1));
 
-        when(bookingJpaRepository.existsById(any())).thenReturn(true);
-        when(userJpaRepository.existsById(any())).thenReturn(true);
-        when(bookingJpaRepository.getReferenceById(any())).thenReturn(booking);
+        when(bookingJpaRepository.findViewById(any())).thenReturn(Optional.of(toView(booking)));
         BookingResponseDto bookingResponseDto =
                 bookingService.findBooking(users.get(0).getId(), booking.getId());
         assertEquals(booking.getId(), bookingResponseDto.getId());
@@ -472,4 +654,27 @@ class BookingServiceImplTest {
         return booking;
     }
 
-}
\ No newline at end of file
+
+    private List<BookingView> toViews(List<Booking> bookings) {
+        return bookings.stream()
+                .map(this::toView)
+                .collect(Collectors.toList());
+    }
+
+    private BookingView toView(Booking booking) {
+        return new BookingView(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getBooker().getId(),
+                booking.getBooker().getName(),
+                booking.getBooker().getEmail(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getItem().getDescription(),
+                booking.getItem().getAvailable(),
+                null,
+                booking.getItem().getOwner().getId());
+    }
+}
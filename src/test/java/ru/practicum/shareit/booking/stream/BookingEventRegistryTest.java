@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingEventRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BookingEventRegistry bookingEventRegistry;
+
+    @BeforeEach
+    void setUp() {
+        bookingEventRegistry = new BookingEventRegistry();
+        bookingEventRegistry.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingEventRegistry.shutdown();
+    }
+
+    @Test
+    void publishSendsBookingToBookerAndOwner() {
+        bookingEventRegistry.subscribe(1L);
+        bookingEventRegistry.subscribe(2L);
+        bookingEventRegistry.subscribe(3L);
+
+        bookingEventRegistry.publish(booking(1L), 2L);
+
+        assertEquals(3, bookingEventRegistry.subscriberCount());
+        assertEquals(2, sentEvents());
+    }
+
+    @Test
+    void subscribeClosesOldestSubscriptionOverLimit() {
+        for (int i = 0; i <= BookingEventRegistry.MAX_SUBSCRIPTIONS_PER_USER; i++) {
+            bookingEventRegistry.subscribe(1L);
+        }
+
+        bookingEventRegistry.publish(booking(1L), 2L);
+
+        assertEquals(BookingEventRegistry.MAX_SUBSCRIPTIONS_PER_USER, bookingEventRegistry.subscriberCount());
+        assertEquals(BookingEventRegistry.MAX_SUBSCRIPTIONS_PER_USER, sentEvents());
+    }
+
+    @Test
+    void publishDropsClosedSubscriptions() {
+        SseEmitter closed = bookingEventRegistry.subscribe(1L);
+        bookingEventRegistry.subscribe(1L);
+        closed.complete();
+
+        bookingEventRegistry.publish(booking(1L), 2L);
+
+        assertEquals(1, bookingEventRegistry.subscriberCount());
+        assertEquals(1, sentEvents());
+    }
+
+    @Test
+    void publishWithoutSubscribersDoesNothing() {
+        bookingEventRegistry.publish(booking(1L), 2L);
+
+        assertEquals(0, bookingEventRegistry.subscriberCount());
+        assertEquals(0, sentEvents());
+    }
+
+    private double sentEvents() {
+        return meterRegistry.get("shareit.booking.stream.events").functionCounter().count();
+    }
+
+    private static BookingResponseDto booking(Long bookerId) {
+        UserDto booker = new UserDto();
+        booker.setId(bookerId);
+        BookingResponseDto booking = new BookingResponseDto();
+        booking.setId(10L);
+        booking.setBooker(booker);
+        return booking;
+    }
+
+}
@@ -55,6 +55,18 @@ class CommentMapperTest {
         assertEquals("0001-01-01", commentResponseDto.getCreated().toLocalDate().toString());
     }
 
+    @Test
+    void testToCommentResponseDtoFromView() {
+        CommentView comment = new CommentView(1L, 2L, "Text", "User1", LocalDateTime.of(1, 1, 1, 1, 1));
+
+        CommentResponseDto commentResponseDto = CommentMapper.toCommentResponseDto(comment);
+
+        assertEquals("User1", commentResponseDto.getAuthorName());
+        assertEquals("Text", commentResponseDto.getText());
+        assertEquals(1L, commentResponseDto.getId());
+        assertEquals(LocalDateTime.of(1, 1, 1, 1, 1), commentResponseDto.getCreated());
+    }
+
     private List<User> createUsers() {
         User user = new User();
         user.setEmail("user1@example.org");
@@ -11,15 +11,23 @@ import ru.practicum.shareit.comment.dto.CommentRequestDto;
 import ru.practicum.shareit.comment.dto.CommentResponseDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentJpaRepository;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.common.event.CommentPosted;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserJpaRepository;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -28,10 +36,13 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-@ContextConfiguration(classes = {CommentServiceImpl.class})
+@ContextConfiguration(classes = {CommentServiceImpl.class, EntityLoader.class, KnownIdFilter.class})
 @ExtendWith(SpringExtension.class)
 class CommentServiceImplTest {
 
+    @MockBean
+    private ItemRequestJpaRepository itemRequestJpaRepository;
+
     @MockBean
     private BookingJpaRepository bookingJpaRepository;
 
@@ -47,14 +58,22 @@ class CommentServiceImplTest {
     @MockBean
     private UserJpaRepository userJpaRepository;
 
+    @MockBean
+    private ItemPageCache itemPageCache;
+
+    @MockBean
+    private DomainEventPublisher domainEventPublisher;
+
+    @MockBean
+    private OwnerItemSummaryUpdater ownerItemSummaryUpdater;
+
     @Test
     void testPostComment() {
         when(bookingJpaRepository.existsByBookerIdAndItemIdAndEndIsBefore(anyLong(), anyLong(), any()))
                 .thenReturn(true);
 
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -63,8 +82,7 @@ class CommentServiceImplTest {
         ItemRequest itemRequest = createRequest(user2);
 
         Item item = createItem(user1, itemRequest);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         User user3 = createUser();
 
@@ -87,11 +105,12 @@ class CommentServiceImplTest {
         assertEquals(1L, postComment.getId());
         assertEquals("0001-01-01", postComment.getCreated().toLocalDate().toString());
         verify(bookingJpaRepository).existsByBookerIdAndItemIdAndEndIsBefore(anyLong(), anyLong(), any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
         verify(commentJpaRepository).save(any());
+        verify(ownerItemSummaryUpdater).commentPosted(1L);
+        verify(itemPageCache).invalidate(1L);
+        verify(domainEventPublisher).publish(new CommentPosted(1L, 1L, 1L));
     }
 
     @Test
@@ -100,8 +119,7 @@ class CommentServiceImplTest {
                 .thenReturn(true);
 
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -110,8 +128,7 @@ class CommentServiceImplTest {
         ItemRequest itemRequest = createRequest(user2);
 
         Item item = createItem(user1, itemRequest);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(commentJpaRepository.save(any())).thenThrow(new NotFoundException("An error occurred"));
 
         CommentRequestDto commentRequestDto = new CommentRequestDto();
@@ -119,10 +136,8 @@ class CommentServiceImplTest {
         assertThrows(NotFoundException.class,
                 () -> commentServiceImpl.postComment(1L, 1L, commentRequestDto));
         verify(bookingJpaRepository).existsByBookerIdAndItemIdAndEndIsBefore(anyLong(), anyLong(), any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
         verify(commentJpaRepository).save(any());
     }
 
@@ -132,8 +147,7 @@ class CommentServiceImplTest {
                 .thenReturn(false);
 
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -142,8 +156,7 @@ class CommentServiceImplTest {
         ItemRequest itemRequest = createRequest(user2);
 
         Item item = createItem(user1, itemRequest);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         User user3 = createUser();
 
@@ -163,8 +176,8 @@ class CommentServiceImplTest {
         assertThrows(BadRequestException.class,
                 () -> commentServiceImpl.postComment(1L, 1L, commentRequestDto));
         verify(bookingJpaRepository).existsByBookerIdAndItemIdAndEndIsBefore(anyLong(), anyLong(), any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
     }
 
     @Test
@@ -173,8 +186,8 @@ class CommentServiceImplTest {
                 .thenReturn(true);
 
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         User user1 = createUser();
 
@@ -183,8 +196,7 @@ class CommentServiceImplTest {
         ItemRequest itemRequest = createRequest(user2);
 
         Item item = createItem(user1, itemRequest);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         User user3 = createUser();
 
@@ -202,8 +214,8 @@ class CommentServiceImplTest {
         CommentRequestDto commentRequestDto = new CommentRequestDto();
         commentRequestDto.setText("Text");
         assertThrows(NotFoundException.class, () -> commentServiceImpl.postComment(1L, 1L, commentRequestDto));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
     }
 
     @Test
@@ -212,8 +224,7 @@ class CommentServiceImplTest {
                 .thenReturn(true);
 
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -222,8 +233,8 @@ class CommentServiceImplTest {
         ItemRequest itemRequest = createRequest(user2);
 
         Item item = createItem(user1, itemRequest);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         User user3 = createUser();
 
@@ -242,7 +253,7 @@ class CommentServiceImplTest {
         commentRequestDto.setText("Text");
         assertThrows(NotFoundException.class,
                 () -> commentServiceImpl.postComment(1L, 1L, commentRequestDto));
-        verify(itemJpaRepository).existsById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
     }
 
     private User createUser() {
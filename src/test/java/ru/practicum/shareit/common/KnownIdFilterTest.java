@@ -0,0 +1,157 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.user.repository.UserJpaRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KnownIdFilterTest {
+
+    @Mock
+    private UserJpaRepository userJpaRepository;
+
+    @Mock
+    private ItemJpaRepository itemJpaRepository;
+
+    private KnownIdFilter knownIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        knownIdFilter = new KnownIdFilter(userJpaRepository, itemJpaRepository);
+    }
+
+    @Test
+    void mightContainAnyIdBeforeRebuild() {
+        assertTrue(knownIdFilter.mightContainUser(100L));
+        assertTrue(knownIdFilter.mightContainItem(100L));
+        assertFalse(knownIdFilter.mightContainUser(0L));
+        assertFalse(knownIdFilter.mightContainItem(null));
+    }
+
+    @Test
+    void missingIdsBelowMaximumAreCheckedInDatabase() {
+        rebuild(List.of(1L, 3L), List.of(2L));
+
+        assertTrue(knownIdFilter.mightContainUser(1L));
+        assertTrue(knownIdFilter.mightContainUser(2L));
+        assertTrue(knownIdFilter.mightContainUser(3L));
+        assertTrue(knownIdFilter.mightContainItem(1L));
+        assertTrue(knownIdFilter.mightContainItem(2L));
+        verify(userJpaRepository, never()).findIdsAfter(any());
+        verify(itemJpaRepository, never()).findIdsAfter(any());
+    }
+
+    @Test
+    void idsAboveMaximumAreRejectedOnlyRightAfterCatchUp() {
+        rebuild(List.of(1L), List.of(1L));
+        when(userJpaRepository.findIdsAfter(1L)).thenReturn(List.of(3L));
+        when(itemJpaRepository.findIdsAfter(1L)).thenReturn(List.of());
+
+        assertTrue(knownIdFilter.mightContainUser(3L));
+        assertTrue(knownIdFilter.mightContainUser(2L));
+        assertTrue(knownIdFilter.mightContainUser(4L));
+        assertFalse(knownIdFilter.mightContainItem(Long.MAX_VALUE));
+        assertTrue(knownIdFilter.mightContainItem(2L));
+
+        verify(userJpaRepository).findIdsAfter(1L);
+        verify(itemJpaRepository).findIdsAfter(1L);
+    }
+
+    @Test
+    void idInsertedOutOfOrderByOtherInstanceIsNotRejected() {
+        rebuild(List.of(), List.of());
+        knownIdFilter.addItem(51L);
+
+        assertTrue(knownIdFilter.mightContainItem(50L));
+        verify(itemJpaRepository, never()).findIdsAfter(any());
+    }
+
+    @Test
+    void addedIdsAreKnown() {
+        rebuild(List.of(5L), List.of(5L));
+
+        knownIdFilter.addUser(2L);
+        knownIdFilter.addItem(3L);
+        knownIdFilter.addItem(7L);
+
+        assertTrue(knownIdFilter.mightContainUser(2L));
+        assertTrue(knownIdFilter.mightContainItem(3L));
+        assertTrue(knownIdFilter.mightContainItem(7L));
+        assertTrue(knownIdFilter.mightContainItem(2L));
+        assertTrue(knownIdFilter.mightContainItem(6L));
+        verifyNoMoreInteractions(itemJpaRepository);
+    }
+
+    @Test
+    void removedUserIsRejected() {
+        rebuild(List.of(1L, 2L), List.of());
+
+        knownIdFilter.onEvents(List.of(new UserDeleted(1L)));
+
+        assertFalse(knownIdFilter.mightContainUser(1L));
+        assertTrue(knownIdFilter.mightContainUser(2L));
+    }
+
+    @Test
+    void rebuildKeepsIdsAddedBeforeIt() {
+        knownIdFilter.addUser(4L);
+
+        rebuild(List.of(1L, 5L), List.of());
+
+        assertTrue(knownIdFilter.mightContainUser(4L));
+        assertTrue(knownIdFilter.mightContainUser(5L));
+    }
+
+    @Test
+    void removedIdStaysRejectedAfterCatchUp() {
+        rebuild(List.of(1L), List.of());
+        knownIdFilter.onEvents(List.of(new UserDeleted(1L)));
+        when(userJpaRepository.findIdsAfter(1L)).thenReturn(List.of(2L));
+
+        assertTrue(knownIdFilter.mightContainUser(2L));
+        assertFalse(knownIdFilter.mightContainUser(1L));
+    }
+
+    @Test
+    void exposesLookupMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        knownIdFilter.bindTo(registry);
+        rebuild(List.of(1L, 3L), List.of(1L));
+
+        knownIdFilter.mightContainUser(1L);
+        knownIdFilter.mightContainUser(2L);
+        knownIdFilter.onEvents(List.of(new UserDeleted(3L)));
+        knownIdFilter.mightContainUser(3L);
+        knownIdFilter.mightContainUser(-1L);
+        knownIdFilter.userFalsePositive();
+
+        assertEquals(2, registry.get("shareit.known.ids.lookups")
+                .tags("entity", "user", "result", "maybe").functionCounter().count());
+        assertEquals(2, registry.get("shareit.known.ids.lookups")
+                .tags("entity", "user", "result", "absent").functionCounter().count());
+        assertEquals(1, registry.get("shareit.known.ids.false.positives")
+                .tag("entity", "user").functionCounter().count());
+        assertEquals(0, registry.get("shareit.known.ids.false.positives")
+                .tag("entity", "item").functionCounter().count());
+        assertEquals(1, registry.get("shareit.known.ids.size")
+                .tag("entity", "item").gauge().value());
+    }
+
+    private void rebuild(List<Long> userIds, List<Long> itemIds) {
+        when(userJpaRepository.findAllIds()).thenReturn(userIds);
+        when(itemJpaRepository.findAllIds()).thenReturn(itemIds);
+        knownIdFilter.rebuild();
+    }
+
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.common.cache;
+
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.common.event.UserUpdated;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class EntityCacheTest {
+
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityCacheEvictor entityCacheEvictor;
+
+    private CacheRegionStatistics users;
+
+    @BeforeEach
+    void setUp() {
+        users = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics(User.CACHE_REGION);
+    }
+
+    @Test
+    void repeatedUserReadHitsCache() throws Exception {
+        long userId = createUser();
+        mockMvc.perform(get("/users/{userId}", userId)).andExpect(status().isOk());
+        long hits = users.getHitCount();
+        long misses = users.getMissCount();
+
+        mockMvc.perform(get("/users/{userId}", userId)).andExpect(status().isOk());
+
+        assertEquals(hits + 1, users.getHitCount());
+        assertEquals(misses, users.getMissCount());
+    }
+
+    @Test
+    void updatedUserIsReadWithNewName() throws Exception {
+        long userId = createUser();
+        mockMvc.perform(get("/users/{userId}", userId)).andExpect(status().isOk());
+
+        mockMvc.perform(patch("/users/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Новое имя\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{userId}", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Новое имя"));
+    }
+
+    @Test
+    void changesOfOtherInstancesAreEvicted() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookerId = createUser();
+        mockMvc.perform(bookingRequest(itemId, bookerId)).andExpect(status().isOk());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, itemId));
+        assertTrue(entityManagerFactory.getCache().contains(User.class, bookerId));
+
+        entityCacheEvictor.onEvents(List.of(new ItemUpdated(itemId, ownerId), new UserUpdated(bookerId)));
+
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, itemId));
+        assertFalse(entityManagerFactory.getCache().contains(User.class, bookerId));
+    }
+
+    @Test
+    void userDeletedOnOtherInstanceEvictsUserAndItems() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        mockMvc.perform(bookingRequest(itemId, createUser())).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{userId}", ownerId)).andExpect(status().isOk());
+
+        entityCacheEvictor.onEvents(List.of(new UserDeleted(ownerId)));
+
+        assertFalse(entityManagerFactory.getCache().contains(User.class, ownerId));
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, itemId));
+    }
+
+    @Test
+    void updatedItemIsNotBookedFromStaleCache() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookerId = createUser();
+        mockMvc.perform(bookingRequest(itemId, bookerId)).andExpect(status().isOk());
+
+        mockMvc.perform(patch("/items/{itemId}", itemId)
+                        .header(X_SHARER_USER_ID, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"available\": false}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(bookingRequest(itemId, bookerId)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deletedOwnerItemsAreEvicted() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookerId = createUser();
+        mockMvc.perform(bookingRequest(itemId, bookerId)).andExpect(status().isOk());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, itemId));
+
+        mockMvc.perform(delete("/users/{userId}", ownerId)).andExpect(status().isOk());
+
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, itemId));
+        mockMvc.perform(bookingRequest(itemId, bookerId)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void requestNotificationsKeepEntityCache() throws Exception {
+        long ownerId = createUser();
+        createItem(ownerId, "Стремянка");
+        long requesterId = createUser();
+        mockMvc.perform(get("/users/{userId}", requesterId)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/requests")
+                        .header(X_SHARER_USER_ID, requesterId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"Нужна стремянка\"}"))
+                .andExpect(status().isOk());
+
+        assertTrue(entityManagerFactory.getCache().contains(User.class, requesterId));
+    }
+
+    private long createUser() throws Exception {
+        int number = COUNTER.incrementAndGet();
+        return create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\": \"Пользователь %d\", \"email\": \"cache%d@example.org\"}",
+                        number, number)));
+    }
+
+    private long createItem(long ownerId) throws Exception {
+        return createItem(ownerId, "Дрель");
+    }
+
+    private long createItem(long ownerId, String name) throws Exception {
+        return create(post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\": \"%s\", \"description\": \"%s\", \"available\": true}",
+                        name, name)));
+    }
+
+    private MockHttpServletRequestBuilder bookingRequest(long itemId, long bookerId) {
+        LocalDateTime start = LocalDateTime.now().plusDays(COUNTER.incrementAndGet());
+        return post("/bookings")
+                .header(X_SHARER_USER_ID, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                        itemId, start, start.plusHours(1)));
+    }
+
+    private long create(MockHttpServletRequestBuilder request) throws Exception {
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+}
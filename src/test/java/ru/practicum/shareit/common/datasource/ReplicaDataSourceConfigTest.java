@@ -0,0 +1,125 @@
+package ru.practicum.shareit.common.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserJpaRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Основная БД и реплика — две разные базы H2. Реплика получает ту же схему при открытии соединения,
+ * а её пул из одного соединения не даёт схеме пересоздаться.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-primary",
+        "shareit.datasource.replica.url=jdbc:h2:mem:shareit-replica;INIT=RUNSCRIPT FROM 'classpath:schema.sql'",
+        "shareit.datasource.replica.maximum-pool-size=1",
+        "shareit.datasource.replica.lag-query=SELECT 0"
+})
+@AutoConfigureMockMvc
+class ReplicaDataSourceConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyRequestReadsReplica() throws Exception {
+        new JdbcTemplate(replicaDataSource).update("INSERT INTO users (name, email) VALUES (?, ?)",
+                "Реплика", "replica@example.org");
+        replicaLagMonitor.check();
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].email", hasItem("replica@example.org")));
+        assertEquals(0, countUsers(primaryDataSource, "replica@example.org"));
+    }
+
+    @Test
+    void writeRequestGoesToPrimary() throws Exception {
+        replicaLagMonitor.check();
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Основная\", \"email\": \"primary@example.org\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, countUsers(primaryDataSource, "primary@example.org"));
+        assertEquals(0, countUsers(replicaDataSource, "primary@example.org"));
+        mockMvc.perform(get("/users"))
+                .andExpect(jsonPath("$[*].email", not(hasItem("primary@example.org"))));
+    }
+
+    @Test
+    void writeAfterReadInOpenEntityManagerGoesToPrimary() {
+        replicaLagMonitor.check();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+        try {
+            TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            readOnlyTransaction.execute(status -> userJpaRepository.findAll());
+            new TransactionTemplate(transactionManager)
+                    .execute(status -> userJpaRepository.save(user("session@example.org")));
+        } finally {
+            ((EntityManagerHolder) TransactionSynchronizationManager.unbindResource(entityManagerFactory))
+                    .getEntityManager()
+                    .close();
+        }
+
+        assertEquals(1, countUsers(primaryDataSource, "session@example.org"));
+        assertEquals(0, countUsers(replicaDataSource, "session@example.org"));
+    }
+
+    private static int countUsers(DataSource dataSource, String email) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users WHERE email = ?",
+                Integer.class, email);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setName("Сессия");
+        user.setEmail(email);
+        return user;
+    }
+
+}
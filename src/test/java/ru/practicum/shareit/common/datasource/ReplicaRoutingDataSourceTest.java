@@ -0,0 +1,157 @@
+package ru.practicum.shareit.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private JdbcTemplate replicaJdbcTemplate;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        replicaJdbcTemplate.execute("CREATE TABLE replica_lag (lag_millis BIGINT)");
+        replicaJdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setLagQuery("SELECT lag_millis FROM replica_lag");
+        properties.setMaxLag(Duration.ofSeconds(1));
+        properties.setLagCheckInterval(Duration.ofHours(1));
+        replicaLagMonitor = new ReplicaLagMonitor(replicaDataSource, properties);
+        replicaLagMonitor.check();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaLagMonitor.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionReadsReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+    }
+
+    @Test
+    void writeTransactionAndNonTransactionalQueriesUsePrimary() {
+        assertEquals("primary", writeTransaction.execute(status -> source()));
+        assertEquals("primary", source());
+    }
+
+    @Test
+    void readOnlyTransactionUsesPrimaryWhileReplicaLags() {
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_millis = 5000");
+        replicaLagMonitor.check();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> source()));
+
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_millis = 10");
+        replicaLagMonitor.check();
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+    }
+
+    @Test
+    void readOnlyTransactionUsesPrimaryWhenLagCheckFails() {
+        replicaJdbcTemplate.execute("DROP TABLE replica_lag");
+        replicaLagMonitor.check();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> source()));
+    }
+
+    @Test
+    void readsStayOnPrimaryAfterWriteInSameRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+
+        writeTransaction.execute(status -> jdbcTemplate.update("UPDATE source SET name = name"));
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> source()));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+    }
+
+    @Test
+    void connectionWithCredentialsFallsBackToPrimaryWhenReplicaFails() throws SQLException {
+        DataSource failingReplica = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("Реплика недоступна");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("Реплика недоступна");
+            }
+        };
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(database("primary"), failingReplica,
+                replicaLagMonitor);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        replicaLagMonitor.bindTo(registry);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = dataSource.getConnection("", "")) {
+            assertEquals("primary", new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT name FROM source", String.class));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1, registry.get("shareit.datasource.reads").tag("target", "primary").functionCounter().count());
+        assertEquals(0, registry.get("shareit.datasource.reads").tag("target", "replica").functionCounter().count());
+    }
+
+    private String source() {
+        return jdbcTemplate.queryForObject("SELECT name FROM source", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s-%d;DB_CLOSE_DELAY=-1",
+                name, DATABASES.incrementAndGet()));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE source (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO source VALUES (?)", name);
+        return dataSource;
+    }
+
+}
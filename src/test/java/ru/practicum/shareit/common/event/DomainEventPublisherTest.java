@@ -0,0 +1,136 @@
+package ru.practicum.shareit.common.event;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@Import(DomainEventPublisherTest.RecordingSubscriberConfig.class)
+class DomainEventPublisherTest {
+
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OutboxEventJpaRepository outboxEventJpaRepository;
+
+    @Autowired
+    private BlockingQueue<DomainEvent> receivedEvents;
+
+    @BeforeEach
+    void setUp() {
+        receivedEvents.clear();
+    }
+
+    @Test
+    void committedChangesAreDeliveredInOrder() throws Exception {
+        long ownerId = create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Владелец\", \"email\": \"outbox-owner@example.org\"}"));
+        long bookerId = create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Арендатор\", \"email\": \"outbox-booker@example.org\"}"));
+        long itemId = create(post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Дрель\", \"description\": \"Дрель\", \"available\": true}"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long bookingId = create(post("/bookings")
+                .header(X_SHARER_USER_ID, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                        itemId, start, start.plusHours(1))));
+        mockMvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header(X_SHARER_USER_ID, ownerId)
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/items/{itemId}", itemId)
+                        .header(X_SHARER_USER_ID, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"available\": false}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/users/{userId}", ownerId)).andExpect(status().isOk());
+
+        assertEquals(List.of(
+                new BookingCreated(bookingId, itemId, bookerId),
+                new BookingStatusChanged(bookingId, itemId, Status.APPROVED),
+                new ItemUpdated(itemId, ownerId),
+                new UserDeleted(ownerId)), List.of(next(), next(), next(), next()));
+    }
+
+    @Test
+    void rolledBackChangeWritesNoEvent() throws Exception {
+        long ownerId = create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Владелец\", \"email\": \"outbox-rollback@example.org\"}"));
+        long itemId = create(post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Пила\", \"description\": \"Пила\", \"available\": true}"));
+        long count = outboxEventJpaRepository.count();
+
+        mockMvc.perform(patch("/items/{itemId}", itemId)
+                        .header(X_SHARER_USER_ID, ownerId + 1000)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"available\": false}"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(count, outboxEventJpaRepository.count());
+        assertNull(receivedEvents.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private DomainEvent next() throws InterruptedException {
+        return receivedEvents.poll(5, TimeUnit.SECONDS);
+    }
+
+    private long create(MockHttpServletRequestBuilder request) throws Exception {
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+    @TestConfiguration
+    static class RecordingSubscriberConfig {
+
+        @Bean
+        BlockingQueue<DomainEvent> receivedEvents() {
+            return new LinkedBlockingQueue<>();
+        }
+
+        @Bean
+        DomainEventSubscriber recordingSubscriber(BlockingQueue<DomainEvent> receivedEvents) {
+            return receivedEvents::addAll;
+        }
+
+    }
+
+}
@@ -0,0 +1,204 @@
+package ru.practicum.shareit.common.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.transaction.TransactionProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.Status;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class OutboxDispatcherTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboxProperties properties = new OutboxProperties();
+    private final TransactionProperties transactionProperties = new TransactionProperties();
+    private final List<List<DomainEvent>> batches = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        properties.setBatchSize(2);
+        properties.setGapTimeout(Duration.ofHours(1));
+        transactionProperties.setDefaultTimeout(Duration.ofHours(1));
+    }
+
+    @Test
+    void drainDeliversEventsInIdOrderByBatches() throws Exception {
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        for (long itemId = 1; itemId <= 5; itemId++) {
+            insert(start + itemId, new ItemUpdated(itemId, 10L), LocalDateTime.now());
+        }
+
+        dispatcher.drain();
+
+        assertEquals(List.of(
+                List.of(new ItemUpdated(1L, 10L), new ItemUpdated(2L, 10L)),
+                List.of(new ItemUpdated(3L, 10L), new ItemUpdated(4L, 10L)),
+                List.of(new ItemUpdated(5L, 10L))), batches);
+        assertEquals(start + 5, dispatcher.cursor());
+    }
+
+    @Test
+    void skipExistingStartsAfterEventsWrittenBeforeStart() throws Exception {
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        insert(dispatcher.cursor() + 1, new UserDeleted(1L), LocalDateTime.now());
+
+        dispatcher.skipExisting();
+        dispatcher.drain();
+
+        assertEquals(List.of(), batches);
+    }
+
+    @Test
+    void failedBatchIsDeliveredAgainToAllSubscribers() throws Exception {
+        List<DomainEvent> failing = new ArrayList<>();
+        List<DomainEventSubscriber> subscribers = List.of(
+                batches::add,
+                events -> {
+                    if (failing.isEmpty()) {
+                        failing.addAll(events);
+                        throw new IllegalStateException("Подписчик недоступен");
+                    }
+                });
+        OutboxDispatcher dispatcher = new OutboxDispatcher(dataSource, objectMapper, properties,
+                transactionProperties, subscribers);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        BookingStatusChanged event = new BookingStatusChanged(1L, 2L, Status.APPROVED);
+        insert(start + 1, event, LocalDateTime.now());
+
+        dispatcher.drain();
+        assertEquals(start, dispatcher.cursor());
+        dispatcher.drain();
+
+        assertEquals(List.of(List.of(event), List.of(event)), batches);
+        assertEquals(List.of(event), failing);
+        assertEquals(start + 1, dispatcher.cursor());
+    }
+
+    @Test
+    void drainWaitsForMissingIdUntilGapTimeout() throws Exception {
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        insert(start + 1, new UserDeleted(1L), LocalDateTime.now());
+        insert(start + 3, new UserDeleted(3L), LocalDateTime.now());
+
+        dispatcher.drain();
+        assertEquals(List.of(List.of(new UserDeleted(1L))), batches);
+
+        insert(start + 2, new UserDeleted(2L), LocalDateTime.now());
+        dispatcher.drain();
+        assertEquals(List.of(new UserDeleted(2L), new UserDeleted(3L)), batches.get(1));
+
+        properties.setGapTimeout(Duration.ZERO);
+        insert(start + 5, new UserDeleted(5L), LocalDateTime.now());
+        dispatcher.drain();
+        assertEquals(List.of(new UserDeleted(5L)), batches.get(2));
+        assertEquals(start + 5, dispatcher.cursor());
+    }
+
+    @Test
+    void eventCommittedAfterGapTimeoutIsDeliveredLater() throws Exception {
+        properties.setGapTimeout(Duration.ZERO);
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        insert(start + 1, new UserDeleted(1L), LocalDateTime.now());
+        insert(start + 3, new UserDeleted(3L), LocalDateTime.now());
+
+        dispatcher.drain();
+        assertEquals(List.of(List.of(new UserDeleted(1L), new UserDeleted(3L))), batches);
+        assertEquals(Set.of(start + 2), dispatcher.pendingGaps());
+
+        insert(start + 2, new UserDeleted(2L), LocalDateTime.now());
+        dispatcher.drain();
+        dispatcher.drain();
+
+        assertEquals(List.of(List.of(new UserDeleted(1L), new UserDeleted(3L)), List.of(new UserDeleted(2L))),
+                batches);
+        assertTrue(dispatcher.pendingGaps().isEmpty());
+        assertEquals(start + 3, dispatcher.cursor());
+    }
+
+    @Test
+    void missingIdIsForgottenAfterTransactionTimeout() throws Exception {
+        properties.setGapTimeout(Duration.ZERO);
+        transactionProperties.setDefaultTimeout(Duration.ZERO);
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        insert(start + 2, new UserDeleted(2L), LocalDateTime.now());
+
+        dispatcher.drain();
+        assertEquals(Set.of(start + 1), dispatcher.pendingGaps());
+        Thread.sleep(5);
+        dispatcher.drain();
+        insert(start + 1, new UserDeleted(1L), LocalDateTime.now());
+        dispatcher.drain();
+
+        assertEquals(List.of(List.of(new UserDeleted(2L))), batches);
+        assertTrue(dispatcher.pendingGaps().isEmpty());
+    }
+
+    @Test
+    void unreadableEventIsSkipped() throws Exception {
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        jdbcTemplate.update("INSERT INTO outbox_events (id, aggregate_type, aggregate_id, payload, created) " +
+                "VALUES (?, 'item', 1, '{\"type\": \"Unknown\"}', ?)", start + 1, Timestamp.valueOf(LocalDateTime.now()));
+        insert(start + 2, new CommentPosted(1L, 2L, 3L), LocalDateTime.now());
+
+        dispatcher.drain();
+
+        assertEquals(List.of(List.of(new CommentPosted(1L, 2L, 3L))), batches);
+        assertEquals(start + 2, dispatcher.cursor());
+    }
+
+    @Test
+    void pruneDeletesEventsOlderThanRetention() throws Exception {
+        OutboxDispatcher dispatcher = dispatcher(batches::add);
+        dispatcher.skipExisting();
+        long start = dispatcher.cursor();
+        insert(start + 1, new UserDeleted(1L), LocalDateTime.now().minusDays(2));
+        insert(start + 2, new UserDeleted(2L), LocalDateTime.now());
+
+        dispatcher.prune();
+
+        assertEquals(List.of(start + 2), jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE id > ?", Long.class, start));
+    }
+
+    private OutboxDispatcher dispatcher(DomainEventSubscriber subscriber) {
+        return new OutboxDispatcher(dataSource, objectMapper, properties, transactionProperties, List.of(subscriber));
+    }
+
+    private void insert(long id, DomainEvent event, LocalDateTime created) throws Exception {
+        jdbcTemplate.update("INSERT INTO outbox_events (id, aggregate_type, aggregate_id, payload, created) " +
+                        "VALUES (?, ?, ?, ?, ?)", id, event.getAggregateType(), event.getAggregateId(),
+                objectMapper.writeValueAsString(event), Timestamp.valueOf(created));
+    }
+
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.item.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.event.CommentPosted;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemPageCacheTest {
+
+    private static final Long OWNER_ID = 1L;
+    private static final Long OTHER_USER_ID = 2L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2022, 9, 1, 12, 0);
+
+    private ItemPageCache itemPageCache;
+
+    @BeforeEach
+    void setUp() {
+        itemPageCache = new ItemPageCache(new ObjectMapper(), 1000);
+    }
+
+    @Test
+    void findReturnsPageForOwnerAndOtherUsersSeparately() {
+        assertTrue(itemPageCache.find(1L, OTHER_USER_ID, NOW).isEmpty());
+
+        byte[] page = put(1L, OTHER_USER_ID, "Дрель", null);
+
+        assertEquals("{\"id\":1,\"name\":\"Дрель\",\"description\":null,\"available\":null,\"lastBooking\":null," +
+                "\"nextBooking\":null,\"comments\":null}", new String(page, StandardCharsets.UTF_8));
+        assertArrayEquals(page, itemPageCache.find(1L, 3L, NOW).orElseThrow());
+        assertTrue(itemPageCache.find(1L, OWNER_ID, NOW).isEmpty());
+
+        byte[] ownerPage = put(1L, OWNER_ID, "Дрель владельца", null);
+
+        assertArrayEquals(ownerPage, itemPageCache.find(1L, OWNER_ID, NOW).orElseThrow());
+        assertArrayEquals(page, itemPageCache.find(1L, OTHER_USER_ID, NOW).orElseThrow());
+    }
+
+    @Test
+    void ownerPageExpiresWhenNearestBookingsChange() {
+        put(1L, OWNER_ID, "Дрель", NOW.plusHours(1));
+
+        assertTrue(itemPageCache.find(1L, OWNER_ID, NOW.plusMinutes(59)).isPresent());
+        assertTrue(itemPageCache.find(1L, OWNER_ID, NOW.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void putIgnoresPageComputedBeforeInvalidation() {
+        long version = itemPageCache.version();
+        itemPageCache.invalidate(2L);
+
+        byte[] page = itemPageCache.put(1L, OWNER_ID, OTHER_USER_ID, item(1L, "Дрель"), null, version);
+
+        assertTrue(page.length > 0);
+        assertTrue(itemPageCache.find(1L, OTHER_USER_ID, NOW).isEmpty());
+    }
+
+    @Test
+    void invalidateRemovesItemPages() {
+        put(1L, OWNER_ID, "Дрель", null);
+        put(1L, OTHER_USER_ID, "Дрель", null);
+        put(2L, OTHER_USER_ID, "Пила", null);
+
+        itemPageCache.invalidate(1L);
+
+        assertTrue(itemPageCache.find(1L, OWNER_ID, NOW).isEmpty());
+        assertTrue(itemPageCache.find(1L, OTHER_USER_ID, NOW).isEmpty());
+        assertTrue(itemPageCache.find(2L, OTHER_USER_ID, NOW).isPresent());
+
+        itemPageCache.invalidateAll();
+
+        assertEquals(0, itemPageCache.size());
+        assertEquals(0, itemPageCache.bytes());
+    }
+
+    @Test
+    void onEventsRemovesPagesChangedByOtherInstances() {
+        put(1L, OTHER_USER_ID, "Дрель", null);
+        put(2L, OTHER_USER_ID, "Пила", null);
+
+        itemPageCache.onEvents(List.of(new CommentPosted(1L, 1L, OTHER_USER_ID)));
+
+        assertTrue(itemPageCache.find(1L, OTHER_USER_ID, NOW).isEmpty());
+        assertTrue(itemPageCache.find(2L, OTHER_USER_ID, NOW).isPresent());
+
+        itemPageCache.onEvents(List.of(new UserDeleted(OWNER_ID)));
+
+        assertEquals(0, itemPageCache.size());
+    }
+
+    @Test
+    void putEvictsLeastRecentlyViewedItemsOverByteLimit() {
+        itemPageCache = new ItemPageCache(new ObjectMapper(), 300);
+        put(1L, OTHER_USER_ID, "Дрель", null);
+        put(2L, OTHER_USER_ID, "Пила", null);
+        itemPageCache.find(1L, OTHER_USER_ID, NOW);
+
+        put(3L, OTHER_USER_ID, "Рубанок", null);
+
+        assertTrue(itemPageCache.find(1L, OTHER_USER_ID, NOW).isPresent());
+        assertTrue(itemPageCache.find(2L, OTHER_USER_ID, NOW).isEmpty());
+        assertTrue(itemPageCache.find(3L, OTHER_USER_ID, NOW).isPresent());
+        assertEquals(1, itemPageCache.evictions());
+        assertTrue(itemPageCache.bytes() <= 300);
+    }
+
+    @Test
+    void bindToRegistersMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        itemPageCache.bindTo(registry);
+        put(1L, OTHER_USER_ID, "Дрель", null);
+
+        itemPageCache.find(1L, OTHER_USER_ID, NOW);
+        itemPageCache.find(2L, OTHER_USER_ID, NOW);
+
+        assertEquals(1, registry.get("shareit.item.page.cache.requests").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("shareit.item.page.cache.requests").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get("shareit.item.page.cache.size").gauge().value());
+    }
+
+    private byte[] put(Long itemId, Long userId, String name, LocalDateTime validUntil) {
+        return itemPageCache.put(itemId, OWNER_ID, userId, item(itemId, name), validUntil, itemPageCache.version());
+    }
+
+    private static ItemWithBookingsResponseDto item(Long id, String name) {
+        return new ItemWithBookingsResponseDto(id, name, null, null, null, null, null, null);
+    }
+
+}
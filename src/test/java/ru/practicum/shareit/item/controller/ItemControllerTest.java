@@ -16,16 +16,23 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.comment.dto.CommentRequestDto;
 import ru.practicum.shareit.comment.dto.CommentResponseDto;
 import ru.practicum.shareit.comment.service.CommentService;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ContextConfiguration(classes = {ItemController.class})
@@ -41,6 +48,9 @@ class ItemControllerTest {
     @MockBean
     private CommentService commentService;
 
+    @MockBean
+    private ItemPageCache itemPageCache;
+
     @Test
     void testUpdateItem() throws Exception {
         when(itemService.updateItem(anyLong(), any(), anyLong()))
@@ -97,7 +107,9 @@ class ItemControllerTest {
 
     @Test
     void testFindItemById() throws Exception {
-        when(itemService.findItemById(anyLong(), anyLong())).thenReturn(new ItemWithBookingsResponseDto());
+        when(itemPageCache.find(anyLong(), anyLong())).thenReturn(Optional.empty());
+        when(itemService.findItemPageById(anyLong(), anyLong())).thenReturn(
+                new ObjectMapper().writeValueAsBytes(new ItemWithBookingsResponseDto()));
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/{itemId}", 1L)
                 .header("X-Sharer-User-Id", "2");
         MockMvcBuilders.standaloneSetup(itemController)
@@ -116,12 +128,27 @@ class ItemControllerTest {
                                         "\"nextBooking\":null,"
                                         + "\"comments\":null" +
                                         "}"));
+        verify(itemService).findItemPageById(1L, 2L);
+    }
+
+    @Test
+    void testFindItemByIdFromCache() throws Exception {
+        when(itemPageCache.find(1L, 2L)).thenReturn(Optional.of("{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/{itemId}", 1L)
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(itemController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
+                .andExpect(MockMvcResultMatchers.content().string("{\"id\":1}"));
+        verify(itemService, never()).findItemPageById(anyLong(), anyLong());
     }
 
     @Test
     void testFindItemById2() throws Exception {
         when(itemService.findUserItems(anyLong())).thenReturn(new ArrayList<>());
-        when(itemService.findItemById(anyLong(), anyLong())).thenReturn(new ItemWithBookingsResponseDto());
+        when(itemService.findItemPageById(anyLong(), anyLong())).thenReturn(new byte[0]);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/{itemId}", "", "Uri Vars")
                 .header("X-Sharer-User-Id", "2");
         MockMvcBuilders.standaloneSetup(itemController)
@@ -147,7 +174,8 @@ class ItemControllerTest {
 
     @Test
     void testSearchItemsByText() throws Exception {
-        when(itemService.searchItemsByText(anyString(), anyLong())).thenReturn(new ArrayList<>());
+        when(itemService.searchItemsByText(anyString(), any(), any(), anyLong(), anyInt(), anyInt(), anyBoolean()))
+                .thenReturn(new ArrayList<>());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/search")
                 .param("text", "foo")
                 .header("X-Sharer-User-Id", "2");
@@ -159,6 +187,60 @@ class ItemControllerTest {
                 .andExpect(MockMvcResultMatchers.content().string("[]"));
     }
 
+    @Test
+    void testSearchItemsByTextForPeriod() throws Exception {
+        when(itemService.searchItemsByText(anyString(), any(), any(), anyLong(), anyInt(), anyInt(), anyBoolean()))
+                .thenReturn(new ArrayList<>());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/search")
+                .param("text", "foo")
+                .param("from", "2030-01-01T10:00:00")
+                .param("to", "2030-01-02T10:00:00")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(itemController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("[]"));
+        verify(itemService).searchItemsByText("foo",
+                LocalDateTime.of(2030, 1, 1, 10, 0),
+                LocalDateTime.of(2030, 1, 2, 10, 0),
+                2L,
+                0,
+                10,
+                false);
+    }
+
+    @Test
+    void testSearchItemsByTextWithPageAndFuzzy() throws Exception {
+        when(itemService.searchItemsByText(anyString(), any(), any(), anyLong(), anyInt(), anyInt(), anyBoolean()))
+                .thenReturn(new ArrayList<>());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/search")
+                .param("text", "foo")
+                .param("offset", "20")
+                .param("size", "10")
+                .param("fuzzy", "true")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(itemController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        verify(itemService).searchItemsByText("foo", null, null, 2L, 20, 10, true);
+    }
+
+    @Test
+    void testSuggestItemNames() throws Exception {
+        when(itemService.suggestItemNames("дре", 10)).thenReturn(List.of(new ItemSuggestionDto("дрель", 2)));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/items/suggest")
+                .param("prefix", "дре")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(itemController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].text").value("дрель"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].count").value(2));
+    }
+
     @Test
     void testPostComment() throws Exception {
         CommentResponseDto commentResponseDto = new CommentResponseDto();
@@ -3,9 +3,10 @@ package ru.practicum.shareit.item.dto;
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.comment.dto.CommentResponseDto;
-import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
@@ -157,9 +158,10 @@ class ItemMapperTest {
         booking1.setItem(item2);
         booking1.setStart(LocalDateTime.of(1, 1, 1, 1, 1));
         booking1.setStatus(Status.WAITING);
-        ArrayList<Comment> commentList = new ArrayList<>();
+        ArrayList<CommentView> commentList = new ArrayList<>();
         ItemWithBookingsResponseDto itemWithBookingsResponseDto = ItemMapper
-                .toItemWithBookingsResponseDto(item, booking, booking1, commentList);
+                .toItemWithBookingsResponseDto(toItemView(item), BookingMapper.toBookingDto(booking),
+                        BookingMapper.toBookingDto(booking1), commentList);
         assertTrue(itemWithBookingsResponseDto.getAvailable());
         assertEquals("Item1", itemWithBookingsResponseDto.getName());
         assertEquals(commentList, itemWithBookingsResponseDto.getComments());
@@ -182,17 +184,13 @@ class ItemMapperTest {
 
         Item item1 = createItem(users.get(3), itemRequest1);
 
-        Comment comment = new Comment();
-        comment.setAuthor(users.get(2));
-        comment.setId(1L);
-        comment.setItem(item1);
-        comment.setText("Text");
-        comment.setCreatedTime(LocalDateTime.of(1, 1, 1, 1, 1));
+        CommentView comment = new CommentView(1L, item1.getId(), "Text", users.get(2).getName(),
+                LocalDateTime.of(1, 1, 1, 1, 1));
 
-        ArrayList<Comment> commentList = new ArrayList<>();
+        ArrayList<CommentView> commentList = new ArrayList<>();
         commentList.add(comment);
         ItemWithBookingsResponseDto itemWithBookingsResponseDto = ItemMapper
-                .toItemWithBookingsResponseDto(item, null, null, commentList);
+                .toItemWithBookingsResponseDto(toItemView(item), null, null, commentList);
         assertTrue(itemWithBookingsResponseDto.getAvailable());
         assertEquals("Item1", itemWithBookingsResponseDto.getName());
         assertEquals(1L, itemWithBookingsResponseDto.getId());
@@ -207,6 +205,11 @@ class ItemMapperTest {
     }
 
 
+    private static ItemView toItemView(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner().getId(), item.getRequest().getId());
+    }
+
     private List<User> createUsers() {
         User user = new User();
         user.setEmail("user1@example.org");
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.item.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemNameSuggesterTest {
+
+    @Mock
+    private ItemJpaRepository itemJpaRepository;
+
+    private ItemNameSuggester itemNameSuggester;
+
+    @BeforeEach
+    void setUp() {
+        itemNameSuggester = new ItemNameSuggester(itemJpaRepository);
+        rebuild("Дрель", "Дрель ударная", "Дрель-шуруповёрт", "Дрова", "Пила");
+    }
+
+    @Test
+    void suggestOrdersByItemCountThenAlphabetically() {
+        assertEquals(List.of("дрель", "дрова"), texts(itemNameSuggester.suggest("Др", 10)));
+        assertEquals(3, itemNameSuggester.suggest("дрел", 10).get(0).getCount());
+    }
+
+    @Test
+    void suggestLimitsSize() {
+        assertEquals(List.of("дрель"), texts(itemNameSuggester.suggest("д", 1)));
+    }
+
+    @Test
+    void suggestUsesLastWordOfPrefix() {
+        assertEquals(List.of("ударная"), texts(itemNameSuggester.suggest("дрель уд", 10)));
+        assertEquals(List.of("шуруповерт"), texts(itemNameSuggester.suggest("шуруповё", 10)));
+    }
+
+    @Test
+    void suggestReturnsEmptyListForBlankOrUnknownPrefix() {
+        assertTrue(itemNameSuggester.suggest(" ", 10).isEmpty());
+        assertTrue(itemNameSuggester.suggest("молоток", 10).isEmpty());
+    }
+
+    @Test
+    void indexCountsNewItem() {
+        itemNameSuggester.index(item("Дрова берёзовые", true));
+
+        assertEquals(List.of("дрель", "дрова"),
+                texts(itemNameSuggester.suggest("др", 10)));
+        assertEquals(2, itemNameSuggester.suggest("дров", 10).get(0).getCount());
+        assertFalse(itemNameSuggester.suggest("берез", 10).isEmpty());
+    }
+
+    @Test
+    void indexRefreshesSingleLetterSuggestions() {
+        assertEquals(List.of("дрель", "дрова"), texts(itemNameSuggester.suggest("д", 10)));
+
+        itemNameSuggester.index(item(6L, "Дуб", true));
+        itemNameSuggester.index(item(7L, "Дуб", true));
+
+        assertEquals(List.of("дрель", "дуб", "дрова"), texts(itemNameSuggester.suggest("д", 10)));
+        assertEquals(List.of("пила"), texts(itemNameSuggester.suggest("п", 10)));
+    }
+
+    @Test
+    void suggestCapsSize() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ItemNameSuggester.MAX_SUGGESTIONS + 10; i++) {
+            names.add("дрель" + i);
+        }
+        rebuild(names.toArray(String[]::new));
+
+        assertEquals(ItemNameSuggester.MAX_SUGGESTIONS, itemNameSuggester.suggest("д", 100).size());
+        assertEquals(ItemNameSuggester.MAX_SUGGESTIONS, itemNameSuggester.suggest("дрель", 100).size());
+    }
+
+    @Test
+    void indexIgnoresUnavailableItem() {
+        itemNameSuggester.index(item("Молоток", false));
+
+        assertTrue(itemNameSuggester.suggest("мол", 10).isEmpty());
+    }
+
+    @Test
+    void indexMovesCountsToNewName() {
+        itemNameSuggester.index(item(5L, "Лобзик", true));
+
+        assertTrue(itemNameSuggester.suggest("пил", 10).isEmpty());
+        assertEquals(List.of("лобзик"), texts(itemNameSuggester.suggest("лоб", 10)));
+    }
+
+    @Test
+    void indexRemovesItemThatBecameUnavailable() {
+        itemNameSuggester.index(item(2L, "Дрель ударная", false));
+
+        assertEquals(2, itemNameSuggester.suggest("дрель", 10).get(0).getCount());
+        assertTrue(itemNameSuggester.suggest("удар", 10).isEmpty());
+    }
+
+    @Test
+    void indexKeepsCountOnRepeatedUpdate() {
+        itemNameSuggester.index(item(4L, "Дрова", true));
+        itemNameSuggester.index(item(4L, "Дрова", true));
+
+        assertEquals(1, itemNameSuggester.suggest("дров", 10).get(0).getCount());
+    }
+
+    @Test
+    void userDeletedRemovesOwnerItems() {
+        itemNameSuggester.index(item(6L, "Дрель аккумуляторная", true));
+        assertEquals(List.of("дрель", "дрова"), texts(itemNameSuggester.suggest("д", 10)));
+
+        itemNameSuggester.onEvents(List.of(new UserDeleted(1L), new UserDeleted(4L)));
+
+        assertEquals(List.of("дрель"), texts(itemNameSuggester.suggest("д", 10)));
+        assertEquals(3, itemNameSuggester.suggest("дрель", 10).get(0).getCount());
+        assertFalse(itemNameSuggester.suggest("акк", 10).isEmpty());
+    }
+
+    @Test
+    void rebuildSkipsTooLongWords() {
+        String longWord = "а".repeat(ItemNameSuggester.MAX_TERM_LENGTH + 1);
+        rebuild(longWord);
+
+        assertEquals(0, itemNameSuggester.size());
+    }
+
+    @Test
+    void rebuildAppliesChangesCommittedWhileLoading() {
+        when(itemJpaRepository.findAllAvailableDocuments()).thenAnswer(invocation -> {
+            itemNameSuggester.index(item(5L, "Лобзик", true));
+            itemNameSuggester.index(item(6L, "Дрова", true));
+            return List.of(new ItemDocument(1L, 1L, "Дрель", "Описание"),
+                    new ItemDocument(5L, 5L, "Лобзик", "Описание"));
+        });
+        itemNameSuggester.suggest("д", 10);
+
+        itemNameSuggester.rebuild();
+
+        assertEquals(1, itemNameSuggester.suggest("лоб", 10).get(0).getCount());
+        assertEquals(List.of("дрель", "дрова"), texts(itemNameSuggester.suggest("д", 10)));
+        assertEquals(1, itemNameSuggester.suggest("дров", 10).get(0).getCount());
+        assertTrue(itemNameSuggester.suggest("пил", 10).isEmpty());
+        assertTrue(itemNameSuggester.suggest("удар", 10).isEmpty());
+    }
+
+    @Test
+    void exposesSizeAndMemoryMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        itemNameSuggester.bindTo(registry);
+
+        assertEquals(5, registry.get("shareit.item.suggest.terms").gauge().value());
+        assertEquals(itemNameSuggester.estimatedBytes(), registry.get("shareit.item.suggest.memory").gauge().value());
+        assertTrue(itemNameSuggester.estimatedBytes() > 0);
+    }
+
+    private static List<String> texts(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream()
+                .map(ItemSuggestionDto::getText)
+                .collect(Collectors.toList());
+    }
+
+    private void rebuild(String... names) {
+        List<ItemDocument> documents = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            documents.add(new ItemDocument(i + 1L, i + 1L, names[i], "Описание"));
+        }
+        when(itemJpaRepository.findAllAvailableDocuments()).thenReturn(documents);
+        itemNameSuggester.rebuild();
+    }
+
+    private static Item item(String name, boolean available) {
+        return item(100L, name, available);
+    }
+
+    private static Item item(Long id, String name, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setAvailable(available);
+        item.setOwner(owner(id));
+        return item;
+    }
+
+    private static User owner(Long id) {
+        User owner = new User();
+        owner.setId(id);
+        return owner;
+    }
+
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemJpaRepository itemJpaRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = new ItemSearchIndex(itemJpaRepository);
+        when(itemJpaRepository.findAllAvailableDocuments()).thenReturn(List.of(
+                new ItemDocument(1L, 10L, "Дрель", "Аккумуляторная дрель-шуруповёрт"),
+                new ItemDocument(2L, 20L, "Отвёртка", "Крестовая, подходит к дрели"),
+                new ItemDocument(3L, 10L, "Drill", "Cordless power drill")));
+        itemSearchIndex.rebuild();
+    }
+
+    @Test
+    void isReadyAfterRebuild() {
+        assertFalse(new ItemSearchIndex(itemJpaRepository).isReady());
+        assertTrue(itemSearchIndex.isReady());
+    }
+
+    @Test
+    void searchIsCaseInsensitiveAndMatchesWordPrefixes() {
+        assertEquals(List.of(1L, 2L), itemSearchIndex.search("ДРЕЛ", false));
+        assertEquals(List.of(3L), itemSearchIndex.search("drill", false));
+        assertEquals(List.of(1L), itemSearchIndex.search("шуруповерт", false));
+    }
+
+    @Test
+    void searchRanksNameAndExactMatchesFirst() {
+        itemSearchIndex.index(item(4L, "Дрелька", "Игрушечная", true));
+
+        assertEquals(List.of(1L, 4L, 2L), itemSearchIndex.search("дрел", false));
+        assertEquals(List.of(1L, 4L), itemSearchIndex.search("дрель", false));
+        assertEquals(List.of(2L), itemSearchIndex.search("дрели", false));
+    }
+
+    @Test
+    void searchRequiresAllWords() {
+        assertEquals(List.of(3L), itemSearchIndex.search("power drill", false));
+        assertTrue(itemSearchIndex.search("power дрель", false).isEmpty());
+    }
+
+    @Test
+    void searchIgnoresBlankAndPunctuation() {
+        assertTrue(itemSearchIndex.search("  ", false).isEmpty());
+        assertTrue(itemSearchIndex.search(null, false).isEmpty());
+        assertEquals(List.of(1L), itemSearchIndex.search("аккумуляторная, дрель!", false));
+    }
+
+    @Test
+    void fuzzySearchToleratesTypos() {
+        assertTrue(itemSearchIndex.search("дрлеь", false).isEmpty());
+        assertEquals(List.of(1L, 2L), itemSearchIndex.search("дрлеь", true));
+        assertEquals(List.of(3L), itemSearchIndex.search("drll", true));
+        assertEquals(List.of(1L), itemSearchIndex.search("акумуляторная дрель", true));
+    }
+
+    @Test
+    void fuzzySearchRanksExactMatchesAboveTypos() {
+        assertEquals(List.of(1L, 2L), itemSearchIndex.search("дрель", true));
+        assertEquals(List.of(2L, 1L), itemSearchIndex.search("дрели", true));
+    }
+
+    @Test
+    void fuzzySearchSkipsShortWordsAndDistantWords() {
+        assertEquals(itemSearchIndex.search("др", false), itemSearchIndex.search("др", true));
+        assertTrue(itemSearchIndex.search("дл", true).isEmpty());
+        assertTrue(itemSearchIndex.search("пила", true).isEmpty());
+    }
+
+    @Test
+    void fuzzySearchSeesIndexUpdates() {
+        itemSearchIndex.index(item(3L, "Перфоратор", "Мощный", true));
+
+        assertTrue(itemSearchIndex.search("dril", true).isEmpty());
+        assertEquals(List.of(3L), itemSearchIndex.search("пефроратор", true));
+    }
+
+    @Test
+    void matchesFollowsSearchRules() {
+        assertTrue(ItemSearchIndex.matches("дрел", "дрель", false));
+        assertFalse(ItemSearchIndex.matches("дрлеь", "дрель", false));
+        assertTrue(ItemSearchIndex.matches("дрлеь", "дрель", true));
+        assertFalse(ItemSearchIndex.matches("пила", "дрель", true));
+    }
+
+    @Test
+    void indexUpdatesChangedItem() {
+        itemSearchIndex.index(item(3L, "Перфоратор", "Мощный", true));
+
+        assertTrue(itemSearchIndex.search("drill", false).isEmpty());
+        assertEquals(List.of(3L), itemSearchIndex.search("перфоратор", false));
+    }
+
+    @Test
+    void indexAddsNewItem() {
+        itemSearchIndex.index(item(4L, "Дрель ударная", "Для бетона", true));
+
+        assertEquals(List.of(1L, 4L), itemSearchIndex.search("дрель", false));
+        assertEquals(List.of(4L), itemSearchIndex.search("бетон", false));
+    }
+
+    @Test
+    void indexRemovesUnavailableItem() {
+        itemSearchIndex.index(item(1L, "Дрель", "Аккумуляторная дрель-шуруповёрт", false));
+
+        assertEquals(List.of(2L), itemSearchIndex.search("дрел", false));
+        assertTrue(itemSearchIndex.search("аккумуляторная", false).isEmpty());
+    }
+
+    @Test
+    void userDeletedRemovesOwnerItems() {
+        itemSearchIndex.index(item(4L, "Дрель ударная", "Для бетона", true));
+
+        itemSearchIndex.onEvents(List.of(new UserDeleted(10L)));
+
+        assertEquals(List.of(4L, 2L), itemSearchIndex.search("дрел", false));
+        assertTrue(itemSearchIndex.search("drill", false).isEmpty());
+    }
+
+    @Test
+    void rebuildSkipsOwnerDeletedWhileLoading() {
+        when(itemJpaRepository.findAllAvailableDocuments()).thenAnswer(invocation -> {
+            itemSearchIndex.onEvents(List.of(new UserDeleted(20L)));
+            return List.of(new ItemDocument(1L, 10L, "Дрель", "Ударная"),
+                    new ItemDocument(2L, 20L, "Отвёртка", "Крестовая, подходит к дрели"));
+        });
+
+        itemSearchIndex.rebuild();
+
+        assertEquals(List.of(1L), itemSearchIndex.search("дрел", false));
+    }
+
+    @Test
+    void tokenizeNormalizesText() {
+        assertEquals(List.of("еж", "и", "ель"),
+                ItemSearchIndex.tokenize("Ёж и—ЕЛЬ").collect(Collectors.toList()));
+    }
+
+    private Item item(Long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner(id == 4L ? 20L : 10L));
+        return item;
+    }
+
+    private static User owner(Long id) {
+        User owner = new User();
+        owner.setId(id);
+        return owner;
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex trigramIndex;
+
+    @BeforeEach
+    void setUp() {
+        trigramIndex = new TrigramIndex();
+        trigramIndex.add("дрель");
+        trigramIndex.add("дрели");
+        trigramIndex.add("пила");
+        trigramIndex.add("перфоратор");
+    }
+
+    @Test
+    void distanceCountsEditsAndTranspositions() {
+        assertEquals(0, TrigramIndex.distance("дрель", "дрель", 2));
+        assertEquals(1, TrigramIndex.distance("дрель", "дрели", 2));
+        assertEquals(1, TrigramIndex.distance("дрель", "дрль", 2));
+        assertEquals(1, TrigramIndex.distance("дрель", "дрлеь", 2));
+        assertEquals(2, TrigramIndex.distance("перфоратор", "пефроратар", 2));
+    }
+
+    @Test
+    void distanceStopsAboveMax() {
+        assertEquals(2, TrigramIndex.distance("дрель", "пила", 1));
+        assertEquals(3, TrigramIndex.distance("перфоратор", "дрель", 2));
+    }
+
+    @Test
+    void findSimilarReturnsWordsWithinDistance() {
+        assertEquals(Map.of("дрель", 1, "дрели", 2), trigramIndex.findSimilar("дрлеь"));
+        assertEquals(Map.of("перфоратор", 1), trigramIndex.findSimilar("перфаратор"));
+    }
+
+    @Test
+    void findSimilarAllowsOneEditForShortWords() {
+        assertEquals(Map.of("пила", 1), trigramIndex.findSimilar("пилв"));
+        assertEquals(Map.of("пила", 1), trigramIndex.findSimilar("плиа"));
+        assertTrue(trigramIndex.findSimilar("плаи").isEmpty());
+        assertTrue(trigramIndex.findSimilar("пи").isEmpty());
+    }
+
+    @Test
+    void removedWordIsNotSimilar() {
+        trigramIndex.remove("дрели");
+
+        assertEquals(Map.of("дрель", 1), trigramIndex.findSimilar("дрлеь"));
+    }
+
+    @Test
+    void clearRemovesAllWords() {
+        trigramIndex.clear();
+
+        assertTrue(trigramIndex.findSimilar("дрель").isEmpty());
+    }
+
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+class ItemFullTextRepositoryImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ItemJpaRepository itemJpaRepository;
+
+    private Item cordless;
+    private Item screwdriver;
+    private Item drill;
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(new User(null, "Owner", "owner@example.org"));
+        cordless = persistItem(owner, "Шуруповёрт", "Аккумуляторная дрель", true);
+        screwdriver = persistItem(owner, "Отвёртка", "Подходит к дрели 100%", true);
+        drill = persistItem(owner, "Дрель", "Ударная", true);
+        persistItem(owner, "Дрель сломанная", "Не работает", false);
+        entityManager.flush();
+    }
+
+    @Test
+    void findRankedAvailableIdsRanksNameMatchesFirst() {
+        assertEquals(List.of(drill.getId(), cordless.getId(), screwdriver.getId()),
+                itemJpaRepository.findRankedAvailableIds("ДРЕЛ", 0, 10));
+    }
+
+    @Test
+    void findRankedAvailableIdsPages() {
+        assertEquals(List.of(cordless.getId()), itemJpaRepository.findRankedAvailableIds("дрел", 1, 1));
+        assertTrue(itemJpaRepository.findRankedAvailableIds("дрел", 3, 10).isEmpty());
+    }
+
+    @Test
+    void findRankedAvailableIdsTreatsWildcardsLiterally() {
+        assertEquals(List.of(screwdriver.getId()), itemJpaRepository.findRankedAvailableIds("100%", 0, 10));
+        assertTrue(itemJpaRepository.findRankedAvailableIds("_", 0, 10).isEmpty());
+    }
+
+    @Test
+    void findRankedAvailableIdsUsesFullTextOnlyWithProfile() {
+        assertTrue(executedSql().contains("LIKE"));
+        assertTrue(executedSql(ItemSearchEngine.FULL_TEXT_PROFILE).contains("plainto_tsquery"));
+    }
+
+    private static String executedSql(String... profiles) {
+        EntityManager mockEntityManager = mock(EntityManager.class);
+        Query query = mock(Query.class, RETURNS_SELF);
+        when(query.getResultList()).thenReturn(List.of());
+        when(mockEntityManager.createNativeQuery(anyString())).thenReturn(query);
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(profiles);
+        ItemFullTextRepositoryImpl repository = new ItemFullTextRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", mockEntityManager);
+        ReflectionTestUtils.setField(repository, "environment", environment);
+
+        repository.findRankedAvailableIds("дрель", 0, 10);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(mockEntityManager).createNativeQuery(sql.capture());
+        return sql.getValue();
+    }
+
+    private Item persistItem(User owner, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return entityManager.persist(item);
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseItemSearchEngineTest {
+
+    private static final int BATCH_SIZE = DatabaseItemSearchEngine.BATCH_SIZE;
+
+    @Mock
+    private ItemJpaRepository itemJpaRepository;
+
+    private DatabaseItemSearchEngine databaseItemSearchEngine;
+
+    @BeforeEach
+    void setUp() {
+        databaseItemSearchEngine = new DatabaseItemSearchEngine(itemJpaRepository);
+    }
+
+    @Test
+    void searchWithoutFilterPagesInDatabase() {
+        when(itemJpaRepository.findRankedAvailableIds("дрель", 20, 10)).thenReturn(List.of(5L, 3L));
+
+        assertEquals(List.of(5L, 3L), databaseItemSearchEngine.search("дрель", false, null, 20, 10));
+    }
+
+    @Test
+    void searchWithFilterReadsBatchesUntilPageIsFull() {
+        when(itemJpaRepository.findRankedAvailableIds("дрель", 0, BATCH_SIZE)).thenReturn(ids(1, BATCH_SIZE));
+        when(itemJpaRepository.findRankedAvailableIds("дрель", BATCH_SIZE, BATCH_SIZE))
+                .thenReturn(ids(BATCH_SIZE + 1, 2 * BATCH_SIZE));
+
+        List<Long> page = databaseItemSearchEngine.search("дрель", false, itemId -> itemId % 10 == 0, 8, 3);
+
+        assertEquals(List.of(90L, 100L, 110L), page);
+        verify(itemJpaRepository, never()).findRankedAvailableIds("дрель", 2 * BATCH_SIZE, BATCH_SIZE);
+    }
+
+    @Test
+    void searchWithFilterStopsOnLastBatch() {
+        when(itemJpaRepository.findRankedAvailableIds("дрель", 0, BATCH_SIZE)).thenReturn(ids(1, 5));
+
+        assertEquals(List.of(2L, 4L),
+                databaseItemSearchEngine.search("дрель", false, itemId -> itemId % 2 == 0, 0, 10));
+        verify(itemJpaRepository, times(1)).findRankedAvailableIds(anyString(), anyInt(), anyInt());
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+}
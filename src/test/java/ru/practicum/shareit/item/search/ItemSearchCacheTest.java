@@ -0,0 +1,148 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchCacheTest {
+
+    private static final List<ItemDto> ITEMS = List.of(new ItemDto(1L, "Дрель", "Ударная", true, null));
+
+    private ItemSearchCache itemSearchCache;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchCache = new ItemSearchCache(2);
+    }
+
+    @Test
+    void getReturnsPutPage() {
+        assertNull(itemSearchCache.get(key("дрель")));
+
+        itemSearchCache.put(key("дрель"), ITEMS, itemSearchCache.version());
+
+        assertEquals(ITEMS, itemSearchCache.get(key("дрель")));
+        assertNull(itemSearchCache.get(new ItemSearchCache.Key(List.of("дрель"), true, 0, 10)));
+        assertNull(itemSearchCache.get(new ItemSearchCache.Key(List.of("дрель"), false, 10, 10)));
+    }
+
+    @Test
+    void putIgnoresPageComputedBeforeInvalidation() {
+        long version = itemSearchCache.version();
+        itemSearchCache.invalidate(key -> false);
+
+        itemSearchCache.put(key("дрель"), ITEMS, version);
+
+        assertNull(itemSearchCache.get(key("дрель")));
+    }
+
+    @Test
+    void putRejectsRareKeyWhenFull() {
+        putAfterRequests("дрель", 3);
+        putAfterRequests("пила", 3);
+
+        putAfterRequests("молоток", 1);
+
+        assertNull(itemSearchCache.get(key("молоток")));
+        assertNotNull(itemSearchCache.get(key("дрель")));
+        assertNotNull(itemSearchCache.get(key("пила")));
+        assertEquals(1, itemSearchCache.rejections());
+        assertEquals(0, itemSearchCache.evictions());
+    }
+
+    @Test
+    void putEvictsLeastRecentlyUsedForFrequentKey() {
+        putAfterRequests("дрель", 1);
+        putAfterRequests("пила", 1);
+        itemSearchCache.get(key("дрель"));
+
+        putAfterRequests("молоток", 5);
+
+        assertNotNull(itemSearchCache.get(key("молоток")));
+        assertNotNull(itemSearchCache.get(key("дрель")));
+        assertNull(itemSearchCache.get(key("пила")));
+        assertEquals(1, itemSearchCache.evictions());
+    }
+
+    @Test
+    void invalidateRemovesOnlyAffectedEntries() {
+        putAfterRequests("дрель", 1);
+        putAfterRequests("пила", 1);
+
+        itemSearchCache.invalidate(key -> key.getTerms().contains("пила"));
+
+        assertNotNull(itemSearchCache.get(key("дрель")));
+        assertNull(itemSearchCache.get(key("пила")));
+        assertEquals(1, itemSearchCache.invalidations());
+    }
+
+    @Test
+    void invalidateAllRemovesEverything() {
+        putAfterRequests("дрель", 1);
+        putAfterRequests("пила", 1);
+
+        itemSearchCache.invalidateAll();
+
+        assertEquals(0, itemSearchCache.size());
+        assertEquals(2, itemSearchCache.invalidations());
+    }
+
+    @Test
+    void itemUpdatedRemovesPagesWithItem() {
+        putAfterRequests("дрель", 1);
+        itemSearchCache.put(key("пила"), List.of(), itemSearchCache.version());
+
+        itemSearchCache.onEvents(List.of(new ItemUpdated(1L, 10L)));
+
+        assertNull(itemSearchCache.get(key("дрель")));
+        assertNotNull(itemSearchCache.get(key("пила")));
+    }
+
+    @Test
+    void userDeletedRemovesEverything() {
+        putAfterRequests("дрель", 1);
+
+        itemSearchCache.onEvents(List.of(new ItemUpdated(2L, 10L), new UserDeleted(10L)));
+
+        assertEquals(0, itemSearchCache.size());
+    }
+
+    @Test
+    void exposesMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        itemSearchCache.bindTo(registry);
+        putAfterRequests("дрель", 1);
+        itemSearchCache.get(key("дрель"));
+        itemSearchCache.get(key("дрель"));
+        itemSearchCache.get(key("пила"));
+
+        assertEquals(2, registry.get("shareit.item.search.cache.requests").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2, registry.get("shareit.item.search.cache.requests").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(0.5, registry.get("shareit.item.search.cache.hit.ratio").gauge().value());
+        assertEquals(1, registry.get("shareit.item.search.cache.size").gauge().value());
+        assertEquals(0, registry.get("shareit.item.search.cache.evictions").functionCounter().count());
+        assertEquals(0, registry.get("shareit.item.search.cache.rejections").functionCounter().count());
+        assertEquals(0, registry.get("shareit.item.search.cache.invalidations").functionCounter().count());
+    }
+
+    private void putAfterRequests(String term, int requests) {
+        for (int i = 0; i < requests; i++) {
+            itemSearchCache.get(key(term));
+        }
+        itemSearchCache.put(key(term), ITEMS, itemSearchCache.version());
+    }
+
+    private static ItemSearchCache.Key key(String term) {
+        return new ItemSearchCache.Key(List.of(term), false, 0, 10);
+    }
+
+}
@@ -2,22 +2,42 @@ package ru.practicum.shareit.item.service.impl;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import ru.practicum.shareit.booking.Status;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NearestBookingView;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentJpaRepository;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
+import ru.practicum.shareit.common.event.ItemUpdated;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.dto.ItemWithBookingsResponseDto;
+import ru.practicum.shareit.item.index.ItemNameSuggester;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.summary.OwnerItemSummary;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
+import ru.practicum.shareit.request.index.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.model.User;
@@ -25,15 +45,21 @@ import ru.practicum.shareit.user.repository.UserJpaRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
-@ContextConfiguration(classes = {ItemServiceImpl.class})
+@ContextConfiguration(classes = {ItemServiceImpl.class, EntityLoader.class, KnownIdFilter.class})
 @ExtendWith(SpringExtension.class)
 class ItemServiceImplTest {
 
@@ -55,11 +81,40 @@ class ItemServiceImplTest {
     @MockBean
     private UserJpaRepository userJpaRepository;
 
+    @MockBean
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @MockBean
+    private ItemAvailabilityIndex itemAvailabilityIndex;
+
+    @MockBean
+    private ItemSearchEngine itemSearchEngine;
+
+    @MockBean
+    private ItemNameSuggester itemNameSuggester;
+
+    @MockBean
+    private ItemSearchCache itemSearchCache;
+
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+
+    @MockBean
+    private ItemPageCache itemPageCache;
+
+    @MockBean
+    private DomainEventPublisher domainEventPublisher;
+
+    @MockBean
+    private OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository;
+
+    @MockBean
+    private OwnerItemSummaryUpdater ownerItemSummaryUpdater;
+
     @Test
     void testAddItem() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -75,28 +130,28 @@ class ItemServiceImplTest {
         assertEquals("Item1", itemDto.getName());
         assertEquals(1L, itemDto.getId().longValue());
         assertEquals("Item description", itemDto.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemJpaRepository).save(any());
+        verify(itemSearchEngine).index(item);
+        verify(itemNameSuggester).index(item);
+        verify(ownerItemSummaryUpdater).itemAdded(item);
     }
 
     @Test
     void testAddItem2() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemJpaRepository.save(any())).thenThrow(new NotFoundException("An error occurred"));
         assertThrows(NotFoundException.class, () -> itemServiceImpl.addItem(new ItemRequestDto(), 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemJpaRepository).save(any());
     }
 
     @Test
     void testAddItem3() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         User user1 = createUser();
 
@@ -107,13 +162,11 @@ class ItemServiceImplTest {
         Item item = createItem(user1, itemRequest);
         when(itemJpaRepository.save(any())).thenReturn(item);
         assertThrows(NotFoundException.class, () -> itemServiceImpl.addItem(new ItemRequestDto(), 1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testUpdateItem() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-
         User user = createUser();
 
         User user1 = createUser();
@@ -134,24 +187,23 @@ class ItemServiceImplTest {
 
         Item item1 = createItem(user2, itemRequest1);
         when(itemJpaRepository.save(any())).thenReturn(item1);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
         ItemDto updatedItem = itemServiceImpl.updateItem(1L, new ItemRequestDto(), 1L);
         assertTrue(updatedItem.getAvailable());
         assertEquals(1L, updatedItem.getRequestId());
         assertEquals("Item1", updatedItem.getName());
         assertEquals(1L, updatedItem.getId().longValue());
         assertEquals("Item description", updatedItem.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository, atLeast(1)).getReferenceById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
         verify(itemJpaRepository).save(any());
+        verify(itemNameSuggester).index(item1);
+        verify(ownerItemSummaryUpdater).itemUpdated(item1);
+        verify(itemPageCache).invalidate(item1.getId());
+        verify(domainEventPublisher).publish(new ItemUpdated(item1.getId(), 1L));
     }
 
     @Test
     void testUpdateItem2() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-
         User user = createUser();
 
         User user1 = createUser();
@@ -160,19 +212,14 @@ class ItemServiceImplTest {
 
         Item item = createItem(user, itemRequest);
         when(itemJpaRepository.save(any())).thenThrow(new NotFoundException("An error occurred"));
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
         assertThrows(NotFoundException.class, () -> itemServiceImpl.updateItem(1L, new ItemRequestDto(), 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository, atLeast(1)).getReferenceById(anyLong());
+        verify(itemJpaRepository).findById(anyLong());
         verify(itemJpaRepository).save(any());
     }
 
     @Test
     void testUpdateItem3() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
-
         User user = createUser();
 
         User user1 = createUser();
@@ -189,643 +236,466 @@ class ItemServiceImplTest {
 
         Item item1 = createItem(user2, itemRequest1);
         when(itemJpaRepository.save(any())).thenReturn(item1);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
-        assertThrows(NotFoundException.class, () -> itemServiceImpl.updateItem(1L, new ItemRequestDto(), 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).existsById(anyLong());
+        when(itemJpaRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        assertThrows(NotFoundException.class, () -> itemServiceImpl.updateItem(1L, new ItemRequestDto(), 2L));
+        verify(itemJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemById() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Booking booking = createBooking(user, item);
-        Optional<Booking> ofResult = Optional.of(booking);
-
-        User user3 = createUser();
-
-        User user4 = createUser();
-
-        User user5 = createUser();
-
-        ItemRequest itemRequest1 = createRequest(user5);
-
-        Item item1 = createItem(user4, itemRequest1);
-
-        Booking booking1 = createBooking(user3, item1);
-
-        Optional<Booking> ofResult1 = Optional.of(booking1);
-        when(bookingJpaRepository.findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any()))
-                .thenReturn(ofResult);
-        when(bookingJpaRepository.findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any()))
-                .thenReturn(ofResult1);
-
-        User user6 = createUser();
-
-        User user7 = createUser();
-
-        ItemRequest itemRequest2 = createRequest(user7);
-
-        Item item2 = createItem(user6, itemRequest2);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item2);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
-        ArrayList<Comment> commentList = new ArrayList<>();
-        when(commentJpaRepository.findAllByItemId(anyLong())).thenReturn(commentList);
+        User owner = createUser();
+        Item item = createItem(owner, createRequest(createUser()));
+        User booker = createUser();
+        booker.setId(2L);
+        Booking lastBooking = createBooking(booker, item);
+        Booking nextBooking = createBooking(booker, item);
+        nextBooking.setId(2L);
+        when(bookingJpaRepository.findNearestBookings(any(), any(), any()))
+                .thenReturn(toViews(List.of(lastBooking), List.of(nextBooking)));
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        ArrayList<CommentView> commentList = new ArrayList<>();
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenReturn(commentList);
         ItemWithBookingsResponseDto actualItemById = itemServiceImpl.findItemById(1L, 1L);
         assertTrue(actualItemById.getAvailable());
         assertEquals("Item1", actualItemById.getName());
         assertEquals(commentList, actualItemById.getComments());
         assertEquals(1L, actualItemById.getId().longValue());
         assertEquals("Item description", actualItemById.getDescription());
-        BookingDto lastBooking = actualItemById.getLastBooking();
-        assertEquals(1L, lastBooking.getId());
-        assertEquals(1L, lastBooking.getBookerId());
-        BookingDto nextBooking = actualItemById.getNextBooking();
-        assertEquals(1L, nextBooking.getId());
-        assertEquals(1L, nextBooking.getBookerId());
-        verify(bookingJpaRepository).findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any());
-        verify(bookingJpaRepository).findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).getReferenceById(anyLong());
-        verify(commentJpaRepository).findAllByItemId(anyLong());
+        BookingDto actualLastBooking = actualItemById.getLastBooking();
+        assertEquals(1L, actualLastBooking.getId());
+        assertEquals(2L, actualLastBooking.getBookerId());
+        BookingDto actualNextBooking = actualItemById.getNextBooking();
+        assertEquals(2L, actualNextBooking.getId());
+        assertEquals(2L, actualNextBooking.getBookerId());
+        verify(bookingJpaRepository).findNearestBookings(eq(List.of(1L)), any(), any());
+        verify(itemJpaRepository).findViewById(anyLong());
+        verify(commentJpaRepository).findViewsByItemId(anyLong());
     }
 
     @Test
     void testFindItemById2() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Booking booking = createBooking(user, item);
-        Optional<Booking> ofResult = Optional.of(booking);
-
-        User user3 = createUser();
-
-        User user4 = createUser();
-
-        User user5 = createUser();
-
-        ItemRequest itemRequest1 = createRequest(user5);
-
-        Item item1 = createItem(user4, itemRequest1);
-
-        Booking booking1 = createBooking(user3, item1);
-        Optional<Booking> ofResult1 = Optional.of(booking1);
-        when(bookingJpaRepository.findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any()))
-                .thenReturn(ofResult);
-        when(bookingJpaRepository.findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any()))
-                .thenReturn(ofResult1);
-
-        User user6 = createUser();
-
-        User user7 = createUser();
-
-        ItemRequest itemRequest2 = createRequest(user7);
-
-        Item item2 = createItem(user6, itemRequest2);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item2);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(commentJpaRepository.findAllByItemId(anyLong())).thenThrow(new NotFoundException("An error occurred"));
+        Item item = createItem(createUser(), createRequest(createUser()));
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenThrow(new NotFoundException("An error occurred"));
         assertThrows(NotFoundException.class, () -> itemServiceImpl.findItemById(1L, 1L));
-        verify(bookingJpaRepository).findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any());
-        verify(bookingJpaRepository).findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).getReferenceById(anyLong());
-        verify(commentJpaRepository).findAllByItemId(anyLong());
+        verify(bookingJpaRepository, never()).findNearestBookings(any(), any(), any());
+        verify(itemJpaRepository).findViewById(anyLong());
+        verify(commentJpaRepository).findViewsByItemId(anyLong());
     }
 
     @Test
     void testFindItemById3() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        User user3 = new User();
-        user3.setEmail("user3@example.org");
-        user3.setId(1L);
-        user3.setName("User3");
-        Booking booking = mock(Booking.class);
-        when(booking.getId()).thenReturn(1L);
-        when(booking.getStatus()).thenReturn(Status.REJECTED);
-        when(booking.getBooker()).thenReturn(user3);
-        doNothing().when(booking).setBooker(any());
-        doNothing().when(booking).setEnd(any());
-        doNothing().when(booking).setId(anyLong());
-        doNothing().when(booking).setItem(any());
-        doNothing().when(booking).setStart(any());
-        doNothing().when(booking).setStatus(any());
-        booking.setBooker(user);
-        booking.setEnd(LocalDateTime.of(1, 1, 1, 1, 1));
-        booking.setId(1L);
-        booking.setItem(item);
-        booking.setStart(LocalDateTime.of(1, 1, 1, 1, 1));
-        booking.setStatus(Status.WAITING);
-        Optional<Booking> ofResult = Optional.of(booking);
-
-        User user4 = createUser();
-
-        User user5 = createUser();
-
-        User user6 = createUser();
-
-        ItemRequest itemRequest1 = createRequest(user6);
-
-        Item item1 = createItem(user5, itemRequest1);
-
-        Booking booking1 = createBooking(user4, item1);
-
-        Optional<Booking> ofResult1 = Optional.of(booking1);
-        when(bookingJpaRepository.findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any()))
-                .thenReturn(ofResult);
-        when(bookingJpaRepository.findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any()))
-                .thenReturn(ofResult1);
-
-        User user7 = createUser();
+        Item item = createItem(createUser(), createRequest(createUser()));
+        Booking nextBooking = createBooking(createUser(), item);
+        when(bookingJpaRepository.findNearestBookings(any(), any(), any()))
+                .thenReturn(toViews(List.of(), List.of(nextBooking)));
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenReturn(new ArrayList<>());
+        ItemWithBookingsResponseDto actualItemById = itemServiceImpl.findItemById(1L, 1L);
+        assertNull(actualItemById.getLastBooking());
+        BookingDto actualNextBooking = actualItemById.getNextBooking();
+        assertEquals(1L, actualNextBooking.getId());
+        assertEquals(1L, actualNextBooking.getBookerId());
+    }
 
-        User user8 = createUser();
+    @Test
+    void testFindItemByIdWhenUserIsNotOwnerThenBookingsAreNotLoaded() {
+        Item item = createItem(createUser(), createRequest(createUser()));
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenReturn(new ArrayList<>());
+        ItemWithBookingsResponseDto actualItemById = itemServiceImpl.findItemById(1L, 2L);
+        assertNull(actualItemById.getLastBooking());
+        assertNull(actualItemById.getNextBooking());
+        verify(bookingJpaRepository, never()).findNearestBookings(any(), any(), any());
+    }
 
-        ItemRequest itemRequest2 = createRequest(user8);
+    @Test
+    void testFindItemPageByIdWhenUserIsOwnerThenPageExpiresWithNearestBookings() {
+        Item item = createItem(createUser(), createRequest(createUser()));
+        LocalDateTime changeAt = LocalDateTime.now().plusDays(1);
+        byte[] page = {'{', '}'};
+        when(itemPageCache.version()).thenReturn(3L);
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenReturn(new ArrayList<>());
+        when(bookingJpaRepository.findNearestBookings(any(), any(), any())).thenReturn(toViews(List.of(), List.of()));
+        when(bookingJpaRepository.findNearestBookingsChange(anyLong(), any(), any())).thenReturn(Optional.of(changeAt));
+        when(itemPageCache.put(eq(1L), eq(1L), eq(1L), any(), eq(changeAt), eq(3L))).thenReturn(page);
+
+        assertSame(page, itemServiceImpl.findItemPageById(1L, 1L));
+    }
 
-        Item item2 = createItem(user7, itemRequest2);
-        when(itemJpaRepository.getReferenceById(anyLong())).thenReturn(item2);
-        when(itemJpaRepository.existsById(anyLong())).thenReturn(true);
-        ArrayList<Comment> commentList = new ArrayList<>();
-        when(commentJpaRepository.findAllByItemId(anyLong())).thenReturn(commentList);
-        ItemWithBookingsResponseDto actualItemById = itemServiceImpl.findItemById(1L, 1L);
-        assertTrue(actualItemById.getAvailable());
-        assertEquals("Item1", actualItemById.getName());
-        assertEquals(commentList, actualItemById.getComments());
-        assertEquals(1L, actualItemById.getId());
-        assertEquals("Item description", actualItemById.getDescription());
-        BookingDto nextBooking = actualItemById.getNextBooking();
-        assertEquals(1L, nextBooking.getId());
-        assertEquals(1L, nextBooking.getBookerId());
-        verify(bookingJpaRepository).findFirstByItemIdAndEndIsBeforeOrderByEndDesc(anyLong(), any());
-        verify(bookingJpaRepository).findFirstByItemIdAndStartIsAfterOrderByStart(anyLong(), any());
-        verify(booking).getStatus();
-        verify(booking).setBooker(any());
-        verify(booking).setEnd(any());
-        verify(booking).setId(anyLong());
-        verify(booking).setItem(any());
-        verify(booking).setStart(any());
-        verify(booking).setStatus(any());
-        verify(itemJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).getReferenceById(anyLong());
-        verify(commentJpaRepository).findAllByItemId(anyLong());
+    @Test
+    void testFindItemPageByIdWhenUserIsNotOwnerThenPageDoesNotExpire() {
+        Item item = createItem(createUser(), createRequest(createUser()));
+        byte[] page = {'{', '}'};
+        when(itemPageCache.version()).thenReturn(3L);
+        when(itemJpaRepository.findViewById(anyLong())).thenReturn(Optional.of(toItemView(item)));
+        when(commentJpaRepository.findViewsByItemId(anyLong())).thenReturn(new ArrayList<>());
+        when(itemPageCache.put(eq(1L), eq(1L), eq(2L), any(), isNull(), eq(3L))).thenReturn(page);
+
+        assertSame(page, itemServiceImpl.findItemPageById(1L, 2L));
+        verify(bookingJpaRepository, never()).findNearestBookingsChange(anyLong(), any(), any());
     }
 
     @Test
     void testFindUserItems() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong())).thenReturn(new ArrayList<>());
         assertTrue(itemServiceImpl.findUserItems(1L).isEmpty());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        verify(userJpaRepository).findById(anyLong());
+        verify(ownerItemSummaryJpaRepository).findByOwnerIdOrderByItemId(1L);
+        verify(bookingJpaRepository, never()).findNearestBookings(any(), any(), any());
+        verify(commentJpaRepository, never()).findViewsByItemIdIn(any());
     }
 
     @Test
     void testFindUserItems2() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any()))
+        OwnerItemSummary summary = createSummary(1L);
+        summary.setCommentCount(1);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong())).thenReturn(List.of(summary));
+        when(commentJpaRepository.findViewsByItemIdIn(any()))
                 .thenThrow(new NotFoundException("An error occurred"));
         assertThrows(NotFoundException.class, () -> itemServiceImpl.findUserItems(1L));
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        verify(commentJpaRepository).findViewsByItemIdIn(List.of(1L));
     }
 
     @Test
     void testFindUserItems3() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Booking booking = createBooking(user, item);
-
-        ArrayList<Booking> bookingList = new ArrayList<>();
-        bookingList.add(booking);
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(bookingList);
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
-        assertTrue(itemServiceImpl.findUserItems(1L).isEmpty());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        OwnerItemSummary summary = createSummary(1L);
+        summary.setLastBookingId(2L);
+        summary.setLastBookerId(3L);
+        summary.setNextBookingId(4L);
+        summary.setNextBookerId(5L);
+        summary.setNextBookingStart(LocalDateTime.now().plusDays(1));
+        summary.setBookingsChangeAt(summary.getNextBookingStart());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong())).thenReturn(List.of(summary));
+
+        List<ItemWithBookingsResponseDto> items = itemServiceImpl.findUserItems(1L);
+
+        assertEquals(1, items.size());
+        assertEquals(2L, items.get(0).getLastBooking().getId());
+        assertEquals(3L, items.get(0).getLastBooking().getBookerId());
+        assertEquals(4L, items.get(0).getNextBooking().getId());
+        assertEquals(5L, items.get(0).getNextBooking().getBookerId());
+        verify(bookingJpaRepository, never()).findNearestBookings(any(), any(), any());
     }
 
     @Test
     void testFindUserItems4() {
         User user = createUser();
 
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
+        Item item = createItem(createUser(), null);
 
         Booking booking = createBooking(user, item);
-
-        User user3 = createUser();
-
-        User user4 = createUser();
-
-        User user5 = createUser();
-
-        ItemRequest itemRequest1 = createRequest(user5);
-
-        Item item1 = createItem(user4, itemRequest1);
-
-        Booking booking1 = createBooking(user3, item1);
-        booking1.setStatus(Status.APPROVED);
-
-        ArrayList<Booking> bookingList = new ArrayList<>();
-        bookingList.add(booking1);
-        bookingList.add(booking);
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(bookingList);
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
+        booking.setId(6L);
+
+        OwnerItemSummary summary = createSummary(1L);
+        summary.setLastBookingId(2L);
+        summary.setLastBookerId(3L);
+        summary.setNextBookingId(4L);
+        summary.setNextBookerId(5L);
+        summary.setBookingsChangeAt(LocalDateTime.now().minusMinutes(1));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong())).thenReturn(List.of(summary));
+        when(bookingJpaRepository.findNearestBookings(any(), any(), any()))
+                .thenReturn(toViews(List.of(booking), List.of()));
+
+        List<ItemWithBookingsResponseDto> items = itemServiceImpl.findUserItems(1L);
+
+        assertEquals(6L, items.get(0).getLastBooking().getId());
+        assertNull(items.get(0).getNextBooking());
+        verify(bookingJpaRepository).findNearestBookings(eq(List.of(1L)), any(), any());
     }
 
     @Test
     void testFindUserItems5() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Booking booking = createBooking(user, item);
-
-        ArrayList<Booking> bookingList = new ArrayList<>();
-        bookingList.add(booking);
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(bookingList);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
-        assertTrue(itemServiceImpl.findUserItems(1L).isEmpty());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        OwnerItemSummary summary = createSummary(1L);
+        summary.setWaitingCount(2);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong())).thenReturn(List.of(summary));
+
+        ItemWithBookingsResponseDto item = itemServiceImpl.findUserItems(1L).get(0);
+
+        assertEquals(2, item.getWaitingBookings());
+        assertEquals("Item1", item.getName());
+        assertEquals("Item description", item.getDescription());
+        assertTrue(item.getAvailable());
+        assertNull(item.getLastBooking());
+        assertNull(item.getNextBooking());
+        assertTrue(item.getComments().isEmpty());
     }
 
     @Test
     void testFindUserItems6() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Booking booking = createBooking(user, item);
-
-        User user3 = createUser();
-
-        User user4 = createUser();
-
-        User user5 = createUser();
-
-        ItemRequest itemRequest1 = createRequest(user5);
-
-        Item item1 = createItem(user4, itemRequest1);
-
-        Booking booking1 = createBooking(user3, item1);
-
-        ArrayList<Booking> bookingList = new ArrayList<>();
-        bookingList.add(booking1);
-        bookingList.add(booking);
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(bookingList);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
-    }
-
-    @Test
-    void testFindUserItems7() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> itemServiceImpl.findUserItems(1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(ownerItemSummaryJpaRepository, never()).findByOwnerIdOrderByItemId(anyLong());
     }
 
     @Test
-    void testFindUserItems8() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-
+    void testFindUserItems7() {
         User user = createUser();
 
-        User user1 = createUser();
+        Item item = createItem(createUser(), null);
 
-        ItemRequest itemRequest = createRequest(user1);
+        Comment comment = createComment(user, item);
 
-        Item item = createItem(user, itemRequest);
+        Item item1 = createItem(createUser(), null);
+        item1.setId(2L);
+
+        Comment comment1 = createComment(user, item1);
+        comment1.setId(2L);
+
+        OwnerItemSummary summary = createSummary(1L);
+        summary.setCommentCount(1);
+        OwnerItemSummary summary1 = createSummary(2L);
+        summary1.setCommentCount(1);
+        OwnerItemSummary summary2 = createSummary(3L);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(anyLong()))
+                .thenReturn(List.of(summary, summary1, summary2));
+        when(commentJpaRepository.findViewsByItemIdIn(any())).thenReturn(toCommentViews(List.of(comment, comment1)));
+
+        List<ItemWithBookingsResponseDto> items = itemServiceImpl.findUserItems(1L);
+
+        assertEquals(3, items.size());
+        assertEquals(1L, items.get(0).getComments().get(0).getId());
+        assertEquals(2L, items.get(1).getComments().get(0).getId());
+        assertTrue(items.get(2).getComments().isEmpty());
+        verify(commentJpaRepository).findViewsByItemIdIn(List.of(1L, 2L));
+    }
 
-        ArrayList<Item> itemList = new ArrayList<>();
-        itemList.add(item);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(itemList);
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
-        assertEquals(1, itemServiceImpl.findUserItems(1L).size());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
-    }
-
-    @Test
-    void testFindUserItems9() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
+    @Test
+    void testSearchItemsByText() {
+        when(itemSearchEngine.search("Text", false, null, 0, 10)).thenReturn(new ArrayList<>());
+        assertTrue(itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 10, false).isEmpty());
+        verify(itemSearchEngine).search("Text", false, null, 0, 10);
+        verify(itemJpaRepository, never()).findViewsByIdIn(any());
+    }
 
+    @Test
+    void testSearchItemsByText2() {
         User user = createUser();
 
         User user1 = createUser();
 
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
+        ItemRequest request = createRequest(user1);
 
-        Comment comment = createComment(user, item);
+        Item item = createItem(user, request);
 
-        ArrayList<Comment> commentList = new ArrayList<>();
-        commentList.add(comment);
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(commentList);
-        assertTrue(itemServiceImpl.findUserItems(1L).isEmpty());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        when(itemSearchEngine.search("Text", false, null, 0, 10)).thenReturn(List.of(1L));
+        when(itemJpaRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(toItemView(item)));
+        List<ItemDto> itemDtoList = itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 10, false);
+        assertEquals(1, itemDtoList.size());
+        ItemDto getResult = itemDtoList.get(0);
+        assertTrue(getResult.getAvailable());
+        assertEquals(1L, getResult.getRequestId());
     }
 
     @Test
-    void testFindUserItems10() {
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any())).thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
-
+    void testSearchItemsByText3() {
         User user = createUser();
 
         User user1 = createUser();
 
-        User user2 = createUser();
-
-        ItemRequest itemRequest = createRequest(user2);
-
-        Item item = createItem(user1, itemRequest);
-
-        Comment comment = createComment(user, item);
-
-        User user3 = createUser();
-
-        User user4 = createUser();
-
-        User user5 = createUser();
+        ItemRequest itemRequest = createRequest(user1);
 
-        ItemRequest itemRequest1 = createRequest(user5);
+        Item item = createItem(user, itemRequest);
 
-        Item item1 = createItem(user4, itemRequest1);
+        User user2 = createUser();
 
-        Comment comment1 = createComment(user3, item1);
+        Item item1 = createItem(user2, null);
+        item1.setId(2L);
+        item1.setName("Item2");
 
-        ArrayList<Comment> commentList = new ArrayList<>();
-        commentList.add(comment1);
-        commentList.add(comment);
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(commentList);
-        assertTrue(itemServiceImpl.findUserItems(1L).isEmpty());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(),
-                any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(),
-                any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        when(itemSearchEngine.search("Text", false, null, 0, 10)).thenReturn(List.of(2L, 1L));
+        when(itemJpaRepository.findViewsByIdIn(List.of(2L, 1L))).thenReturn(List.of(toItemView(item), toItemView(item1)));
+        List<ItemDto> itemDtoList = itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 10, false);
+        assertEquals(2, itemDtoList.size());
+        ItemDto getResult = itemDtoList.get(0);
+        assertEquals("Item2", getResult.getName());
+        assertNull(getResult.getRequestId());
+        ItemDto getResult1 = itemDtoList.get(1);
+        assertEquals(1L, getResult1.getRequestId());
+        assertEquals("Item description", getResult1.getDescription());
+        assertTrue(getResult1.getAvailable());
     }
 
     @Test
-    void testFindUserItem() {
-        User user = createUser();
-
-        User user1 = createUser();
-
-        User user2 = createUser();
-
-        ItemRequest request = createRequest(user2);
+    void testSearchItemsByText4() {
+        assertTrue(itemServiceImpl.searchItemsByText("", null, null, 1L, 0, 10, false).isEmpty());
+        verifyNoInteractions(itemSearchEngine);
+    }
 
-        Item item = createItem(user1, request);
+    @Test
+    void testSearchItemsByText5() {
+        when(itemSearchEngine.search("Text", false, null, 0, 10)).thenThrow(new NotFoundException("An error occurred"));
+        assertThrows(NotFoundException.class,
+                () -> itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 10, false));
+        verify(itemSearchEngine).search("Text", false, null, 0, 10);
+    }
 
-        Booking booking = createBooking(user, item);
+    @Test
+    void testSearchItemsByTextCapsPageSize() {
+        when(itemSearchEngine.search("Text", false, null, 0, ItemServiceImpl.MAX_SEARCH_SIZE)).thenReturn(List.of());
 
-        ArrayList<Booking> bookingList = new ArrayList<>();
-        bookingList.add(booking);
-        when(bookingJpaRepository.findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(), any()))
-                .thenReturn(bookingList);
-        when(bookingJpaRepository.findFirstByItemIdInAndStartIsAfterOrderByStart(any(), any()))
-                .thenReturn(new ArrayList<>());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        assertTrue(itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 1_000, false).isEmpty());
+    }
 
-        User user3 = createUser();
+    @Test
+    void testSearchItemsByTextPassesPageAndFuzzyToEngine() {
+        Item item = createItem(createUser(), null);
+        when(itemSearchEngine.search("Text", true, null, 20, 10)).thenReturn(List.of(1L));
+        when(itemJpaRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(toItemView(item)));
 
-        User user4 = createUser();
+        assertEquals(1, itemServiceImpl.searchItemsByText("Text", null, null, 1L, 20, 10, true).size());
+    }
 
-        ItemRequest request1 = createRequest(user4);
+    @Test
+    void testSearchItemsByTextSkipsItemsMissingInDatabase() {
+        Item item = createItem(createUser(), null);
+        when(itemSearchEngine.search("Text", false, null, 0, 10)).thenReturn(List.of(1L, 2L));
+        when(itemJpaRepository.findViewsByIdIn(List.of(1L, 2L))).thenReturn(List.of(toItemView(item)));
 
-        Item item1 = createItem(user3, request1);
+        List<ItemDto> itemDtoList = itemServiceImpl.searchItemsByText("Text", null, null, 1L, 0, 10, false);
 
-        ArrayList<Item> itemList = new ArrayList<>();
-        itemList.add(item1);
-        when(itemJpaRepository.findAllByOwnerId(anyLong())).thenReturn(itemList);
-        when(commentJpaRepository.findAllByItemIdIn(any())).thenReturn(new ArrayList<>());
-        assertEquals(1, itemServiceImpl.findUserItems(1L).size());
-        verify(bookingJpaRepository).findFirstByItemIdInAndEndIsBeforeOrderByEndDesc(any(), any());
-        verify(bookingJpaRepository).findFirstByItemIdInAndStartIsAfterOrderByStart(any(), any());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByOwnerId(anyLong());
-        verify(commentJpaRepository).findAllByItemIdIn(any());
+        assertEquals(1, itemDtoList.size());
+        assertEquals(1L, itemDtoList.get(0).getId());
     }
 
     @Test
-    void testSearchItemsByText() {
-        when(itemJpaRepository
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true))
-                .thenReturn(new ArrayList<>());
-        assertTrue(itemServiceImpl.searchItemsByText("Text", 1L).isEmpty());
-        verify(itemJpaRepository)
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true);
+    @SuppressWarnings("unchecked")
+    void testSearchItemsByTextForPeriodFiltersBusyItems() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 3, 10, 0);
+        BitSet possiblyBusyItems = new BitSet();
+        possiblyBusyItems.set(2);
+        possiblyBusyItems.set(3);
+        when(itemAvailabilityIndex.findPossiblyBusyItems(from, to)).thenReturn(possiblyBusyItems);
+        when(bookingIntervalIndex.isFree(2L, from, to)).thenReturn(false);
+        when(bookingIntervalIndex.isFree(3L, from, to)).thenReturn(true);
+        ArgumentCaptor<Predicate<Long>> filterCaptor = ArgumentCaptor.forClass(Predicate.class);
+        when(itemSearchEngine.search(eq("Text"), eq(false), filterCaptor.capture(), eq(0), eq(10))).thenReturn(List.of());
+
+        assertTrue(itemServiceImpl.searchItemsByText("Text", from, to, 1L, 0, 10, false).isEmpty());
+
+        Predicate<Long> filter = filterCaptor.getValue();
+        assertTrue(filter.test(1L));
+        assertFalse(filter.test(2L));
+        assertTrue(filter.test(3L));
+        verify(bookingIntervalIndex, never()).isFree(eq(1L), any(), any());
     }
 
     @Test
-    void testSearchItemsByText2() {
-        User user = createUser();
+    void testSearchItemsByTextReturnsCachedPage() {
+        List<ItemDto> cachedItems = List.of(new ItemDto(1L, "Дрель", "Ударная", true, null));
+        when(itemSearchEngine.isCacheable()).thenReturn(true);
+        when(itemSearchCache.get(new ItemSearchCache.Key(List.of("дрель", "ударная"), false, 0, 10)))
+                .thenReturn(cachedItems);
+
+        assertEquals(cachedItems, itemServiceImpl.searchItemsByText(" Дрель, УДАРНАЯ", null, null, 1L, 0, 10, false));
+        verify(itemSearchEngine, never()).search(any(), anyBoolean(), any(), anyInt(), anyInt());
+    }
 
-        User user1 = createUser();
+    @Test
+    void testSearchItemsByTextPutsComputedPageIntoCache() {
+        Item item = createItem(createUser(), null);
+        ItemSearchCache.Key key = new ItemSearchCache.Key(List.of("item1"), true, 0, 10);
+        when(itemSearchEngine.isCacheable()).thenReturn(true);
+        when(itemSearchCache.get(key)).thenReturn(null);
+        when(itemSearchCache.version()).thenReturn(7L);
+        when(itemSearchEngine.search("item1", true, null, 0, 10)).thenReturn(List.of(1L));
+        when(itemJpaRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(toItemView(item)));
+
+        List<ItemDto> items = itemServiceImpl.searchItemsByText("item1", null, null, 1L, 0, 10, true);
+
+        assertEquals(1, items.size());
+        verify(itemSearchCache).get(key);
+        verify(itemSearchCache).put(key, items, 7L);
+    }
 
-        ItemRequest request = createRequest(user1);
+    @Test
+    void testSearchItemsByTextForPeriodBypassesCache() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        when(itemSearchEngine.isCacheable()).thenReturn(true);
+        when(itemAvailabilityIndex.findPossiblyBusyItems(any(), any())).thenReturn(new BitSet());
 
-        Item item = createItem(user, request);
+        itemServiceImpl.searchItemsByText("Text", from, from.plusDays(1), 1L, 0, 10, false);
 
-        ArrayList<Item> itemList = new ArrayList<>();
-        itemList.add(item);
-        when(itemJpaRepository
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true))
-                .thenReturn(itemList);
-        List<ItemDto> itemDtoList = itemServiceImpl.searchItemsByText("Text", 1L);
-        assertEquals(1, itemDtoList.size());
-        ItemDto getResult = itemDtoList.get(0);
-        assertTrue(getResult.getAvailable());
-        assertEquals(1L, getResult.getRequestId());
+        verifyNoInteractions(itemSearchCache);
     }
 
     @Test
-    void testSearchItemsByText3() {
+    @SuppressWarnings("unchecked")
+    void testUpdateItemInvalidatesSearchCacheByChangedWords() {
         User user = createUser();
+        Item item = createItem(user, null);
+        when(itemJpaRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemJpaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setName("Дрель");
+
+        itemServiceImpl.updateItem(1L, itemRequestDto, 1L);
+
+        ArgumentCaptor<Predicate<ItemSearchCache.Key>> affectedCaptor = ArgumentCaptor.forClass(Predicate.class);
+        verify(itemSearchCache).invalidate(affectedCaptor.capture());
+        affectedCaptor.getValue().test(new ItemSearchCache.Key(List.of("дрель"), false, 0, 10));
+        verify(itemSearchEngine).mayMatch(List.of("дрель"), false, Set.of("item1", "дрель", "item", "description"));
+    }
 
-        User user1 = createUser();
-
-        ItemRequest itemRequest = createRequest(user1);
-
-        Item item = createItem(user, itemRequest);
-
-        User user2 = createUser();
-
-        User user3 = createUser();
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateItemWithSameWordsInvalidatesSearchCache() {
+        Item item = createItem(createUser(), null);
+        when(itemJpaRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemJpaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setName("ITEM1!");
+
+        itemServiceImpl.updateItem(1L, itemRequestDto, 1L);
+
+        ArgumentCaptor<Predicate<ItemSearchCache.Key>> affectedCaptor = ArgumentCaptor.forClass(Predicate.class);
+        verify(itemSearchCache).invalidate(affectedCaptor.capture());
+        affectedCaptor.getValue().test(new ItemSearchCache.Key(List.of("item1"), false, 0, 10));
+        verify(itemSearchEngine).mayMatch(List.of("item1"), false, Set.of("item1", "item", "description"));
+    }
 
-        ItemRequest itemRequest1 = createRequest(user3);
+    @Test
+    void testUpdateItemWithoutSearchableChangesKeepsSearchCache() {
+        Item item = createItem(createUser(), null);
+        when(itemJpaRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemJpaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setName("Item1");
 
-        Item item1 = createItem(user2, itemRequest1);
+        itemServiceImpl.updateItem(1L, itemRequestDto, 1L);
 
-        ArrayList<Item> itemList = new ArrayList<>();
-        itemList.add(item1);
-        itemList.add(item);
-        when(itemJpaRepository
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true))
-                .thenReturn(itemList);
-        List<ItemDto> itemDtoList = itemServiceImpl.searchItemsByText("Text", 1L);
-        assertEquals(2, itemDtoList.size());
-        ItemDto getResult = itemDtoList.get(0);
-        assertEquals(1L, getResult.getRequestId());
-        ItemDto getResult1 = itemDtoList.get(1);
-        assertEquals(1L, getResult1.getRequestId());
-        assertEquals("Item description", getResult1.getDescription());
-        assertTrue(getResult1.getAvailable());
-        assertEquals("Item1", getResult.getName());
+        verify(itemSearchCache, never()).invalidate(any());
     }
 
     @Test
-    void testSearchItemsByText4() {
-        when(itemJpaRepository
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("", "", true))
-                .thenReturn(new ArrayList<>());
-        assertTrue(itemServiceImpl.searchItemsByText("", 1L).isEmpty());
+    void testSuggestItemNames() {
+        List<ItemSuggestionDto> suggestions = List.of(new ItemSuggestionDto("дрель", 2));
+        when(itemNameSuggester.suggest("дре", 5)).thenReturn(suggestions);
+
+        assertEquals(suggestions, itemServiceImpl.suggestItemNames("дре", 5));
     }
 
     @Test
-    void testSearchItemsByText5() {
-        when(itemJpaRepository
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true))
-                .thenThrow(new NotFoundException("An error occurred"));
-        assertThrows(NotFoundException.class, () -> itemServiceImpl.searchItemsByText("Text", 1L));
-        verify(itemJpaRepository)
-                .findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("Text", "Text", true);
+    void testSearchItemsByTextWhenPeriodIsInvalidThenThrowBadRequestException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        assertThrows(BadRequestException.class,
+                () -> itemServiceImpl.searchItemsByText("Text", from, null, 1L, 0, 10, false));
+        assertThrows(BadRequestException.class,
+                () -> itemServiceImpl.searchItemsByText("Text", from, from.minusDays(1), 1L, 0, 10, false));
+        assertThrows(BadRequestException.class, () -> itemServiceImpl.searchItemsByText("Text",
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), 1L, 0, 10, false));
+        assertThrows(BadRequestException.class,
+                () -> itemServiceImpl.searchItemsByText("Text", from, from.plusDays(366), 1L, 0, 10, false));
     }
 
     private User createUser() {
@@ -877,4 +747,36 @@ class ItemServiceImplTest {
         return comment;
     }
 
-}
\ No newline at end of file
+
+    private OwnerItemSummary createSummary(Long itemId) {
+        OwnerItemSummary summary = new OwnerItemSummary();
+        summary.setItemId(itemId);
+        summary.setOwnerId(1L);
+        summary.setName("Item1");
+        summary.setDescription("Item description");
+        summary.setAvailable(true);
+        return summary;
+    }
+
+    private List<NearestBookingView> toViews(List<Booking> lastBookings, List<Booking> nextBookings) {
+        List<NearestBookingView> views = new ArrayList<>();
+        lastBookings.forEach(booking -> views.add(new NearestBookingView(booking.getItem().getId(),
+                booking.getId(), booking.getBooker().getId(), true, booking.getStart())));
+        nextBookings.forEach(booking -> views.add(new NearestBookingView(booking.getItem().getId(),
+                booking.getId(), booking.getBooker().getId(), false, booking.getStart())));
+        return views;
+    }
+
+    private static ItemView toItemView(Item item) {
+        return new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner().getId(), item.getRequest() != null ? item.getRequest().getId() : null);
+    }
+
+    private static List<CommentView> toCommentViews(List<Comment> comments) {
+        return comments.stream()
+                .map(comment -> new CommentView(comment.getId(), comment.getItem().getId(), comment.getText(),
+                        comment.getAuthor().getName(), comment.getCreatedTime()))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,200 @@
+package ru.practicum.shareit.item.summary;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class OwnerItemSummaryTest {
+
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OwnerItemSummaryMaintenance ownerItemSummaryMaintenance;
+
+    @Test
+    void ownerItemsFollowBookingChanges() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookerId = createUser();
+        long laterBookingId = create(bookingRequest(itemId, bookerId, 20));
+        long nextBookingId = create(bookingRequest(itemId, bookerId, 10));
+
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemId))
+                .andExpect(jsonPath("$[0].nextBooking.id").value(nextBookingId))
+                .andExpect(jsonPath("$[0].nextBooking.bookerId").value(bookerId))
+                .andExpect(jsonPath("$[0].waitingBookings").value(2));
+
+        approve(ownerId, laterBookingId, true);
+        approve(ownerId, nextBookingId, false);
+
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nextBooking.id").value(laterBookingId))
+                .andExpect(jsonPath("$[0].waitingBookings").value(0));
+        assertConsistent();
+    }
+
+    @Test
+    void ownerItemsFollowItemAndCommentChanges() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long authorId = createUser();
+        insertPastBooking(itemId, authorId);
+        ownerItemSummaryMaintenance.rebuild();
+
+        mockMvc.perform(patch("/items/{itemId}", itemId)
+                        .header(X_SHARER_USER_ID, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Перфоратор\", \"available\": false}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/items/{itemId}/comment", itemId)
+                        .header(X_SHARER_USER_ID, authorId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Отличный инструмент\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Перфоратор"))
+                .andExpect(jsonPath("$[0].available").value(false))
+                .andExpect(jsonPath("$[0].lastBooking.bookerId").value(authorId))
+                .andExpect(jsonPath("$[0].comments[0].text").value("Отличный инструмент"));
+        assertConsistent();
+
+        mockMvc.perform(delete("/users/{userId}", authorId)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastBooking").doesNotExist())
+                .andExpect(jsonPath("$[0].comments").isEmpty());
+        assertConsistent();
+    }
+
+    @Test
+    void expiredRowsAreRecomputedOnReadAndRefreshed() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookerId = createUser();
+        long bookingId = create(bookingRequest(itemId, bookerId, 10));
+        jdbcTemplate.update("UPDATE owner_item_summary SET next_booking_id = NULL, bookings_change_at = ? " +
+                "WHERE item_id = ?", Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), itemId);
+
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nextBooking.id").value(bookingId));
+
+        assertTrue(ownerItemSummaryMaintenance.refreshExpired() >= 1);
+        assertEquals(bookingId, jdbcTemplate.queryForObject(
+                "SELECT next_booking_id FROM owner_item_summary WHERE item_id = ?", Long.class, itemId));
+    }
+
+    @Test
+    void rebuildRepairsCorruptedRows() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long missingItemId = createItem(ownerId);
+        jdbcTemplate.update("UPDATE owner_item_summary SET comment_count = 5 WHERE item_id = ?", itemId);
+        jdbcTemplate.update("DELETE FROM owner_item_summary WHERE item_id = ?", missingItemId);
+
+        OwnerItemSummaryCheck check = ownerItemSummaryMaintenance.check();
+
+        assertTrue(check.getInconsistentItems() >= 1);
+        assertTrue(check.getMissingItems() >= 1);
+        assertTrue(check.getSampleItemIds().contains(itemId));
+        assertTrue(check.getSampleItemIds().contains(missingItemId));
+
+        ownerItemSummaryMaintenance.rebuild();
+
+        assertConsistent();
+        mockMvc.perform(get("/items").header(X_SHARER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].comments").isEmpty());
+    }
+
+    private void assertConsistent() {
+        OwnerItemSummaryCheck check = ownerItemSummaryMaintenance.check();
+        assertTrue(check.getCheckedItems() > 0);
+        assertEquals(0, check.getMissingItems());
+        assertEquals(0, check.getInconsistentItems());
+        assertTrue(check.getSampleItemIds().isEmpty());
+    }
+
+    private void approve(long ownerId, long bookingId, boolean approved) throws Exception {
+        mockMvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header(X_SHARER_USER_ID, ownerId)
+                        .param("approved", String.valueOf(approved)))
+                .andExpect(status().isOk());
+    }
+
+    private void insertPastBooking(long itemId, long bookerId) {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, owner_id, booker_id, status) " +
+                        "SELECT ?, ?, id, owner_id, ?, 'APPROVED' FROM items WHERE id = ?",
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), bookerId, itemId);
+    }
+
+    private long createUser() throws Exception {
+        int number = COUNTER.incrementAndGet();
+        return create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\": \"Пользователь %d\", \"email\": \"summary%d@example.org\"}",
+                        number, number)));
+    }
+
+    private long createItem(long ownerId) throws Exception {
+        return create(post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Дрель\", \"description\": \"Аккумуляторная дрель\", \"available\": true}"));
+    }
+
+    private MockHttpServletRequestBuilder bookingRequest(long itemId, long bookerId, int days) {
+        LocalDateTime start = LocalDateTime.now().plusDays(days);
+        return post("/bookings")
+                .header(X_SHARER_USER_ID, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                        itemId, start, start.plusHours(1)));
+    }
+
+    private long create(MockHttpServletRequestBuilder request) throws Exception {
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+}
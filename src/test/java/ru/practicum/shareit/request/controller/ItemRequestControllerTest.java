@@ -14,13 +14,16 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @ContextConfiguration(classes = {ItemRequestController.class})
@@ -33,9 +36,26 @@ class ItemRequestControllerTest {
     @MockBean
     private ItemRequestService itemRequestService;
 
+    @Test
+    void testFindAllItemRequestsReturnsNextCursorForFullPage() throws Exception {
+        ItemRequestDtoResponse itemRequest = new ItemRequestDtoResponse();
+        itemRequest.setId(5L);
+        itemRequest.setCreated(LocalDateTime.of(2022, 9, 1, 12, 0));
+        when(itemRequestService.findAllItemRequests(0, 1, 2L, null)).thenReturn(List.of(itemRequest));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/requests/all")
+                .param("size", "1")
+                .header("X-Sharer-User-Id", "2");
+        MockMvcBuilders.standaloneSetup(itemRequestController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor",
+                        new ItemRequestCursor(itemRequest.getCreated(), 5L).encode()));
+    }
+
     @Test
     void testFindAllItemRequests() throws Exception {
-        when(itemRequestService.findAllItemRequests(anyInt(), anyInt(), anyLong()))
+        when(itemRequestService.findAllItemRequests(anyInt(), anyInt(), anyLong(), isNull()))
                 .thenReturn(new ArrayList<>());
         MockHttpServletRequestBuilder getResult = MockMvcRequestBuilders.get("/requests/all");
         MockHttpServletRequestBuilder paramResult = getResult.param("from", String.valueOf(1));
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.request.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRequestFeedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2022, 9, 1, 12, 0);
+
+    @Mock
+    private ItemRequestJpaRepository itemRequestJpaRepository;
+
+    @Test
+    void findOtherUserRequestsFallsBackBeforeRebuild() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestJpaRepository, 10);
+
+        assertTrue(feed.findOtherUserRequests(1L, null, 0, 10).isEmpty());
+    }
+
+    @Test
+    void findOtherUserRequestsSkipsOwnRequestsNewestFirst() {
+        ItemRequestFeed feed = rebuilt(10, entry(1L, 1L, 0), entry(2L, 2L, 1), entry(3L, 1L, 2), entry(4L, 3L, 3));
+
+        assertEquals(List.of(4L, 2L), ids(feed.findOtherUserRequests(1L, null, 0, 10)));
+        assertEquals(List.of(2L), ids(feed.findOtherUserRequests(1L, null, 1, 10)));
+    }
+
+    @Test
+    void findOtherUserRequestsContinuesAfterCursor() {
+        ItemRequestFeed feed = rebuilt(10, entry(1L, 2L, 0), entry(2L, 2L, 1), entry(3L, 2L, 2));
+
+        assertEquals(List.of(2L, 1L),
+                ids(feed.findOtherUserRequests(1L, new ItemRequestCursor(NOW.plusMinutes(2), 3L), 0, 10)));
+    }
+
+    @Test
+    void findOtherUserRequestsFallsBackWhenWindowIsShort() {
+        ItemRequestFeed feed = rebuilt(3, entry(1L, 2L, 0), entry(2L, 1L, 1), entry(3L, 2L, 2));
+
+        assertEquals(List.of(3L), ids(feed.findOtherUserRequests(1L, null, 0, 1)));
+        assertTrue(feed.findOtherUserRequests(1L, null, 0, 3).isEmpty());
+    }
+
+    @Test
+    void addKeepsNewestRequestsWithinCapacity() {
+        ItemRequestFeed feed = rebuilt(2, entry(1L, 2L, 0));
+
+        feed.add(entry(2L, 2L, 1));
+        feed.add(entry(3L, 2L, 2));
+
+        assertEquals(2, feed.size());
+        assertEquals(List.of(3L, 2L), ids(feed.findOtherUserRequests(1L, null, 0, 2)));
+        assertTrue(feed.findOtherUserRequests(1L, null, 0, 3).isEmpty());
+    }
+
+    @Test
+    void userDeletedDropsRequesterEntries() {
+        ItemRequestFeed feed = rebuilt(10, entry(1L, 2L, 0), entry(2L, 3L, 1));
+
+        feed.onEvents(List.of(new UserDeleted(3L)));
+
+        assertEquals(List.of(1L), ids(feed.findOtherUserRequests(1L, null, 0, 10)));
+    }
+
+    private ItemRequestFeed rebuilt(int capacity, ItemRequestFeedEntry... entries) {
+        when(itemRequestJpaRepository.findRecentFeedEntries(any())).thenReturn(new ArrayList<>(List.of(entries)));
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestJpaRepository, capacity);
+        feed.rebuild();
+        return feed;
+    }
+
+    private static ItemRequestFeedEntry entry(Long id, Long requesterId, int minutes) {
+        return new ItemRequestFeedEntry(id, "Нужна дрель", NOW.plusMinutes(minutes), requesterId);
+    }
+
+    private static List<Long> ids(Optional<List<ItemRequestFeedEntry>> page) {
+        return page.orElseThrow().stream()
+                .map(ItemRequestFeedEntry::getId)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.request.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRequestMatcherTest {
+
+    @Mock
+    private ItemJpaRepository itemJpaRepository;
+
+    private ItemRequestMatcher itemRequestMatcher;
+
+    @BeforeEach
+    void setUp() {
+        when(itemJpaRepository.findAllAvailableOwnerDocuments()).thenReturn(new ArrayList<>(List.of(
+                new OwnerItemDocument(1L, 10L, "Дрель", "Ударная дрель"),
+                new OwnerItemDocument(2L, 20L, "Шуруповёрт", "Аккумуляторная дрель-шуруповёрт"),
+                new OwnerItemDocument(3L, 30L, "Пила", "Ножовка по дереву"),
+                new OwnerItemDocument(4L, 40L, "Дрели", "Две ударные дрели"))));
+        itemRequestMatcher = new ItemRequestMatcher(itemJpaRepository);
+        itemRequestMatcher.rebuild();
+    }
+
+    @Test
+    void findOwnersMatchesWordForms() {
+        assertEquals(List.of(10L, 20L, 40L), itemRequestMatcher.findOwners("Нужна дрель на выходные", 1L));
+        assertEquals(List.of(30L), itemRequestMatcher.findOwners("Ищу ножовку", 1L));
+    }
+
+    @Test
+    void findOwnersRanksOwnersWithMoreMatchingWords() {
+        assertEquals(List.of(10L, 40L, 20L), itemRequestMatcher.findOwners("Ударная дрель", 1L));
+    }
+
+    @Test
+    void findOwnersExcludesRequester() {
+        assertEquals(List.of(20L, 40L), itemRequestMatcher.findOwners("дрель", 10L));
+    }
+
+    @Test
+    void findOwnersIgnoresShortWords() {
+        assertTrue(itemRequestMatcher.findOwners("по", 1L).isEmpty());
+    }
+
+    @Test
+    void findOwnersSkipsWordsCommonToMostOwners() {
+        List<OwnerItemDocument> documents = LongStream.rangeClosed(1, 200)
+                .mapToObj(id -> new OwnerItemDocument(id, id, "Инструмент " + id, id == 7 ? "Лобзик" : "Разное"))
+                .collect(Collectors.toList());
+        when(itemJpaRepository.findAllAvailableOwnerDocuments()).thenReturn(documents);
+        itemRequestMatcher.rebuild();
+
+        assertEquals(List.of(7L), itemRequestMatcher.findOwners("Нужен инструмент: лобзик", 1L));
+    }
+
+    @Test
+    void indexUpdatesAndRemovesItems() {
+        itemRequestMatcher.index(item(3L, 30L, "Дрель", true));
+        itemRequestMatcher.index(item(1L, 10L, "Дрель", false));
+
+        assertEquals(List.of(20L, 30L, 40L), itemRequestMatcher.findOwners("дрель", 1L));
+        assertTrue(itemRequestMatcher.findOwners("ножовка", 1L).isEmpty());
+    }
+
+    @Test
+    void userDeletedDropsOwnerItems() {
+        itemRequestMatcher.onEvents(List.of(new UserDeleted(40L)));
+
+        assertEquals(List.of(10L, 20L), itemRequestMatcher.findOwners("дрель", 1L));
+    }
+
+    @Test
+    void stemDropsEnding() {
+        assertEquals("дрел", ItemRequestMatcher.stem("дрель"));
+        assertEquals("перфорат", ItemRequestMatcher.stem("перфоратор"));
+        assertEquals("пил", ItemRequestMatcher.stem("пила"));
+        assertEquals("для", ItemRequestMatcher.stem("для"));
+    }
+
+    private static Item item(Long id, Long ownerId, String name, boolean available) {
+        User owner = new User();
+        owner.setId(ownerId);
+        Item item = new Item();
+        item.setId(id);
+        item.setOwner(owner);
+        item.setName(name);
+        item.setDescription(name);
+        item.setAvailable(available);
+        return item;
+    }
+
+}
@@ -6,35 +6,59 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
+import ru.practicum.shareit.request.dto.ItemRequestNotificationDto;
+import ru.practicum.shareit.request.index.ItemRequestFeed;
+import ru.practicum.shareit.request.index.ItemRequestFeedEntry;
+import ru.practicum.shareit.request.index.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestCursor;
+import ru.practicum.shareit.request.model.ItemRequestNotification;
 import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+import ru.practicum.shareit.request.repository.ItemRequestNotificationJpaRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserJpaRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
-@ContextConfiguration(classes = {ItemRequestServiceImpl.class})
+@ContextConfiguration(classes = {ItemRequestServiceImpl.class, EntityLoader.class, KnownIdFilter.class})
 @ExtendWith(SpringExtension.class)
 class ItemRequestServiceImplTest {
 
+    @MockBean
+    private BookingJpaRepository bookingJpaRepository;
+
     @MockBean
     private ItemJpaRepository itemJpaRepository;
 
     @MockBean
     private ItemRequestJpaRepository itemRequestJpaRepository;
 
+    @MockBean
+    private ItemRequestFeed itemRequestFeed;
+
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+
+    @MockBean
+    private ItemRequestNotificationJpaRepository itemRequestNotificationJpaRepository;
+
     @Autowired
     private ItemRequestServiceImpl itemRequestServiceImpl;
 
@@ -44,8 +68,7 @@ class ItemRequestServiceImplTest {
     @Test
     void testPostNewItemRequest() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
 
@@ -58,31 +81,28 @@ class ItemRequestServiceImplTest {
         assertEquals("01:01", actualPostNewItemRequestResult.getCreated().toLocalTime().toString());
         assertEquals(1L, actualPostNewItemRequestResult.getId());
         assertEquals("Item Request description", actualPostNewItemRequestResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemRequestJpaRepository).save(any());
     }
 
     @Test
     void testPostNewItemRequest2() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRequestJpaRepository.save(any())).thenThrow(new NotFoundException("An error occurred"));
 
         ItemRequestDtoRequest requestDto = new ItemRequestDtoRequest();
         requestDto.setDescription("Item Request description");
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.postNewItemRequest(requestDto, 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemRequestJpaRepository).save(any());
     }
 
     @Test
     void testPostNewItemRequest3() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         User user1 = createUser();
 
@@ -92,20 +112,20 @@ class ItemRequestServiceImplTest {
         ItemRequestDtoRequest requestDto = new ItemRequestDtoRequest();
         requestDto.setDescription("Item Request description");
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.postNewItemRequest(requestDto, 1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testPostNewItemRequest4() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         User user1 = createUser();
         ItemRequest request = mock(ItemRequest.class);
         when(request.getId()).thenReturn(1L);
         when(request.getDescription()).thenReturn("Item Request description");
         when(request.getCreated()).thenReturn(LocalDateTime.of(1, 1, 1, 1, 1));
+        when(request.getRequester()).thenReturn(user1);
         doNothing().when(request).setCreated(any());
         doNothing().when(request).setDescription(anyString());
         doNothing().when(request).setId(anyLong());
@@ -122,50 +142,105 @@ class ItemRequestServiceImplTest {
         assertEquals("01:01", actualPostNewItemRequestResult.getCreated().toLocalTime().toString());
         assertEquals(1L, actualPostNewItemRequestResult.getId());
         assertEquals("Item Request description", actualPostNewItemRequestResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemRequestJpaRepository).save(any());
-        verify(request).getId();
-        verify(request).getDescription();
-        verify(request).getCreated();
+        verify(request, atLeast(1)).getId();
+        verify(request, atLeast(1)).getDescription();
+        verify(request, atLeast(1)).getCreated();
         verify(request).setCreated(any());
         verify(request).setDescription(anyString());
         verify(request).setId(anyLong());
         verify(request).setRequester(any());
     }
 
+    @Test
+    void testPostNewItemRequestNotifiesMatchingOwners() {
+        User user = createUser();
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        ItemRequest itemRequest = createRequest(user);
+        when(itemRequestJpaRepository.save(any())).thenReturn(itemRequest);
+        when(itemRequestMatcher.findOwners("Item Request description", 1L)).thenReturn(List.of(2L, 3L));
+
+        ItemRequestDtoRequest requestDto = new ItemRequestDtoRequest();
+        requestDto.setDescription("Item Request description");
+        itemRequestServiceImpl.postNewItemRequest(requestDto, 1L);
+
+        verify(itemRequestNotificationJpaRepository).notifyOwners(1L, itemRequest.getCreated(), List.of(2L, 3L));
+    }
+
+    @Test
+    void testPostNewItemRequestWithoutMatchingOwners() {
+        User user = createUser();
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestJpaRepository.save(any())).thenReturn(createRequest(user));
+
+        ItemRequestDtoRequest requestDto = new ItemRequestDtoRequest();
+        requestDto.setDescription("Item Request description");
+        itemRequestServiceImpl.postNewItemRequest(requestDto, 1L);
+
+        verifyNoInteractions(itemRequestNotificationJpaRepository);
+    }
+
+    @Test
+    void testFindNotifications() {
+        User user = createUser();
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        ItemRequestNotification notification = new ItemRequestNotification();
+        notification.setId(7L);
+        notification.setOwnerId(1L);
+        notification.setRequest(createRequest(createUser()));
+        notification.setCreated(LocalDateTime.of(1, 1, 1, 1, 1));
+        when(itemRequestNotificationJpaRepository.findOwnerNotifications(eq(1L), eq(5L), any()))
+                .thenReturn(List.of(notification));
+
+        List<ItemRequestNotificationDto> notifications = itemRequestServiceImpl.findNotifications(1L, 5L, 10);
+
+        assertEquals(1, notifications.size());
+        assertEquals(7L, notifications.get(0).getId());
+        assertEquals(1L, notifications.get(0).getRequestId());
+        assertEquals("Item Request description", notifications.get(0).getDescription());
+    }
+
+    @Test
+    void testFindNotificationsNotFoundException() {
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findNotifications(1L, 0L, 10));
+        verifyNoInteractions(itemRequestNotificationJpaRepository);
+    }
+
     @Test
     void testFindItemRequestByRequesterId() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findAllByRequesterId(anyLong(), any())).thenReturn(new ArrayList<>());
         assertTrue(itemRequestServiceImpl.findItemRequestsByRequesterId(1L).isEmpty());
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
     }
 
     @Test
     void testFindItemRequestByRequesterId2() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findAllByRequesterId(anyLong(), any()))
                 .thenThrow(new NotFoundException("An error occurred"));
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findItemRequestsByRequesterId(1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
     }
 
     @Test
     void testFindItemRequestByRequesterId3() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         when(itemRequestJpaRepository.findAllByRequesterId(anyLong(), any())).thenReturn(new ArrayList<>());
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findItemRequestsByRequesterId(1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemRequestByRequesterId4() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         ArrayList<Item> itemList = new ArrayList<>();
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user = createUser();
 
@@ -181,14 +256,14 @@ class ItemRequestServiceImplTest {
         assertEquals("01:01", getResult.getCreated().toLocalTime().toString());
         assertEquals(1L, getResult.getId());
         assertEquals("Item Request description", getResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
     }
 
     @Test
     void testFindItemRequestByRequesterId5() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
 
         User user = createUser();
 
@@ -206,7 +281,7 @@ class ItemRequestServiceImplTest {
 
         ArrayList<Item> itemList = new ArrayList<>();
         itemList.add(item);
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user2 = createUser();
 
@@ -229,16 +304,16 @@ class ItemRequestServiceImplTest {
         assertEquals("Item1", getResult1.getName());
         assertEquals(1L, getResult1.getId());
         assertEquals("Item1 description", getResult1.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
     }
 
     @Test
     void testFindItemRequestByRequesterId6() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         ArrayList<Item> itemList = new ArrayList<>();
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user = createUser();
 
@@ -253,23 +328,23 @@ class ItemRequestServiceImplTest {
         requestList.add(itemRequest);
         when(itemRequestJpaRepository.findAllByRequesterId(anyLong(), any())).thenReturn(requestList);
         List<ItemRequestDtoResponse> actualItemRequestByRequesterId = itemRequestServiceImpl.findItemRequestsByRequesterId(1L);
-        assertEquals(1, actualItemRequestByRequesterId.size());
+        assertEquals(2, actualItemRequestByRequesterId.size());
         ItemRequestDtoResponse getResult = actualItemRequestByRequesterId.get(0);
         assertEquals(itemList, getResult.getItems());
         assertEquals("01:01", getResult.getCreated().toLocalTime().toString());
         assertEquals(1L, getResult.getId());
         assertEquals("Item Request description", getResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository, atLeast(1)).findAllByRequestId(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
     }
 
 
     @Test
     void testFindItemRequestByRequesterId7() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         ArrayList<Item> itemList = new ArrayList<>();
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user = createUser();
 
@@ -296,8 +371,8 @@ class ItemRequestServiceImplTest {
         assertEquals("01:01", getResult.getCreated().toLocalTime().toString());
         assertEquals(1L, getResult.getId());
         assertEquals("Item Request description", getResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findAllByRequesterId(anyLong(), any());
         verify(request, atLeast(1)).getId();
         verify(request).getDescription();
@@ -308,18 +383,92 @@ class ItemRequestServiceImplTest {
         verify(request).setRequester(any());
     }
 
+    @Test
+    void testFindItemRequestByRequesterIdGroupsItemsByRequest() {
+        User user = createUser();
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+
+        ItemRequest firstRequest = createRequest(user);
+        ItemRequest secondRequest = createRequest(user);
+        secondRequest.setId(2L);
+        ItemRequest thirdRequest = createRequest(user);
+        thirdRequest.setId(3L);
+
+        Item firstItem = new Item();
+        firstItem.setId(1L);
+        firstItem.setOwner(user);
+        firstItem.setRequest(firstRequest);
+        Item secondItem = new Item();
+        secondItem.setId(2L);
+        secondItem.setOwner(user);
+        secondItem.setRequest(secondRequest);
+        Item thirdItem = new Item();
+        thirdItem.setId(3L);
+        thirdItem.setOwner(user);
+        thirdItem.setRequest(secondRequest);
+
+        when(itemRequestJpaRepository.findAllByRequesterId(anyLong(), any()))
+                .thenReturn(List.of(firstRequest, secondRequest, thirdRequest));
+        when(itemJpaRepository.findAllByRequestIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(firstItem, secondItem, thirdItem));
+
+        List<ItemRequestDtoResponse> responses = itemRequestServiceImpl.findItemRequestsByRequesterId(1L);
+
+        assertEquals(3, responses.size());
+        assertEquals(1, responses.get(0).getItems().size());
+        assertEquals(1L, responses.get(0).getItems().get(0).getId());
+        assertEquals(2, responses.get(1).getItems().size());
+        assertTrue(responses.get(2).getItems().isEmpty());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
+        verify(itemJpaRepository, never()).findAllByRequestId(anyLong());
+    }
+
     @Test
     void testFindAllItemRequests() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findOtherUserItems(anyLong(), any())).thenReturn(new ArrayList<>());
-        assertTrue(itemRequestServiceImpl.findAllItemRequests(1, 3, 1L).isEmpty());
+        assertTrue(itemRequestServiceImpl.findAllItemRequests(1, 3, 1L, null).isEmpty());
         verify(itemRequestJpaRepository).findOtherUserItems(anyLong(), any());
     }
 
+    @Test
+    void testFindAllItemRequestsFromFeed() {
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        ItemRequestFeedEntry entry = new ItemRequestFeedEntry(2L, "Нужна дрель", LocalDateTime.of(1, 1, 1, 1, 1), 3L);
+        when(itemRequestFeed.findOtherUserRequests(1L, null, 0, 3)).thenReturn(Optional.of(List.of(entry)));
+
+        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L, null);
+
+        assertEquals(1, actualAllItemRequests.size());
+        assertEquals(2L, actualAllItemRequests.get(0).getId());
+        assertTrue(actualAllItemRequests.get(0).getItems().isEmpty());
+        verify(itemJpaRepository).findAllByRequestIdIn(List.of(2L));
+        verifyNoInteractions(itemRequestJpaRepository);
+    }
+
+    @Test
+    void testFindAllItemRequestsAfterCursor() {
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        LocalDateTime created = LocalDateTime.of(2022, 9, 1, 12, 0);
+        String after = new ItemRequestCursor(created, 5L).encode();
+        when(itemRequestFeed.findOtherUserRequests(anyLong(), any(), anyInt(), anyInt())).thenReturn(Optional.empty());
+
+        assertTrue(itemRequestServiceImpl.findAllItemRequests(20, 3, 1L, after).isEmpty());
+        verify(itemRequestJpaRepository).findOtherUserItemsBefore(eq(1L), eq(created), eq(5L), any());
+        verify(itemRequestJpaRepository, never()).findOtherUserItems(anyLong(), any());
+    }
+
+    @Test
+    void testFindAllItemRequestsBadCursor() {
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+
+        assertThrows(BadRequestException.class, () -> itemRequestServiceImpl.findAllItemRequests(0, 3, 1L, "?"));
+    }
+
     @Test
     void testFindAllItemRequests2() {
         ArrayList<Item> itemList = new ArrayList<>();
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user = createUser();
 
@@ -327,16 +476,16 @@ class ItemRequestServiceImplTest {
 
         ArrayList<ItemRequest> requestList = new ArrayList<>();
         requestList.add(request);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findOtherUserItems(anyLong(), any())).thenReturn(requestList);
-        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L);
+        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L, null);
         assertEquals(1, actualAllItemRequests.size());
         ItemRequestDtoResponse getResult = actualAllItemRequests.get(0);
         assertEquals(itemList, getResult.getItems());
         assertEquals("01:01", getResult.getCreated().toLocalTime().toString());
         assertEquals(1L, getResult.getId());
         assertEquals("Item Request description", getResult.getDescription());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findOtherUserItems(anyLong(), any());
     }
 
@@ -358,7 +507,7 @@ class ItemRequestServiceImplTest {
 
         ArrayList<Item> itemList = new ArrayList<>();
         itemList.add(item);
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user2 = createUser();
 
@@ -366,9 +515,9 @@ class ItemRequestServiceImplTest {
 
         ArrayList<ItemRequest> requestList = new ArrayList<>();
         requestList.add(itemRequest1);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findOtherUserItems(anyLong(), any())).thenReturn(requestList);
-        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L);
+        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L, null);
         assertEquals(1, actualAllItemRequests.size());
         ItemRequestDtoResponse getResult = actualAllItemRequests.get(0);
         List<ItemDto> items = getResult.getItems();
@@ -382,14 +531,14 @@ class ItemRequestServiceImplTest {
         assertEquals("Item1", getResult1.getName());
         assertEquals(1L, getResult1.getId());
         assertEquals("Item1 description", getResult1.getDescription());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findOtherUserItems(anyLong(), any());
     }
 
     @Test
     void testFindAllItemRequests4() {
         ArrayList<Item> itemList = new ArrayList<>();
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(itemList);
 
         User user = createUser();
 
@@ -408,16 +557,16 @@ class ItemRequestServiceImplTest {
 
         ArrayList<ItemRequest> requestList = new ArrayList<>();
         requestList.add(itemRequest);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findOtherUserItems(anyLong(), any())).thenReturn(requestList);
-        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L);
+        List<ItemRequestDtoResponse> actualAllItemRequests = itemRequestServiceImpl.findAllItemRequests(1, 3, 1L, null);
         assertEquals(1, actualAllItemRequests.size());
         ItemRequestDtoResponse getResult = actualAllItemRequests.get(0);
         assertEquals(itemList, getResult.getItems());
         assertEquals("01:01", getResult.getCreated().toLocalTime().toString());
         assertEquals(1L, getResult.getId());
         assertEquals("Item Request description", getResult.getDescription());
-        verify(itemJpaRepository).findAllByRequestId(anyLong());
+        verify(itemJpaRepository).findAllByRequestIdIn(any());
         verify(itemRequestJpaRepository).findOtherUserItems(anyLong(), any());
         verify(itemRequest, atLeast(1)).getId();
         verify(itemRequest).getDescription();
@@ -430,7 +579,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void testFindAllItemRequestsArithmeticException() {
-        when(itemJpaRepository.findAllByRequestId((Long) any())).thenReturn(new ArrayList<>());
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(new ArrayList<>());
 
         User user = createUser();
 
@@ -449,9 +598,9 @@ class ItemRequestServiceImplTest {
 
         ArrayList<ItemRequest> requestList = new ArrayList<>();
         requestList.add(itemRequest);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemRequestJpaRepository.findOtherUserItems(anyLong(), any())).thenReturn(requestList);
-        assertThrows(ArithmeticException.class, () -> itemRequestServiceImpl.findAllItemRequests(1, 0, 1L));
+        assertThrows(ArithmeticException.class, () -> itemRequestServiceImpl.findAllItemRequests(1, 0, 1L, null));
         verify(itemRequest).setCreated(any());
         verify(itemRequest).setDescription(anyString());
         verify(itemRequest).setId(anyLong());
@@ -460,7 +609,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void testFindAllItemRequestsBadRequestException() {
-        when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(new ArrayList<>());
+        when(itemJpaRepository.findAllByRequestIdIn(any())).thenReturn(new ArrayList<>());
 
         User user = createUser();
 
@@ -488,56 +637,51 @@ class ItemRequestServiceImplTest {
 
     @Test
     void testFindItemRequestById() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         ArrayList<Item> itemList = new ArrayList<>();
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
 
         User user = createUser();
 
         ItemRequest request = createRequest(user);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(request);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(request));
         ItemRequestDtoResponse actualItemRequestById = itemRequestServiceImpl.findItemRequestById(1L, 1L);
         assertEquals(itemList, actualItemRequestById.getItems());
         assertEquals("01:01", actualItemRequestById.getCreated().toLocalTime().toString());
         assertEquals(1L, actualItemRequestById.getId());
         assertEquals("Item Request description", actualItemRequestById.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemJpaRepository).findAllByRequestId(anyLong());
-        verify(itemRequestJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).getReferenceById(anyLong());
+        verify(itemRequestJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemRequestById2() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(new ArrayList<>());
         when(itemRequestJpaRepository.getReferenceById(anyLong()))
                 .thenThrow(new NotFoundException("An error occurred"));
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findItemRequestById(1L, 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemRequestJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemRequestById3() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(new ArrayList<>());
 
         User user = createUser();
 
         ItemRequest itemRequest = createRequest(user);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(itemRequest);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findItemRequestById(1L, 1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemRequestById4() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
 
         User user = createUser();
 
@@ -560,8 +704,7 @@ class ItemRequestServiceImplTest {
         User user2 = createUser();
 
         ItemRequest itemRequest1 = createRequest(user2);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(itemRequest1);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest1));
         ItemRequestDtoResponse actualItemRequestById = itemRequestServiceImpl.findItemRequestById(1L, 1L);
         List<ItemDto> items = actualItemRequestById.getItems();
         assertEquals(1, items.size());
@@ -574,15 +717,14 @@ class ItemRequestServiceImplTest {
         assertEquals("Item1", getResult.getName());
         assertEquals(1L, getResult.getId());
         assertEquals("Item1 description", getResult.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemJpaRepository).findAllByRequestId(anyLong());
-        verify(itemRequestJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).getReferenceById(anyLong());
+        verify(itemRequestJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindItemRequestById5() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         ArrayList<Item> itemList = new ArrayList<>();
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(itemList);
 
@@ -600,17 +742,15 @@ class ItemRequestServiceImplTest {
         itemRequest.setDescription("Item Request description");
         itemRequest.setId(1L);
         itemRequest.setRequester(user);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(itemRequest);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
         ItemRequestDtoResponse actualItemRequestById = itemRequestServiceImpl.findItemRequestById(1L, 1L);
         assertEquals(itemList, actualItemRequestById.getItems());
         assertEquals("01:01", actualItemRequestById.getCreated().toLocalTime().toString());
         assertEquals(1L, actualItemRequestById.getId());
         assertEquals("Item Request description", actualItemRequestById.getDescription());
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(itemJpaRepository).findAllByRequestId(anyLong());
-        verify(itemRequestJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).getReferenceById(anyLong());
+        verify(itemRequestJpaRepository).findById(anyLong());
         verify(itemRequest).getId();
         verify(itemRequest).getDescription();
         verify(itemRequest).getCreated();
@@ -622,7 +762,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void testFindItemRequestByIdNotFoundException() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(new ArrayList<>());
 
         User user = createUser();
@@ -639,11 +779,11 @@ class ItemRequestServiceImplTest {
         request.setDescription("Item Request description");
         request.setId(1L);
         request.setRequester(user);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(request);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(request));
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> itemRequestServiceImpl.findItemRequestById(1L, 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(itemRequestJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(itemRequestJpaRepository).findById(anyLong());
         verify(request).setCreated(any());
         verify(request).setDescription(anyString());
         verify(request).setId(anyLong());
@@ -652,7 +792,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void testFindItemRequestByIdBadRequestException() {
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         when(itemJpaRepository.findAllByRequestId(anyLong())).thenReturn(new ArrayList<>());
 
         User user = createUser();
@@ -668,8 +808,7 @@ class ItemRequestServiceImplTest {
         request.setDescription("Item Request description");
         request.setId(1L);
         request.setRequester(user);
-        when(itemRequestJpaRepository.getReferenceById(anyLong())).thenReturn(request);
-        when(itemRequestJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(itemRequestJpaRepository.findById(anyLong())).thenReturn(Optional.of(request));
         verify(request).setCreated(any());
         verify(request).setDescription(anyString());
         verify(request).setId(anyLong());
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Запоминает все SQL-запросы, которые Hibernate отправляет в БД. Подключается в тестах свойством
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    public static final String PROPERTY =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                    "ru.practicum.shareit.sql.CapturingStatementInspector";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+
+    public static int count() {
+        return STATEMENTS.size();
+    }
+
+}
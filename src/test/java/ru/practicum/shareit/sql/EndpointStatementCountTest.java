@@ -0,0 +1,419 @@
+package ru.practicum.shareit.sql;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryMaintenance;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Точное количество SQL-запросов, которое выполняет каждый эндпоинт. Данные для запроса готовятся заранее,
+ * считаются только запросы самого вызова. Списки заполняются записями разных пользователей и вещей, чтобы
+ * догрузка связей по одной записи сразу меняла число запросов.
+ */
+@SpringBootTest(properties = {
+        CapturingStatementInspector.PROPERTY,
+        "shareit.owner-item-summary.refresh-interval=1h"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class EndpointStatementCountTest {
+
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final int PAGE_SIZE = 100;
+    private static final int OWNERS = 20;
+    private static final int ROWS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OwnerItemSummaryMaintenance ownerItemSummaryMaintenance;
+
+    @Test
+    void addUser() throws Exception {
+        assertStatements(1, post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(userJson()));
+    }
+
+    @Test
+    void updateUser() throws Exception {
+        long userId = createUser();
+
+        assertStatements(3, patch("/users/{userId}", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Updated\"}"));
+    }
+
+    @Test
+    void findUserById() throws Exception {
+        long userId = createUser();
+
+        assertStatements(1, get("/users/{userId}", userId));
+        assertStatements(0, get("/users/{userId}", userId));
+    }
+
+    @Test
+    void findAllUsers() throws Exception {
+        createUser();
+
+        assertStatements(1, get("/users"));
+    }
+
+    @Test
+    void deleteUserById() throws Exception {
+        long userId = createUser();
+
+        assertStatements(4, delete("/users/{userId}", userId));
+    }
+
+    @Test
+    void addItem() throws Exception {
+        long ownerId = createUser();
+
+        assertStatements(3, post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(itemJson()));
+    }
+
+    @Test
+    void updateItem() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+
+        assertStatements(4, patch("/items/{itemId}", itemId)
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Перфоратор\"}"));
+    }
+
+    @Test
+    void findItemByIdAsOwner() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        insertComments(itemId);
+
+        assertStatements(4, get("/items/{itemId}", itemId).header(X_SHARER_USER_ID, ownerId));
+        assertStatements(0, get("/items/{itemId}", itemId).header(X_SHARER_USER_ID, ownerId));
+    }
+
+    @Test
+    void findItemByIdAsOtherUser() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        insertComments(itemId);
+
+        long userId = createUser();
+
+        assertStatements(2, get("/items/{itemId}", itemId).header(X_SHARER_USER_ID, userId));
+        assertStatements(0, get("/items/{itemId}", itemId).header(X_SHARER_USER_ID, createUser()));
+    }
+
+    @Test
+    void findUserItems() throws Exception {
+        long ownerId = createUser();
+        for (int i = 0; i < ROWS; i++) {
+            long itemId = createItem(ownerId);
+            insertComments(itemId);
+            insertPastBooking(itemId, createUser());
+        }
+        ownerItemSummaryMaintenance.rebuild();
+
+        assertStatements(2, get("/items").header(X_SHARER_USER_ID, ownerId));
+    }
+
+    @Test
+    void searchItems() throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            createItem(createUser(), "Стамеска");
+        }
+
+        assertStatements(1, get("/items/search")
+                .header(X_SHARER_USER_ID, createUser())
+                .param("text", "стамеска"));
+    }
+
+    @Test
+    void suggestItemNames() throws Exception {
+        createItem(createUser(), "Струбцина");
+
+        assertStatements(0, get("/items/suggest")
+                .header(X_SHARER_USER_ID, createUser())
+                .param("prefix", "Стру"));
+    }
+
+    @Test
+    void postComment() throws Exception {
+        long ownerId = createUser();
+        long bookerId = createUser();
+        long itemId = createItem(ownerId);
+        insertPastBooking(itemId, bookerId);
+
+        assertStatements(6, post("/items/{itemId}/comment", itemId)
+                .header(X_SHARER_USER_ID, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\": \"Отличная дрель\"}"));
+    }
+
+    @Test
+    void addBooking() throws Exception {
+        long ownerId = createUser();
+        long bookerId = createUser();
+        long itemId = createItem(ownerId);
+
+        assertStatements(6, bookingRequest(itemId, bookerId));
+    }
+
+    @Test
+    void approveBooking() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookingId = createBooking(itemId, createUser());
+
+        assertStatements(4, patch("/bookings/{bookingId}", bookingId)
+                .header(X_SHARER_USER_ID, ownerId)
+                .param("approved", "true"));
+    }
+
+    @Test
+    void findBooking() throws Exception {
+        long ownerId = createUser();
+        long bookerId = createUser();
+        long bookingId = createBooking(createItem(ownerId), bookerId);
+
+        assertStatements(1, get("/bookings/{bookingId}", bookingId).header(X_SHARER_USER_ID, bookerId));
+    }
+
+    @Test
+    void rejectBooking() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        long bookingId = createBooking(itemId, createUser());
+
+        assertStatements(7, patch("/bookings/{bookingId}", bookingId)
+                .header(X_SHARER_USER_ID, ownerId)
+                .param("approved", "false"));
+    }
+
+    @Test
+    void findBookingAsOwner() throws Exception {
+        long ownerId = createUser();
+        long bookingId = createBooking(createItem(ownerId), createUser());
+
+        assertStatements(1, get("/bookings/{bookingId}", bookingId).header(X_SHARER_USER_ID, ownerId));
+    }
+
+    @Test
+    void findBookingsByUserId() throws Exception {
+        long bookerId = createUser();
+        for (int i = 0; i < ROWS; i++) {
+            createBooking(createItem(createUser()), bookerId);
+        }
+
+        assertStatements(1, get("/bookings").header(X_SHARER_USER_ID, bookerId));
+    }
+
+    @Test
+    void findBookingsByOwnerId() throws Exception {
+        long ownerId = createUser();
+        for (int i = 0; i < ROWS; i++) {
+            createBooking(createItem(ownerId), createUser());
+        }
+
+        assertStatements(1, get("/bookings/owner").header(X_SHARER_USER_ID, ownerId));
+    }
+
+    @Test
+    void streamBookings() throws Exception {
+        assertStatements(1, get("/bookings/stream").header(X_SHARER_USER_ID, createUser()));
+    }
+
+    @Test
+    void postItemRequest() throws Exception {
+        long userId = createUser();
+
+        assertStatements(2, post("/requests")
+                .header(X_SHARER_USER_ID, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Нужна стремянка\"}"));
+    }
+
+    @Test
+    void postItemRequestWithMatchingOwners() throws Exception {
+        long userId = createUser();
+        for (int i = 0; i < OWNERS; i++) {
+            createItem(createUser(), "Рубанок");
+        }
+
+        assertStatements(3, post("/requests")
+                .header(X_SHARER_USER_ID, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Нужен рубанок\"}"));
+        assertEquals(OWNERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM request_notifications n " +
+                "JOIN requests r ON r.id = n.request_id WHERE r.requester_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    void findNotifications() throws Exception {
+        long ownerId = createUser();
+        createItem(ownerId, "Лобзик");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            createItemRequest(createUser(), "Нужен лобзик");
+        }
+
+        assertStatements(1, get("/requests/notifications")
+                .header(X_SHARER_USER_ID, ownerId)
+                .param("size", String.valueOf(PAGE_SIZE)));
+        assertEquals(PAGE_SIZE, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM request_notifications WHERE owner_id = ?", Integer.class, ownerId));
+    }
+
+    @Test
+    void findItemRequestById() throws Exception {
+        long userId = createUser();
+        long requestId = createItemRequest(userId);
+        for (int i = 0; i < ROWS; i++) {
+            insertAnsweringItem(requestId, createUser());
+        }
+
+        assertStatements(2, get("/requests/{requestId}", requestId).header(X_SHARER_USER_ID, userId));
+    }
+
+    @Test
+    void findItemRequestsByRequesterId() throws Exception {
+        long userId = createUser();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            insertAnsweringItem(createItemRequest(userId), userId);
+        }
+
+        assertStatements(2, get("/requests").header(X_SHARER_USER_ID, userId));
+    }
+
+    @Test
+    void findAllItemRequests() throws Exception {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            long requesterId = createUser();
+            insertAnsweringItem(createItemRequest(requesterId), createUser());
+        }
+
+        assertStatements(2, get("/requests/all")
+                .header(X_SHARER_USER_ID, createUser())
+                .param("size", String.valueOf(PAGE_SIZE)));
+    }
+
+    private void assertStatements(int expected, RequestBuilder request) throws Exception {
+        CapturingStatementInspector.clear();
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        assertEquals(expected, CapturingStatementInspector.count(), () -> String.format("Выполненные запросы:%n%s",
+                String.join("\n", CapturingStatementInspector.statements())));
+    }
+
+    private long createUser() throws Exception {
+        return create(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(userJson()));
+    }
+
+    private long createItem(long ownerId) throws Exception {
+        return createItem(ownerId, "Дрель");
+    }
+
+    private long createItem(long ownerId, String name) throws Exception {
+        return create(post("/items")
+                .header(X_SHARER_USER_ID, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(itemJson(name)));
+    }
+
+    private long createBooking(long itemId, long bookerId) throws Exception {
+        return create(bookingRequest(itemId, bookerId));
+    }
+
+    private long createItemRequest(long userId) throws Exception {
+        return createItemRequest(userId, "Нужна дрель");
+    }
+
+    private long createItemRequest(long userId, String description) throws Exception {
+        return create(post("/requests")
+                .header(X_SHARER_USER_ID, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"description\": \"%s\"}", description)));
+    }
+
+    private void insertPastBooking(long itemId, long bookerId) {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, owner_id, booker_id, status) " +
+                        "SELECT ?, ?, id, owner_id, ?, 'APPROVED' FROM items WHERE id = ?",
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), bookerId, itemId);
+    }
+
+    private void insertComments(long itemId) throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            jdbcTemplate.update("INSERT INTO comments (text, item_id, author_id, created_time) VALUES (?, ?, ?, ?)",
+                    "Отличная дрель", itemId, createUser(), Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+        }
+    }
+
+    private void insertAnsweringItem(long requestId, long ownerId) {
+        jdbcTemplate.update("INSERT INTO items (name, description, is_available, owner_id, request_id) " +
+                "VALUES ('Дрель', 'Аккумуляторная дрель', true, ?, ?)", ownerId, requestId);
+    }
+
+    private MockHttpServletRequestBuilder bookingRequest(long itemId, long bookerId) {
+        int offset = COUNTER.incrementAndGet();
+        LocalDateTime start = LocalDateTime.now().plusDays(offset);
+        return post("/bookings")
+                .header(X_SHARER_USER_ID, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"itemId\": %d, \"start\": \"%s\", \"end\": \"%s\"}",
+                        itemId, start, start.plusHours(1)));
+    }
+
+    private long create(RequestBuilder request) throws Exception {
+        String json = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return ((Number) JsonPath.read(json, "$.id")).longValue();
+    }
+
+    private static String userJson() {
+        int n = COUNTER.incrementAndGet();
+        return String.format("{\"name\": \"user%d\", \"email\": \"user%d@example.org\"}", n, n);
+    }
+
+    private static String itemJson() {
+        return itemJson("Дрель");
+    }
+
+    private static String itemJson(String name) {
+        return String.format("{\"name\": \"%s\", \"description\": \"Аккумуляторная дрель\", \"available\": true}",
+                name);
+    }
+
+}
@@ -0,0 +1,315 @@
+package ru.practicum.shareit.sql;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.comment.repository.CommentJpaRepository;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryJpaRepository;
+import ru.practicum.shareit.request.index.ItemRequestFeed;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
+import ru.practicum.shareit.request.repository.ItemRequestNotificationJpaRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Снимает EXPLAIN для каждого запроса методов репозиториев на заполненной базе и падает, если какая-либо
+ * таблица читается полным сканированием.
+ */
+@DataJpaTest(properties = CapturingStatementInspector.PROPERTY)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest {
+
+    private static final int USERS = 200;
+    private static final int REQUESTS = 500;
+    private static final int ITEMS = 2_000;
+    private static final int BOOKINGS = 20_000;
+    private static final int COMMENTS = 5_000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime NOW = BASE.plusDays(BOOKINGS / 20);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingJpaRepository bookingJpaRepository;
+
+    @Autowired
+    private ItemJpaRepository itemJpaRepository;
+
+    @Autowired
+    private CommentJpaRepository commentJpaRepository;
+
+    @Autowired
+    private ItemRequestJpaRepository itemRequestJpaRepository;
+
+    @Autowired
+    private OwnerItemSummaryJpaRepository ownerItemSummaryJpaRepository;
+
+    @Autowired
+    private ItemRequestNotificationJpaRepository itemRequestNotificationJpaRepository;
+
+    @BeforeAll
+    void seed() {
+        batchInsert("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", USERS,
+                (ps, i) -> {
+                    ps.setLong(1, i);
+                    ps.setString(2, "user" + i);
+                    ps.setString(3, "user" + i + "@example.org");
+                });
+        batchInsert("INSERT INTO requests (id, description, requester_id, created) VALUES (?, ?, ?, ?)", REQUESTS,
+                (ps, i) -> {
+                    ps.setLong(1, i);
+                    ps.setString(2, "request " + i);
+                    ps.setLong(3, i % USERS + 1);
+                    ps.setTimestamp(4, Timestamp.valueOf(BASE.plusHours(i)));
+                });
+        batchInsert("INSERT INTO items (id, name, description, is_available, owner_id, request_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", ITEMS,
+                (ps, i) -> {
+                    ps.setLong(1, i);
+                    ps.setString(2, "item " + i);
+                    ps.setString(3, "description " + i);
+                    ps.setBoolean(4, i % 3 != 0);
+                    ps.setLong(5, i % USERS + 1);
+                    if (i % 4 == 0) {
+                        ps.setLong(6, i % REQUESTS + 1);
+                    } else {
+                        ps.setObject(6, null);
+                    }
+                });
+        batchInsert("INSERT INTO bookings (id, start_date, end_date, item_id, owner_id, booker_id, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", BOOKINGS,
+                (ps, i) -> {
+                    LocalDateTime start = BASE.plusHours(i * 12L);
+                    int itemId = i % ITEMS + 1;
+                    ps.setLong(1, i);
+                    ps.setTimestamp(2, Timestamp.valueOf(start));
+                    ps.setTimestamp(3, Timestamp.valueOf(start.plusHours(6)));
+                    ps.setLong(4, itemId);
+                    ps.setLong(5, itemId % USERS + 1);
+                    ps.setLong(6, (i + 7) % USERS + 1);
+                    ps.setString(7, Status.values()[i % Status.values().length].name());
+                });
+        batchInsert("INSERT INTO comments (id, text, item_id, author_id, created_time) VALUES (?, ?, ?, ?, ?)",
+                COMMENTS,
+                (ps, i) -> {
+                    ps.setLong(1, i);
+                    ps.setString(2, "comment " + i);
+                    ps.setLong(3, i % ITEMS + 1);
+                    ps.setLong(4, i % USERS + 1);
+                    ps.setTimestamp(5, Timestamp.valueOf(BASE.plusHours(i)));
+                });
+        batchInsert("INSERT INTO owner_item_summary (item_id, owner_id, name, description, is_available, " +
+                        "bookings_change_at, comment_count, waiting_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", ITEMS,
+                (ps, i) -> {
+                    ps.setLong(1, i);
+                    ps.setLong(2, i % USERS + 1);
+                    ps.setString(3, "item " + i);
+                    ps.setString(4, "description " + i);
+                    ps.setBoolean(5, i % 3 != 0);
+                    if (i % 2 == 0) {
+                        ps.setTimestamp(6, Timestamp.valueOf(NOW.plusHours(i - ITEMS / 2)));
+                    } else {
+                        ps.setObject(6, null);
+                    }
+                    ps.setInt(7, COMMENTS / ITEMS);
+                    ps.setInt(8, 0);
+                });
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void findWithItemAndBookerById() {
+        assertNoTableScan(() -> bookingJpaRepository.findWithItemAndBookerById(1L));
+    }
+
+    @Test
+    void findBookingViewById() {
+        assertNoTableScan(() -> bookingJpaRepository.findViewById(1L));
+    }
+
+    @Test
+    void findNearestBookings() {
+        assertNoTableScan(() -> bookingJpaRepository.findNearestBookings(List.of(1L, 2L, 3L), NOW, NOW));
+    }
+
+    @Test
+    void findNearestBookingsChange() {
+        assertNoTableScan(() -> bookingJpaRepository.findNearestBookingsChange(1L, NOW.plusHours(1), NOW));
+    }
+
+    @Test
+    void existsByBookerIdAndItemIdAndEndIsBefore() {
+        assertNoTableScan(() -> bookingJpaRepository.existsByBookerIdAndItemIdAndEndIsBefore(1L, 1L, NOW));
+    }
+
+    @Test
+    void findBookings() {
+        BookingCursor cursor = new BookingCursor(NOW, 100L);
+        for (BookingRole role : BookingRole.values()) {
+            for (State state : State.values()) {
+                assertNoTableScan(() -> bookingJpaRepository.findBookings(role, 1L, state, NOW, null, 20, 10));
+                assertNoTableScan(() -> bookingJpaRepository.findBookings(role, 1L, state, NOW, cursor, 0, 10));
+            }
+        }
+    }
+
+    @Test
+    void findItemViewById() {
+        assertNoTableScan(() -> itemJpaRepository.findViewById(1L));
+    }
+
+    @Test
+    void findViewsByOwnerId() {
+        assertNoTableScan(() -> itemJpaRepository.findViewsByOwnerId(1L));
+    }
+
+    @Test
+    void findViewsByIdIn() {
+        assertNoTableScan(() -> itemJpaRepository.findViewsByIdIn(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void findAllByRequestId() {
+        assertNoTableScan(() -> itemJpaRepository.findAllByRequestId(1L));
+    }
+
+    @Test
+    void findAllByRequestIdIn() {
+        assertNoTableScan(() -> itemJpaRepository.findAllByRequestIdIn(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void findNearestBookingsChanges() {
+        assertNoTableScan(() -> bookingJpaRepository.findNearestBookingsChanges(List.of(1L, 2L, 3L), NOW, NOW));
+    }
+
+    @Test
+    void findOwnerItemSummaries() {
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.findByOwnerIdOrderByItemId(1L));
+    }
+
+    @Test
+    void findOwnerItemSummariesForUpdate() {
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.findAllForUpdate(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void findExpiredItemIds() {
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.findExpiredItemIds(NOW, 0L, PageRequest.of(0, 500)));
+    }
+
+    @Test
+    void countOwnerItemSummarySources() {
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.countComments(List.of(1L, 2L, 3L)));
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.countBookings(List.of(1L, 2L, 3L), Status.WAITING));
+    }
+
+    @Test
+    void findItemIdsTouchedBy() {
+        assertNoTableScan(() -> ownerItemSummaryJpaRepository.findItemIdsTouchedBy(1L));
+    }
+
+    @Test
+    void findViewsByItemId() {
+        assertNoTableScan(() -> commentJpaRepository.findViewsByItemId(1L));
+    }
+
+    @Test
+    void findViewsByItemIdIn() {
+        assertNoTableScan(() -> commentJpaRepository.findViewsByItemIdIn(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void findAllByRequesterId() {
+        assertNoTableScan(() -> itemRequestJpaRepository
+                .findAllByRequesterId(1L, Sort.by("created").descending()));
+    }
+
+    @Test
+    void findOtherUserItems() {
+        assertNoTableScan(() -> itemRequestJpaRepository
+                .findOtherUserItems(1L, PageRequest.of(0, 10, Sort.by("created").descending())));
+    }
+
+    @Test
+    void findOtherUserItemsBefore() {
+        assertNoTableScan(() -> itemRequestJpaRepository
+                .findOtherUserItemsBefore(1L, NOW, 100L, PageRequest.of(0, 10, ItemRequestFeed.NEWEST_FIRST)));
+    }
+
+    @Test
+    void findOwnerNotifications() {
+        assertNoTableScan(() -> itemRequestNotificationJpaRepository
+                .findOwnerNotifications(1L, 0L, PageRequest.of(0, 10)));
+    }
+
+    private void assertNoTableScan(Runnable repositoryCall) {
+        CapturingStatementInspector.clear();
+        repositoryCall.run();
+        List<String> statements = CapturingStatementInspector.statements();
+        assertFalse(statements.isEmpty(), "Метод репозитория не выполнил ни одного запроса");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (plan.contains("tableScan")) {
+                fail("Полное сканирование таблицы в плане запроса:\n" + plan);
+            }
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameterCount = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameterCount; i++) {
+                    ps.setObject(i, null);
+                }
+                List<String> rows = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(rs.getString(1));
+                    }
+                }
+                return String.join("\n", rows);
+            }
+        });
+    }
+
+    private void batchInsert(String sql, int count, RowSetter rowSetter) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 1; i <= count; i++) {
+                    rowSetter.set(ps, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private interface RowSetter {
+        void set(PreparedStatement ps, int i) throws java.sql.SQLException;
+    }
+
+}
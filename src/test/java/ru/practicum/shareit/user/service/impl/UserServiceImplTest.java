@@ -6,7 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.practicum.shareit.booking.repository.BookingJpaRepository;
+import ru.practicum.shareit.common.EntityLoader;
+import ru.practicum.shareit.common.KnownIdFilter;
+import ru.practicum.shareit.common.cache.EntityCacheEvictor;
+import ru.practicum.shareit.common.event.DomainEventPublisher;
+import ru.practicum.shareit.common.event.UserDeleted;
+import ru.practicum.shareit.common.event.UserUpdated;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemPageCache;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.summary.OwnerItemSummaryUpdater;
+import ru.practicum.shareit.request.index.ItemRequestFeed;
+import ru.practicum.shareit.request.index.ItemRequestMatcher;
+import ru.practicum.shareit.request.repository.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.user.model.User;
@@ -14,18 +28,49 @@ import ru.practicum.shareit.user.repository.UserJpaRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
-@ContextConfiguration(classes = {UserServiceImpl.class})
+@ContextConfiguration(classes = {UserServiceImpl.class, EntityLoader.class, KnownIdFilter.class})
 @ExtendWith(SpringExtension.class)
 class UserServiceImplTest {
 
+    @MockBean
+    private ItemJpaRepository itemJpaRepository;
+
+    @MockBean
+    private ItemSearchCache itemSearchCache;
+
+    @MockBean
+    private ItemRequestFeed itemRequestFeed;
+
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+
+    @MockBean
+    private BookingJpaRepository bookingJpaRepository;
+
+    @MockBean
+    private ItemRequestJpaRepository itemRequestJpaRepository;
+
     @MockBean
     private UserJpaRepository userJpaRepository;
 
+    @MockBean
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @MockBean
+    private ItemPageCache itemPageCache;
+
+    @MockBean
+    private DomainEventPublisher domainEventPublisher;
+
+    @MockBean
+    private OwnerItemSummaryUpdater ownerItemSummaryUpdater;
+
     @Autowired
     private UserServiceImpl userServiceImpl;
 
@@ -54,28 +99,35 @@ class UserServiceImplTest {
 
         User user1 = createUser();
         when(userJpaRepository.save(any())).thenReturn(user1);
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
         UserDto actualUpdateUserResult = userServiceImpl
                 .updateUser(new UserRequestDto("User1", "user1@example.org"), 1L);
         assertEquals("user1@example.org", actualUpdateUserResult.getEmail());
         assertEquals("User1", actualUpdateUserResult.getName());
         assertEquals(1L, actualUpdateUserResult.getId());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(userJpaRepository).save(any());
+        verify(itemPageCache).invalidateAll();
+        verify(domainEventPublisher).publish(new UserUpdated(1L));
+    }
+
+    @Test
+    void testUpdateUserEmailKeepsItemPages() {
+        User user = createUser();
+        when(userJpaRepository.save(any())).thenReturn(user);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        userServiceImpl.updateUser(new UserRequestDto(null, "user2@example.org"), 1L);
+        verify(itemPageCache, never()).invalidateAll();
     }
 
     @Test
     void testUpdateUserNotFoundException() {
         User user = createUser();
         when(userJpaRepository.save(any())).thenThrow(new NotFoundException("An error occurred"));
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
         assertThrows(NotFoundException.class,
                 () -> userServiceImpl.updateUser(new UserRequestDto("User1", "user1@example.org"), 1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
         verify(userJpaRepository).save(any());
     }
 
@@ -85,68 +137,69 @@ class UserServiceImplTest {
 
         User user1 = createUser();
         when(userJpaRepository.save(any())).thenReturn(user1);
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class,
                 () -> userServiceImpl.updateUser(new UserRequestDto("User1", "user1@example.org"), 1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindUserById() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
         UserDto actualUserById = userServiceImpl.findUserById(1L);
         assertEquals("user1@example.org", actualUserById.getEmail());
         assertEquals("User1", actualUserById.getName());
         assertEquals(1L, actualUserById.getId());
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindUserByIdNotFoundException() {
         when(userJpaRepository.getReferenceById(anyLong())).thenThrow(new NotFoundException("An error occurred"));
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
         assertThrows(NotFoundException.class, () -> userServiceImpl.findUserById(1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).getReferenceById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testFindUserByIdNotFoundEx() {
         User user = createUser();
-        when(userJpaRepository.getReferenceById(anyLong())).thenReturn(user);
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> userServiceImpl.findUserById(1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test
     void testDeleteUserById() {
-        doNothing().when(userJpaRepository).deleteById(anyLong());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        doNothing().when(userJpaRepository).delete(any());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(ownerItemSummaryUpdater.findItemsTouchedBy(1L)).thenReturn(List.of(2L, 3L));
         userServiceImpl.deleteUserById(1L);
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).deleteById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(userJpaRepository).delete(any());
+        verify(ownerItemSummaryUpdater).refresh(List.of(2L, 3L));
+        verify(entityCacheEvictor).evictItems();
+        verify(itemPageCache).invalidateAll();
+        verify(domainEventPublisher).publish(new UserDeleted(1L));
     }
 
     @Test
     void testDeleteUserByIdNotFoundException() {
-        doThrow(new NotFoundException("An error occurred")).when(userJpaRepository).deleteById(anyLong());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(true);
+        doThrow(new NotFoundException("An error occurred")).when(userJpaRepository).delete(any());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
         assertThrows(NotFoundException.class, () -> userServiceImpl.deleteUserById(1L));
-        verify(userJpaRepository).existsById(anyLong());
-        verify(userJpaRepository).deleteById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
+        verify(userJpaRepository).delete(any());
     }
 
     @Test
     void testDeleteUserByIdNotFoundEx() {
-        doNothing().when(userJpaRepository).deleteById(anyLong());
-        when(userJpaRepository.existsById(anyLong())).thenReturn(false);
+        doNothing().when(userJpaRepository).delete(any());
+        when(userJpaRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> userServiceImpl.deleteUserById(1L));
-        verify(userJpaRepository).existsById(anyLong());
+        verify(userJpaRepository).findById(anyLong());
     }
 
     @Test